@@ -0,0 +1,46 @@
+package com.url_shortner.project.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies invalidations published by other nodes to this node's L1 caches.
+ */
+@Slf4j
+public class CacheInvalidationListener implements MessageListener {
+
+    private final TwoLevelCacheManager cacheManager;
+    private final String nodeId;
+
+    public CacheInvalidationListener(TwoLevelCacheManager cacheManager, String nodeId) {
+        this.cacheManager = cacheManager;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        CacheInvalidationPublisher.Invalidation invalidation = CacheInvalidationPublisher.parse(body);
+        if (invalidation == null) {
+            log.warn("Ignoring malformed cache invalidation: {}", body);
+            return;
+        }
+        if (nodeId.equals(invalidation.nodeId())) {
+            return; // Our own eviction, already applied locally
+        }
+
+        TwoLevelCache cache = cacheManager.getExistingCache(invalidation.cacheName());
+        if (cache == null) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(invalidation.key());
+        }
+        log.debug("Applied remote L1 invalidation: {}", body);
+    }
+}
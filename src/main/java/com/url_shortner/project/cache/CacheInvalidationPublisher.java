@@ -0,0 +1,66 @@
+package com.url_shortner.project.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Broadcasts L1 invalidations to every node over Redis pub/sub.
+ *
+ * Message format: {@code <nodeId>|<cacheName>|<key>}. A missing key means
+ * "clear the whole cache". Keys are sent as {@code toString()}, which is fine
+ * for the String short codes we cache.
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    public static final String CHANNEL = "cache:invalidate";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void publishEvict(String cacheName, Object key) {
+        publish(nodeId + "|" + cacheName + "|" + key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(nodeId + "|" + cacheName + "|");
+    }
+
+    /**
+     * Parses a message published by {@link #publishEvict}/{@link #publishClear}.
+     *
+     * @return null if the message is malformed
+     */
+    public static Invalidation parse(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 3) {
+            return null;
+        }
+        return new Invalidation(parts[0], parts[1], parts[2].isEmpty() ? null : parts[2]);
+    }
+
+    /**
+     * @param key null when the whole cache was cleared
+     */
+    public record Invalidation(String nodeId, String cacheName, String key) {
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (Exception e) {
+            // Other nodes fall back to the L1 TTL in this case
+            log.warn("Failed to publish cache invalidation {}: {}", message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.url_shortner.project.cache;
+
+import com.url_shortner.project.dto.ResolvedLink;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of {@link ResolvedLink} for the Redis cache.
+ *
+ * <pre>
+ * byte    format version
+ * byte    flags (active, permanent, has expiry, has password)
+ * long    expiry epoch millis          (only if "has expiry")
+ * byte[32] SHA-256 of the password     (only if "has password")
+ * byte[]  destination URL, UTF-8, up to the end of the value
+ * </pre>
+ *
+ * A typical link is the URL plus 2 bytes, versus several hundred bytes of
+ * class metadata with JDK serialization. Values in an unknown format fail to
+ * deserialize, which the cache error handler turns into a cache miss.
+ */
+public class ResolvedLinkRedisSerializer implements RedisSerializer<ResolvedLink> {
+
+    static final byte VERSION = 1;
+
+    private static final int FLAG_ACTIVE = 1;
+    private static final int FLAG_PERMANENT = 1 << 1;
+    private static final int FLAG_EXPIRY = 1 << 2;
+    private static final int FLAG_PASSWORD = 1 << 3;
+
+    private static final int PASSWORD_HASH_LENGTH = 32;
+
+    @Override
+    public byte[] serialize(ResolvedLink link) throws SerializationException {
+        if (link == null) {
+            return null;
+        }
+        byte[] url = link.originalUrl().getBytes(StandardCharsets.UTF_8);
+        boolean hasExpiry = link.expiresAtEpochMilli() != ResolvedLink.NO_EXPIRY;
+        boolean hasPassword = link.passwordHash() != null;
+
+        int flags = 0;
+        if (link.active()) {
+            flags |= FLAG_ACTIVE;
+        }
+        if (link.permanent()) {
+            flags |= FLAG_PERMANENT;
+        }
+        if (hasExpiry) {
+            flags |= FLAG_EXPIRY;
+        }
+        if (hasPassword) {
+            flags |= FLAG_PASSWORD;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + (hasExpiry ? Long.BYTES : 0)
+                + (hasPassword ? PASSWORD_HASH_LENGTH : 0) + url.length);
+        buffer.put(VERSION);
+        buffer.put((byte) flags);
+        if (hasExpiry) {
+            buffer.putLong(link.expiresAtEpochMilli());
+        }
+        if (hasPassword) {
+            buffer.put(link.passwordHash(), 0, PASSWORD_HASH_LENGTH);
+        }
+        buffer.put(url);
+        return buffer.array();
+    }
+
+    @Override
+    public ResolvedLink deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != VERSION || bytes.length < 2) {
+            throw new SerializationException("Unsupported link cache format: " + bytes[0]);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        int flags = buffer.get();
+
+        long expiresAt = ResolvedLink.NO_EXPIRY;
+        if ((flags & FLAG_EXPIRY) != 0) {
+            expiresAt = buffer.getLong();
+        }
+        byte[] passwordHash = null;
+        if ((flags & FLAG_PASSWORD) != 0) {
+            passwordHash = new byte[PASSWORD_HASH_LENGTH];
+            buffer.get(passwordHash);
+        }
+        String url = new String(bytes, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8);
+
+        return new ResolvedLink(url, expiresAt, passwordHash, (flags & FLAG_ACTIVE) != 0,
+                (flags & FLAG_PERMANENT) != 0 ? ResolvedLink.RedirectType.PERMANENT
+                        : ResolvedLink.RedirectType.TEMPORARY);
+    }
+}
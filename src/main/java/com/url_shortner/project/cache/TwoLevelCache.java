@@ -0,0 +1,275 @@
+package com.url_shortner.project.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Policy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A cache with an in-process L1 (Caffeine, W-TinyLFU admission) in front of a
+ * shared L2 (Redis).
+ *
+ * Reads hit L1 first and only go over the network on an L1 miss. Evictions are
+ * applied to both levels and broadcast to the other nodes so that their L1
+ * copies are dropped too (see {@link CacheInvalidationPublisher}).
+ *
+ * {@link #get(Object, Callable)} (used by {@code @Cacheable(sync = true)})
+ * additionally:
+ * - coalesces concurrent misses per key: one caller loads, the others wait
+ *   for its result (up to the load timeout, then load on their own),
+ * - refreshes entries that are still being read once they are older than
+ *   refreshAfter, in the background, so hot keys never fall out of either
+ *   level. L1 hits don't touch Redis, so without this a hot key's Redis
+ *   entry would expire and every node would miss at the same time. The
+ *   refresh goes straight to the loader: a stale L2 value must not be able
+ *   to renew itself.
+ */
+@Slf4j
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    private final String name;
+    private final Cache<Object, Object> localCache;
+    private final org.springframework.cache.Cache remoteCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final Duration loadTimeout;
+    private final Duration refreshAfter;
+    private final Executor refreshExecutor;
+    private final Policy.FixedExpiration<Object, Object> localExpiration;
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loadsInFlight = new ConcurrentHashMap<>();
+    private final Set<Object> refreshesInFlight = ConcurrentHashMap.newKeySet();
+
+    public TwoLevelCache(String name, Cache<Object, Object> localCache,
+            org.springframework.cache.Cache remoteCache, CacheInvalidationPublisher invalidationPublisher) {
+        this(name, localCache, remoteCache, invalidationPublisher, Duration.ofSeconds(5), null, null);
+    }
+
+    /**
+     * @param refreshAfter    age after which a read triggers a background
+     *                        refresh; null disables refresh-ahead
+     * @param refreshExecutor runs the refreshes; should be bounded and drop
+     *                        work when full (refreshing is best-effort)
+     */
+    public TwoLevelCache(String name, Cache<Object, Object> localCache,
+            org.springframework.cache.Cache remoteCache, CacheInvalidationPublisher invalidationPublisher,
+            Duration loadTimeout, Duration refreshAfter, Executor refreshExecutor) {
+        this.name = name;
+        this.localCache = localCache;
+        this.remoteCache = remoteCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.loadTimeout = loadTimeout;
+        this.refreshAfter = refreshAfter;
+        this.refreshExecutor = refreshExecutor;
+        this.localExpiration = localCache.policy().expireAfterWrite().orElse(null);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        // 1. L1: no network, no deserialization
+        Object local = localCache.getIfPresent(key);
+        if (local != null) {
+            return toWrapper(local);
+        }
+
+        // 2. L2: Redis. Promote whatever we find (including cached nulls) into L1.
+        ValueWrapper remote = remoteCache.get(key);
+        if (remote != null) {
+            localCache.put(key, toStoreValue(remote.get()));
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        Object value = wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object local = localCache.getIfPresent(key);
+        if (local != null) {
+            refreshIfStale(key, valueLoader);
+            return (T) fromStoreValue(local);
+        }
+
+        // Single flight: only the first caller for a key loads it
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loadsInFlight.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return (T) fromStoreValue(awaitLoad(key, inFlight, valueLoader));
+        }
+        try {
+            Object value = loadThrough(key, valueLoader);
+            load.complete(value);
+            return (T) fromStoreValue(value);
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadsInFlight.remove(key, load);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remoteCache.put(key, value);
+        localCache.put(key, toStoreValue(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteCache.evict(key);
+        localCache.invalidate(key);
+        invalidationPublisher.publishEvict(name, key);
+    }
+
+    @Override
+    public void clear() {
+        remoteCache.clear();
+        localCache.invalidateAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    /**
+     * Drops an entry from this node's L1 only. Called when another node has
+     * evicted the key; L2 was already taken care of by that node.
+     */
+    public void evictLocal(Object key) {
+        localCache.invalidate(key);
+    }
+
+    public void clearLocal() {
+        localCache.invalidateAll();
+    }
+
+    /**
+     * L2, then the loader. Whatever is found ends up in both levels.
+     *
+     * @return the store value (NullValue for null)
+     */
+    private Object loadThrough(Object key, Callable<?> valueLoader) {
+        ValueWrapper remote = remoteCache.get(key);
+        if (remote != null) {
+            Object value = toStoreValue(remote.get());
+            localCache.put(key, value);
+            return value;
+        }
+        Object loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        remoteCache.put(key, loaded);
+        Object value = toStoreValue(loaded);
+        localCache.put(key, value);
+        return value;
+    }
+
+    /**
+     * The loader, skipping L2. The result replaces the entry in both levels.
+     */
+    private void reload(Object key, Callable<?> valueLoader) {
+        Object loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        remoteCache.put(key, loaded);
+        localCache.put(key, toStoreValue(loaded));
+    }
+
+    private Object awaitLoad(Object key, CompletableFuture<Object> inFlight, Callable<?> valueLoader) {
+        try {
+            return inFlight.get(loadTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Don't let one slow load hold every request for this key hostage
+            log.warn("[Cache {}] Load of {} still running after {} ms, loading directly", name, key,
+                    loadTimeout.toMillis());
+            try {
+                return toStoreValue(valueLoader.call());
+            } catch (Exception loadFailure) {
+                throw new ValueRetrievalException(key, valueLoader, loadFailure);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private void refreshIfStale(Object key, Callable<?> valueLoader) {
+        if (refreshAfter == null || refreshExecutor == null || localExpiration == null) {
+            return;
+        }
+        Optional<Duration> age = localExpiration.ageOf(key);
+        if (age.isEmpty() || age.get().compareTo(refreshAfter) < 0 || !refreshesInFlight.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    reload(key, valueLoader);
+                } catch (Exception e) {
+                    log.warn("[Cache {}] Refresh of {} failed: {}", name, key, e.getMessage());
+                } finally {
+                    refreshesInFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshesInFlight.remove(key);
+        }
+    }
+
+    private static Object toStoreValue(Object value) {
+        return value == null ? NullValue.INSTANCE : value;
+    }
+
+    private static Object fromStoreValue(Object value) {
+        return value == NullValue.INSTANCE ? null : value;
+    }
+
+    private static ValueWrapper toWrapper(Object storeValue) {
+        return new SimpleValueWrapper(fromStoreValue(storeValue));
+    }
+}
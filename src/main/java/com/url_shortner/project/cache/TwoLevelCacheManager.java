@@ -0,0 +1,77 @@
+package com.url_shortner.project.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Wraps the Redis {@link CacheManager} so that every cache it hands out gets a
+ * bounded in-JVM L1 in front of it.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final long localMaximumSize;
+    private final Duration localTimeToLive;
+    private final Duration loadTimeout;
+    private final Duration refreshAfter;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, CacheInvalidationPublisher invalidationPublisher,
+            long localMaximumSize, Duration localTimeToLive, Duration loadTimeout, Duration refreshAfter,
+            Executor refreshExecutor) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localMaximumSize = localMaximumSize;
+        this.localTimeToLive = localTimeToLive;
+        this.loadTimeout = loadTimeout;
+        this.refreshAfter = refreshAfter;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Returns the cache only if it has already been created on this node, so
+     * that invalidation messages for unused caches don't create empty ones.
+     */
+    public TwoLevelCache getExistingCache(String name) {
+        return caches.get(name);
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache remoteCache = remoteCacheManager.getCache(name);
+        if (remoteCache == null) {
+            throw new IllegalStateException("No remote cache available for name: " + name);
+        }
+
+        // Caffeine's default eviction policy is W-TinyLFU: a new key has to be
+        // "hotter" than the victim to be admitted, so one-off scans of cold
+        // codes can't flush the few thousand hot links out of L1.
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTimeToLive)
+                .build();
+
+        return new TwoLevelCache(name, localCache, remoteCache, invalidationPublisher, loadTimeout, refreshAfter,
+                refreshExecutor);
+    }
+}
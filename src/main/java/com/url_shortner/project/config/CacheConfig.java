@@ -1,46 +1,124 @@
 package com.url_shortner.project.config;
 
 
+import com.url_shortner.project.cache.CacheInvalidationListener;
+import com.url_shortner.project.cache.CacheInvalidationPublisher;
+import com.url_shortner.project.cache.ResolvedLinkRedisSerializer;
+import com.url_shortner.project.cache.TwoLevelCacheManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableCaching
-public class CacheConfig {
-
-    @Bean
-    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
-        RedisCacheConfiguration redisCacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
-                .prefixCacheNameWith("my-redis-")
-                .entryTtl(Duration.ofSeconds(60))
-                .enableTimeToIdle();
-
-
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(redisCacheConfiguration)
-                .build();
-    }
-}
-
+public class CacheConfig implements CachingConfigurer {
 
+    @Value("${app.cache.local.maximum-size:10000}")
+    private long localMaximumSize;
 
+    // Keep this well below the Redis TTL: it bounds how long another node's L1
+    // keeps serving an entry if an invalidation message is lost. A stale value
+    // that reached L2 (loaded just before the writer committed) can be served
+    // for up to the L2 TTL on top of this.
+    @Value("${app.cache.local.time-to-live:30s}")
+    private Duration localTimeToLive;
 
+    // Entries still being read after this long are reloaded in the background
+    // (must be below the L1 TTL to have any effect)
+    @Value("${app.cache.local.refresh-after:20s}")
+    private Duration localRefreshAfter;
 
+    // Fixed, not idle-based: a hot user's roles are re-read from the DB at least this often
+    @Value("${app.cache.users.time-to-live:60s}")
+    private Duration usersTimeToLive;
 
+    // How long concurrent misses wait for the one in-flight load of the same key
+    @Value("${app.cache.load-timeout:2s}")
+    private Duration loadTimeout;
 
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate) {
+        return new CacheInvalidationPublisher(stringRedisTemplate);
+    }
 
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+            CacheInvalidationPublisher cacheInvalidationPublisher) {
+        RedisCacheConfiguration redisCacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith("my-redis-")
+                .entryTtl(Duration.ofSeconds(60))
+                .enableTimeToIdle();
 
 
+        // Links are stored in a compact binary form instead of JDK serialization.
+        // No time-to-idle: every L1 miss reads L2, so an idle-based entry that
+        // went in stale would stay there for as long as the link is hot.
+        RedisCacheConfiguration linksCacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith("my-redis-")
+                .entryTtl(Duration.ofSeconds(60))
+                .serializeValuesWith(SerializationPair.fromSerializer(new ResolvedLinkRedisSerializer()));
 
+        // Same for users, with its own TTL: a revoked role must not stay cached
+        // for as long as the user stays active
+        RedisCacheConfiguration usersCacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith("my-redis-")
+                .entryTtl(usersTimeToLive);
 
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(redisCacheConfiguration)
+                .withCacheConfiguration("links", linksCacheConfiguration)
+                .withCacheConfiguration("users", usersCacheConfiguration)
+                .build();
+        redisCacheManager.afterPropertiesSet();
 
+        // L1 (in-JVM) in front of L2 (Redis)
+        return new TwoLevelCacheManager(redisCacheManager, cacheInvalidationPublisher,
+                localMaximumSize, localTimeToLive, loadTimeout, localRefreshAfter, cacheRefreshExecutor());
+    }
 
+    // Refresh-ahead is best-effort: when it falls behind, refreshes are
+    // rejected (TwoLevelCache ignores that) and the entry expires normally
+    private ThreadPoolExecutor cacheRefreshExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1000), runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
+    // A cache that can't be read (Redis down, old value format) is treated as
+    // a miss instead of failing the request
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
 
+    @Bean
+    public CacheInvalidationListener cacheInvalidationListener(RedisMessageListenerContainer container,
+            CacheManager cacheManager, CacheInvalidationPublisher cacheInvalidationPublisher) {
+        CacheInvalidationListener listener = new CacheInvalidationListener((TwoLevelCacheManager) cacheManager,
+                cacheInvalidationPublisher.getNodeId());
+        container.addMessageListener(listener, new ChannelTopic(CacheInvalidationPublisher.CHANNEL));
+        return listener;
+    }
+}
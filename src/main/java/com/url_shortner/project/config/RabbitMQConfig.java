@@ -26,6 +26,12 @@ public class RabbitMQConfig {
     // DLQ
     public static final String QUEUE_DLQ = "sequential.dlq";
 
+    // Bulk import chunks (see ImportJobService)
+    public static final String QUEUE_IMPORT_CHUNKS = "imports.chunks";
+    public static final String ROUTING_KEY_IMPORT_CHUNK = "imports.chunk";
+    public static final String QUEUE_IMPORT_CHUNKS_DLQ = "imports.chunks.dlq";
+    public static final String ROUTING_KEY_IMPORT_CHUNK_DLQ = "imports.chunk.dlq";
+
     @Bean
     public org.springframework.amqp.rabbit.core.RabbitAdmin rabbitAdmin(
             org.springframework.amqp.rabbit.connection.ConnectionFactory connectionFactory) {
@@ -113,4 +119,29 @@ public class RabbitMQConfig {
     public Binding dlqBinding(Queue dlq, TopicExchange exchange) {
         return BindingBuilder.bind(dlq).to(exchange).with("sequential.dlq");
     }
+
+    // --- Bulk import chunks ---
+    // Chunks the worker rejects (ImportChunkWorker) are dead-lettered, not requeued
+    @Bean
+    public Queue importChunksQueue() {
+        return QueueBuilder.durable(QUEUE_IMPORT_CHUNKS)
+                .deadLetterExchange(EXCHANGE)
+                .deadLetterRoutingKey(ROUTING_KEY_IMPORT_CHUNK_DLQ)
+                .build();
+    }
+
+    @Bean
+    public Binding importChunksBinding(Queue importChunksQueue, TopicExchange exchange) {
+        return BindingBuilder.bind(importChunksQueue).to(exchange).with(ROUTING_KEY_IMPORT_CHUNK);
+    }
+
+    @Bean
+    public Queue importChunksDlq() {
+        return QueueBuilder.durable(QUEUE_IMPORT_CHUNKS_DLQ).build();
+    }
+
+    @Bean
+    public Binding importChunksDlqBinding(Queue importChunksDlq, TopicExchange exchange) {
+        return BindingBuilder.bind(importChunksDlq).to(exchange).with(ROUTING_KEY_IMPORT_CHUNK_DLQ);
+    }
 }
@@ -24,7 +24,7 @@ public class SecurityConfig {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/auth/**", "/redirect/**", "/health", "/error", "/ws/**").permitAll() // Allow
+                        .requestMatchers("/auth/**", "/redirect/**", "/health", "/actuator/health/**", "/error", "/ws/**").permitAll() // Allow
                         // authentication,
                         // redirect, health, and error
                         // endpoints
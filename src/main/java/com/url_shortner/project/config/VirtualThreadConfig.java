@@ -0,0 +1,31 @@
+package com.url_shortner.project.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for our own blocking background work (PubSub listeners,
+ * delayed email enqueueing, ...).
+ *
+ * With spring.threads.virtual.enabled=true Spring Boot already runs Tomcat
+ * requests, @Scheduled jobs and Rabbit listeners on virtual threads; this
+ * puts the executors we create ourselves in the same mode.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Bean(name = "blockingTaskExecutor")
+    public ExecutorService blockingTaskExecutor() {
+        if (virtualThreadsEnabled) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("blocking-", 0).factory());
+        }
+        return Executors.newCachedThreadPool();
+    }
+}
@@ -0,0 +1,85 @@
+package com.url_shortner.project.controller;
+
+import com.url_shortner.project.dto.ClickTimeSeriesDto;
+import com.url_shortner.project.dto.LeaderboardEntry;
+import com.url_shortner.project.dto.LinkBreakdownDto;
+import com.url_shortner.project.dto.LinkStatsDto;
+import com.url_shortner.project.entity.RollupGranularity;
+import com.url_shortner.project.service.LeaderboardService;
+import com.url_shortner.project.service.analytics.ClickAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Click stats, breakdowns and charts for the caller's links. Times are UTC
+ * ISO date-times, e.g.
+ * ?granularity=HOUR&from=2024-05-01T00:00:00&to=2024-05-03T00:00:00
+ */
+@RestController
+@RequestMapping("/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+
+    private final ClickAnalyticsService clickAnalyticsService;
+    private final LeaderboardService leaderboardService;
+
+    // The caller's most clicked links
+    @GetMapping("/top-links")
+    public ResponseEntity<List<LeaderboardEntry>> topLinks(@RequestParam(defaultValue = "10") int limit,
+            Principal principal) {
+        Long userId = Long.parseLong(principal.getName());
+        return ResponseEntity.ok(leaderboardService.topLinks(userId, limit));
+    }
+
+    @GetMapping("/top-links/global")
+    public ResponseEntity<List<LeaderboardEntry>> globalTopLinks(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(leaderboardService.topLinks(null, limit));
+    }
+
+    // Visits and approximate unique visitors (all-time, and per day for the last `days` days)
+    @GetMapping("/links/{shortCode}")
+    public ResponseEntity<LinkStatsDto> linkStats(@PathVariable String shortCode,
+            @RequestParam(defaultValue = "7") int days, Principal principal) {
+        Long userId = Long.parseLong(principal.getName());
+        return ResponseEntity.ok(clickAnalyticsService.linkStats(shortCode, userId, days));
+    }
+
+    // Approximate top referrers, browsers and client networks
+    @GetMapping("/links/{shortCode}/breakdown")
+    public ResponseEntity<LinkBreakdownDto> linkBreakdown(@PathVariable String shortCode,
+            @RequestParam(defaultValue = "10") int limit, Principal principal) {
+        Long userId = Long.parseLong(principal.getName());
+        return ResponseEntity.ok(clickAnalyticsService.linkBreakdown(shortCode, userId, limit));
+    }
+
+    @GetMapping("/links/{shortCode}/timeseries")
+    public ResponseEntity<ClickTimeSeriesDto> linkTimeSeries(@PathVariable String shortCode,
+            @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Principal principal) {
+        Long userId = Long.parseLong(principal.getName());
+        return ResponseEntity.ok(clickAnalyticsService.linkTimeSeries(shortCode, userId, granularity, from, to));
+    }
+
+    // All of the caller's links, summed per bucket
+    @GetMapping("/timeseries")
+    public ResponseEntity<ClickTimeSeriesDto> userTimeSeries(
+            @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Principal principal) {
+        Long userId = Long.parseLong(principal.getName());
+        return ResponseEntity.ok(clickAnalyticsService.userTimeSeries(userId, granularity, from, to));
+    }
+}
@@ -0,0 +1,64 @@
+package com.url_shortner.project.controller;
+
+import com.url_shortner.project.dto.CustomCodeAvailabilityRequestDto;
+import com.url_shortner.project.service.shortcode.CustomCodeReservationService;
+import com.url_shortner.project.service.shortcode.CustomCodeReservationService.Availability;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Vanity code checks for campaign setup: bulk availability, and holding a
+ * code for a while (app.short-code.reservation.ttl) before creating the
+ * link with it.
+ */
+@RestController
+@RequestMapping("/custom-codes")
+@RequiredArgsConstructor
+public class CustomCodeController {
+
+    private final CustomCodeReservationService customCodeReservationService;
+
+    // code -> AVAILABLE / TAKEN / RESERVED / INVALID, in request order
+    @PostMapping("/availability")
+    public ResponseEntity<Map<String, Availability>> checkAvailability(
+            @Valid @RequestBody CustomCodeAvailabilityRequestDto request, Principal principal) {
+        Long userId = Long.parseLong(principal.getName());
+        return ResponseEntity.ok(customCodeReservationService.checkAvailability(request.getCodes(), userId));
+    }
+
+    @PostMapping("/{code}/reservation")
+    public ResponseEntity<Map<String, Object>> reserve(@PathVariable String code, Principal principal) {
+        Long userId = Long.parseLong(principal.getName());
+        Availability availability = customCodeReservationService.reserveIfAvailable(code, userId);
+        switch (availability) {
+            case INVALID -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid custom code");
+            case TAKEN -> throw new ResponseStatusException(HttpStatus.CONFLICT, "Custom code already exists");
+            case RESERVED -> throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Custom code is reserved by another user");
+            default -> {
+            }
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                "code", code,
+                "reservedUntil", Instant.now().plus(customCodeReservationService.getReservationTtl()).toString()));
+    }
+
+    @DeleteMapping("/{code}/reservation")
+    public ResponseEntity<Void> release(@PathVariable String code, Principal principal) {
+        customCodeReservationService.release(code, Long.parseLong(principal.getName()));
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -35,7 +35,7 @@ public class ImageController {
             // Save to DB
             com.url_shortner.project.entity.ImageEntity imageEntity = com.url_shortner.project.entity.ImageEntity
                     .builder()
-                    .user(userRepository.findById(userId).orElseThrow())
+                    .user(userRepository.getReferenceById(userId)) // FK only, no SELECT
                     .filePath(imagePath)
                     .thumbnailPath(null) // Only null for now
                     .build();
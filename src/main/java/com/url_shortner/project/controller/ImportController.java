@@ -0,0 +1,71 @@
+package com.url_shortner.project.controller;
+
+import com.url_shortner.project.dto.ImportJobDto;
+import com.url_shortner.project.service.imports.ImportJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.IOException;
+import java.net.URI;
+import java.security.Principal;
+
+/**
+ * Job-based bulk import: upload a CSV / NDJSON file (same formats as
+ * POST /shorten/stream), then poll or long-poll its progress and fetch the
+ * per-line results.
+ */
+@RestController
+@RequestMapping("/imports")
+@RequiredArgsConstructor
+public class ImportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
+    private final ImportJobService importJobService;
+
+    @PostMapping(consumes = { NDJSON, CSV })
+    public ResponseEntity<ImportJobDto> createImport(HttpServletRequest request, Principal principal)
+            throws IOException {
+        Long userId = Long.parseLong(principal.getName());
+        boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.valueOf(CSV));
+        ImportJobDto job = importJobService.createJob(userId, request.getInputStream(), csv);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/imports/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDto> getImport(@PathVariable Long id, Principal principal) {
+        return ResponseEntity.ok(importJobService.getJob(id, Long.parseLong(principal.getName())));
+    }
+
+    // Long poll: pass the processedLines you last saw; returns when it changes (or on timeout)
+    @GetMapping("/{id}/wait")
+    public DeferredResult<ImportJobDto> waitForImport(@PathVariable Long id,
+            @RequestParam(required = false) Long processedLines, Principal principal) {
+        return importJobService.waitForProgress(id, Long.parseLong(principal.getName()), processedLines);
+    }
+
+    @GetMapping(value = "/{id}/results", produces = NDJSON)
+    public void getImportResults(@PathVariable Long id, Principal principal, HttpServletResponse response)
+            throws IOException {
+        Long userId = Long.parseLong(principal.getName());
+        importJobService.getJob(id, userId); // 404 before anything is written
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        importJobService.writeResults(id, userId, response.getOutputStream());
+    }
+}
@@ -2,24 +2,30 @@ package com.url_shortner.project.controller;
 
 import com.url_shortner.project.dto.BatchUrlRequestDto;
 import com.url_shortner.project.dto.BatchUrlResponseDto;
+import com.url_shortner.project.dto.ResolvedLink;
 import com.url_shortner.project.dto.UrlRequestDto;
 import com.url_shortner.project.dto.UrlResponseDto;
 import com.url_shortner.project.service.UrlService;
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import com.url_shortner.project.service.clicks.ClickEvent;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
-import org.springframework.web.servlet.view.RedirectView;
 
-import java.net.URI;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
@@ -28,7 +34,16 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class UrlController {
 
+    // Precomputed so the redirect path doesn't build header values per request
+    private static final String PERMANENT_CACHE_CONTROL = CacheControl.maxAge(24, TimeUnit.HOURS).cachePublic()
+            .getHeaderValue();
+    private static final String TEMPORARY_CACHE_CONTROL = CacheControl.noStore().getHeaderValue();
+
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
     private final UrlService urlService;
+    private final ShortCodeBloomFilter shortCodeBloomFilter;
 
     @PostMapping("/shorten")
     public ResponseEntity<UrlResponseDto> shortenUrl(@Valid @RequestBody UrlRequestDto request,
@@ -47,23 +62,58 @@ public class UrlController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @GetMapping("/redirect")
-    public RedirectView redirect(@RequestParam String shortCode, @RequestParam(required = false) String password) {
-        System.out.println("shortCode: " + shortCode);
-        String originalUrl = urlService.getOriginalUrl(shortCode, password);
-        urlService.incrementVisit(shortCode);
+    /**
+     * Streaming variant of /shorten/batch for inputs too large for one JSON
+     * body: NDJSON (one UrlRequestDto per line) or CSV
+     * (url,customCode,expiryDate,password) in, one NDJSON result per line out,
+     * written as chunks complete. See StreamingBulkShortenService.
+     */
+    @PostMapping(value = "/shorten/stream", consumes = { NDJSON, CSV }, produces = NDJSON)
+    public void streamShorten(HttpServletRequest request, HttpServletResponse response,
+            java.security.Principal principal) throws IOException {
+        Long userId = Long.parseLong(principal.getName());
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+        boolean csv = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.valueOf(CSV));
 
-        if (originalUrl == null) {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        urlService.shortenStream(request.getReader(), csv, response.getWriter(), userId);
+    }
+
+    /**
+     * Redirects are ~95% of our traffic, so this writes the status line and
+     * headers straight to the response instead of going through RedirectView
+     * and view resolution.
+     */
+    @GetMapping("/redirect")
+    public void redirect(@RequestParam String shortCode, @RequestParam(required = false) String password,
+            HttpServletRequest request, HttpServletResponse response) {
+        // Random / mistyped codes stop here, before any cache or DB access
+        if (!shortCodeBloomFilter.mightExist(shortCode)) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "URL not found");
         }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setLocation(URI.create(originalUrl));
+        ResolvedLink link = urlService.getOriginalUrl(shortCode, password);
 
-        // 3. Set Cache-Control: public, max-age=86400 (24 Hours) 🕒
-        // This tells the browser to cache this redirect for 1 day
-        headers.setCacheControl(CacheControl.maxAge(24, TimeUnit.HOURS).cachePublic());
-        return new RedirectView(originalUrl);
+        if (link == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "URL not found");
+        }
+        urlService.incrementVisit(ClickEvent.of(shortCode, request));
+
+        if (link.permanent()) {
+            // Cache-Control: public, max-age=86400 (24 Hours) 🕒
+            // This tells the browser to cache this redirect for 1 day
+            response.setStatus(HttpServletResponse.SC_MOVED_PERMANENTLY);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, PERMANENT_CACHE_CONTROL);
+        } else {
+            // Expiring / password protected: every hit has to come back to us
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, TEMPORARY_CACHE_CONTROL);
+        }
+        response.setHeader(HttpHeaders.LOCATION, link.originalUrl());
     }
 
     @DeleteMapping("/shorten/{shortCode}")
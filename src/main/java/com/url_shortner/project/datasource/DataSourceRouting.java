@@ -0,0 +1,38 @@
+package com.url_shortner.project.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override for read-only routing: code run through
+ * {@link #onPrimary(Supplier)} reads from the primary even inside a
+ * {@code @Transactional(readOnly = true)} method.
+ *
+ * The routing decision is made when the first statement needs a connection
+ * (LazyConnectionDataSourceProxy), so this works when called from inside an
+ * already-started read-only transaction as long as nothing has queried yet.
+ */
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            } else {
+                FORCE_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    public static boolean isPrimaryForced() {
+        return Boolean.TRUE.equals(FORCE_PRIMARY.get());
+    }
+}
@@ -0,0 +1,81 @@
+package com.url_shortner.project.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Sends reads to the primary for a short window after a user wrote, so they
+ * never see their own link missing or stale on a lagging replica.
+ *
+ * Writes are recorded in Redis (not per node) because the read that follows
+ * usually lands on another node, and because a cache miss on any node right
+ * after an edit must not load the old row from a replica and re-cache it.
+ *
+ * Does nothing unless replica routing is enabled.
+ */
+@Service
+@Slf4j
+public class ReadYourWritesTracker {
+
+    private static final String USER_KEY_PREFIX = "ryw:user:";
+    private static final String LINK_KEY_PREFIX = "ryw:link:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.datasource.replicas.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.datasource.replicas.read-your-writes-window:5s}")
+    private Duration window;
+
+    public ReadYourWritesTracker(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void recordWrite(Long userId, String shortCode) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (userId != null) {
+                redisTemplate.opsForValue().set(USER_KEY_PREFIX + userId, "1", window);
+            }
+            if (shortCode != null) {
+                redisTemplate.opsForValue().set(LINK_KEY_PREFIX + shortCode, "1", window);
+            }
+        } catch (Exception e) {
+            log.warn("[Replicas] Could not record write for user {} / {}: {}", userId, shortCode, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a read for the given user, on the primary if they wrote recently.
+     */
+    public <T> T readForUser(Long userId, Supplier<T> read) {
+        return recentlyWritten(USER_KEY_PREFIX + userId) ? DataSourceRouting.onPrimary(read) : read.get();
+    }
+
+    /**
+     * Runs a read of the given link, on the primary if it was written recently.
+     */
+    public <T> T readForLink(String shortCode, Supplier<T> read) {
+        return recentlyWritten(LINK_KEY_PREFIX + shortCode) ? DataSourceRouting.onPrimary(read) : read.get();
+    }
+
+    private boolean recentlyWritten(String key) {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+        } catch (Exception e) {
+            // Can't tell: the primary is always correct
+            return true;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.url_shortner.project.dto;
 
-
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
@@ -11,4 +11,7 @@ public class BatchUrlResponseDto {
     private String shortUrl;
     private String error; // Null if success, error message if failed
     private String status; // "SUCCESS" or "FAILURE"
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long line; // Input line number, streaming endpoint only
 }
@@ -0,0 +1,23 @@
+package com.url_shortner.project.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+public class ClickTimeSeriesDto {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String shortCode; // null for "all of the user's links"
+    private String granularity; // MINUTE, HOUR or DAY
+    private LocalDateTime from; // UTC, inclusive
+    private LocalDateTime to; // UTC, exclusive
+    private long totalClicks;
+    private List<Point> points; // one per bucket, empty buckets included
+
+    public record Point(LocalDateTime bucket, long clicks) {
+    }
+}
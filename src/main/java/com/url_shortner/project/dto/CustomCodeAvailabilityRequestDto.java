@@ -0,0 +1,16 @@
+package com.url_shortner.project.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CustomCodeAvailabilityRequestDto {
+
+    @NotEmpty(message = "codes cannot be empty")
+    @Size(max = 1000, message = "At most 1000 codes per request")
+    private List<@NotBlank(message = "codes cannot contain null or blank entries") String> codes;
+}
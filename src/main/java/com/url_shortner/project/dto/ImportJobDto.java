@@ -0,0 +1,20 @@
+package com.url_shortner.project.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class ImportJobDto {
+    private Long id;
+    private String status; // UPLOADING, RUNNING, COMPLETED or FAILED
+    private long totalLines;
+    private long processedLines;
+    private long succeeded;
+    private long failed;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
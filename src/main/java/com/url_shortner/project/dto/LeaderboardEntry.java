@@ -0,0 +1,12 @@
+package com.url_shortner.project.dto;
+
+/**
+ * One row of a top-links leaderboard.
+ *
+ * @param rank      1-based
+ * @param shortCode the link
+ * @param clicks    clicks counted for the leaderboard (approximate for links
+ *                  that dropped out of the tracked set and came back)
+ */
+public record LeaderboardEntry(int rank, String shortCode, long clicks) {
+}
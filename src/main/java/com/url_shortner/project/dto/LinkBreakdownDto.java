@@ -0,0 +1,19 @@
+package com.url_shortner.project.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class LinkBreakdownDto {
+    private String shortCode;
+    private long clicks; // counted since the link entered the in-memory breakdowns
+    private List<Share> referrers; // highest first, approximate (count-min sketch)
+    private List<Share> browsers;
+    private List<Share> networks; // IPv4 /24 or IPv6 /48
+
+    public record Share(String value, long clicks) {
+    }
+}
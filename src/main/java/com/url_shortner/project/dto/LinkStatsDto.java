@@ -0,0 +1,19 @@
+package com.url_shortner.project.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class LinkStatsDto {
+    private String shortCode;
+    private long visits; // synced to the DB + still pending in Redis
+    private long uniqueVisitors; // approximate (HyperLogLog), all-time
+    private List<DailyUniqueVisitors> uniqueVisitorsByDay; // oldest first, UTC days
+
+    public record DailyUniqueVisitors(LocalDate day, long uniqueVisitors) {
+    }
+}
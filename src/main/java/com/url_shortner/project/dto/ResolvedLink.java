@@ -0,0 +1,57 @@
+package com.url_shortner.project.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Immutable, cache-friendly view of a short link: everything the redirect
+ * path needs to decide what to do, without going back to the database.
+ *
+ * Access checks (active, expiry, password) are evaluated against this record
+ * on every request, so a cache hit is checked exactly like a cache miss.
+ *
+ * @param originalUrl         where to send the client
+ * @param expiresAtEpochMilli expiry instant, or {@link #NO_EXPIRY}
+ * @param passwordHash        SHA-256 of the link password, or null if the
+ *                            link is not protected
+ * @param active              false once the link has been (soft) deleted
+ * @param redirectType        permanent (301) or temporary (302)
+ */
+public record ResolvedLink(String originalUrl, long expiresAtEpochMilli, byte[] passwordHash, boolean active,
+        RedirectType redirectType) {
+
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    public enum RedirectType {
+        PERMANENT,
+        TEMPORARY
+    }
+
+    public boolean permanent() {
+        return redirectType == RedirectType.PERMANENT;
+    }
+
+    public boolean isExpired(long nowEpochMilli) {
+        return expiresAtEpochMilli != NO_EXPIRY && expiresAtEpochMilli < nowEpochMilli;
+    }
+
+    public boolean requiresPassword() {
+        return passwordHash != null;
+    }
+
+    public boolean matchesPassword(String candidate) {
+        if (passwordHash == null) {
+            return true;
+        }
+        return candidate != null && MessageDigest.isEqual(passwordHash, hashPassword(candidate));
+    }
+
+    public static byte[] hashPassword(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
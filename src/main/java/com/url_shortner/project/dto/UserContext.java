@@ -0,0 +1,22 @@
+package com.url_shortner.project.dto;
+
+import com.url_shortner.project.entity.Role;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * What request handling needs to know about a user (that they exist, and
+ * their roles), cached in "users" instead of loading UserEntity with its
+ * role join on every call. See UserLookupService.
+ */
+public record UserContext(Long id, Set<Role> roles) implements Serializable {
+
+    public UserContext {
+        roles = Set.copyOf(roles);
+    }
+
+    public boolean hasRole(Role role) {
+        return roles.contains(role);
+    }
+}
@@ -0,0 +1,43 @@
+package com.url_shortner.project.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Clicks of one link in one time bucket. Written (upserted) by
+ * ClickRollupAggregator as MINUTE rows, which are later compacted into HOUR
+ * and then DAY rows; see ClickRollupRepository for the SQL.
+ */
+@Entity
+@Table(name = "click_rollups", indexes = {
+        // Upsert target (ON CONFLICT), and serves the per-link time series query
+        @Index(name = "idx_click_rollups_bucket", columnList = "shortCode, granularity, bucketStart", unique = true)
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ClickRollupEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 10)
+    private String shortCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 6)
+    private RollupGranularity granularity;
+
+    // UTC
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private long clicks;
+}
@@ -0,0 +1,38 @@
+package com.url_shortner.project.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks one chunk of an import job as counted. Inserted in the same
+ * statement that adds the chunk's counts to the job
+ * (ImportJobRepository.recordChunk), so a redelivered chunk is never counted
+ * twice and a counted chunk is never lost.
+ */
+@Entity
+@Table(name = "import_job_chunks", indexes = {
+        @Index(name = "idx_import_job_chunks_chunk", columnList = "job_id, chunk_index", unique = true)
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ImportJobChunkEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "chunk_index", nullable = false)
+    private int chunkIndex;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+}
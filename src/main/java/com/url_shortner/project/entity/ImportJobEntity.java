@@ -0,0 +1,77 @@
+package com.url_shortner.project.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "import_jobs", indexes = {
+        @Index(name = "idx_import_jobs_user", columnList = "user_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+public class ImportJobEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    private UserEntity user;
+
+    // UPLOADING -> RUNNING -> COMPLETED, or FAILED
+    @Builder.Default
+    @Column(name = "status", nullable = false)
+    private String status = "UPLOADING";
+
+    @Column(name = "csv", nullable = false)
+    private boolean csv;
+
+    @Column(name = "file_path", nullable = false)
+    private String filePath;
+
+    @Builder.Default
+    @Column(name = "total_lines", nullable = false)
+    private long totalLines = 0;
+
+    @Builder.Default
+    @Column(name = "total_chunks", nullable = false)
+    private int totalChunks = 0;
+
+    // Progress, updated atomically by the workers (ImportJobRepository.recordChunk)
+    @Builder.Default
+    @Column(name = "completed_chunks", nullable = false)
+    private int completedChunks = 0;
+
+    @Builder.Default
+    @Column(name = "processed_lines", nullable = false)
+    private long processedLines = 0;
+
+    @Builder.Default
+    @Column(name = "succeeded", nullable = false)
+    private long succeeded = 0;
+
+    @Builder.Default
+    @Column(name = "failed", nullable = false)
+    private long failed = 0;
+
+    public static final int ERROR_LENGTH = 255;
+
+    @Column(name = "error", length = ERROR_LENGTH)
+    private String error;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,34 @@
+package com.url_shortner.project.entity;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Bucket size of a click_rollups row. Buckets are UTC; DAY buckets start at
+ * 00:00 UTC.
+ */
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    // Field name for Postgres date_trunc()
+    public String sqlUnit() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
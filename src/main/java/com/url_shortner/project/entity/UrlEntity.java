@@ -3,13 +3,20 @@ package com.url_shortner.project.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.LastModifiedDate;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "urls", indexes = {
-        @Index(name = "idx_short_code", columnList = "shortCode", unique = true)
+        @Index(name = "idx_short_code", columnList = "shortCode", unique = true),
+        // NULL hashes (custom / expiring / password links) don't conflict
+        @Index(name = "idx_user_url_hash", columnList = "user_id, urlHash", unique = true),
+        // Snapshot catch-up (UrlRepository.findLinksUpdatedAfter)
+        @Index(name = "idx_updated_at_id", columnList = "updatedAt, id"),
+        // Top visited links (UrlRepository.findMostVisitedAfter)
+        @Index(name = "idx_visits_id", columnList = "visits DESC, id")
 })
 @Getter
 @Setter
@@ -31,6 +38,10 @@ public class UrlEntity {
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
+    @UpdateTimestamp
+    @Column(nullable = true)
+    private LocalDateTime updatedAt;
+
     @Column(nullable = true)
     private Long visits;
 
@@ -54,4 +65,8 @@ public class UrlEntity {
     @Column
     private String password;
 
+    // DestinationHash of originalUrl, set only on plain links (see UrlServiceImpl.shortenUrl)
+    @Column(length = 32)
+    private String urlHash;
+
 }
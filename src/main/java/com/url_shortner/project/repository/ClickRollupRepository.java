@@ -0,0 +1,99 @@
+package com.url_shortner.project.repository;
+
+import com.url_shortner.project.entity.RollupGranularity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC access to click_rollups (see ClickRollupEntity). Rows are only ever
+ * added to, via INSERT ... ON CONFLICT, so concurrent flushes from several
+ * nodes and the compaction job never overwrite each other's counts.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ClickRollupRepository {
+
+    private static final String UPSERT_SQL = "INSERT INTO click_rollups (short_code, granularity, bucket_start, clicks) "
+            + "VALUES (?, ?, ?, ?) ON CONFLICT (short_code, granularity, bucket_start) "
+            + "DO UPDATE SET clicks = click_rollups.clicks + EXCLUDED.clicks";
+
+    // Upserts lock rows in statement order; a fixed key order keeps concurrent
+    // flushes from several nodes from deadlocking on each other's rows
+    private static final Comparator<Row> KEY_ORDER = Comparator.comparing(Row::shortCode)
+            .thenComparing(Row::granularity)
+            .thenComparing(Row::bucketStart);
+
+    public record Row(String shortCode, RollupGranularity granularity, LocalDateTime bucketStart, long clicks) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void upsert(List<Row> rows) {
+        List<Row> ordered = new ArrayList<>(rows);
+        ordered.sort(KEY_ORDER);
+        jdbcTemplate.batchUpdate(UPSERT_SQL, ordered, ordered.size(), (ps, row) -> {
+            ps.setString(1, row.shortCode());
+            ps.setString(2, row.granularity().name());
+            ps.setTimestamp(3, Timestamp.valueOf(row.bucketStart()));
+            ps.setLong(4, row.clicks());
+        });
+    }
+
+    /**
+     * Moves all {@code from} rows older than {@code before} into {@code to}
+     * buckets. One statement (DELETE ... RETURNING feeding the upsert), so a
+     * row is either still fine-grained or already rolled up, never both or
+     * neither.
+     *
+     * @return number of {@code to} rows written
+     */
+    public int compact(RollupGranularity from, RollupGranularity to, LocalDateTime before) {
+        // Granularities come from the enum, never from user input
+        String sql = "WITH moved AS (DELETE FROM click_rollups WHERE granularity = '" + from.name() + "' "
+                + "AND bucket_start < ? RETURNING short_code, bucket_start, clicks) "
+                + "INSERT INTO click_rollups (short_code, granularity, bucket_start, clicks) "
+                + "SELECT short_code, '" + to.name() + "', date_trunc('" + to.sqlUnit() + "', bucket_start), SUM(clicks) "
+                + "FROM moved GROUP BY short_code, date_trunc('" + to.sqlUnit() + "', bucket_start) "
+                + "ON CONFLICT (short_code, granularity, bucket_start) "
+                + "DO UPDATE SET clicks = click_rollups.clicks + EXCLUDED.clicks";
+        return jdbcTemplate.update(sql, Timestamp.valueOf(before));
+    }
+
+    /**
+     * Clicks per bucket for one link, in [from, to). Rows coarser than the
+     * requested granularity (already compacted) count at their own start.
+     */
+    public Map<LocalDateTime, Long> timeSeries(String shortCode, RollupGranularity granularity,
+            LocalDateTime from, LocalDateTime to) {
+        return query("short_code = ?", shortCode, granularity, from, to);
+    }
+
+    /**
+     * Clicks per bucket summed over all links of a user, in [from, to).
+     */
+    public Map<LocalDateTime, Long> timeSeriesForUser(Long userId, RollupGranularity granularity,
+            LocalDateTime from, LocalDateTime to) {
+        return query("short_code IN (SELECT short_code FROM urls WHERE user_id = ?)", userId, granularity, from, to);
+    }
+
+    private Map<LocalDateTime, Long> query(String filter, Object filterArg, RollupGranularity granularity,
+            LocalDateTime from, LocalDateTime to) {
+        String bucket = "date_trunc('" + granularity.sqlUnit() + "', bucket_start)";
+        String sql = "SELECT " + bucket + " AS bucket, SUM(clicks) AS clicks FROM click_rollups WHERE " + filter
+                + " AND bucket_start >= ? AND bucket_start < ? GROUP BY " + bucket + " ORDER BY bucket";
+        Map<LocalDateTime, Long> series = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            series.put(rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("clicks"));
+        }, filterArg, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        return series;
+    }
+}
@@ -3,11 +3,14 @@ package com.url_shortner.project.repository;
 import com.url_shortner.project.entity.ImageEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Repository
 public interface ImageRepository extends JpaRepository<ImageEntity, Long> {
 
+    // Polled by the thumbnail cron; fine to serve from a replica
+    @Transactional(readOnly = true)
     List<ImageEntity> findByThumbnailPathIsNull();
 }
@@ -0,0 +1,61 @@
+package com.url_shortner.project.repository;
+
+import com.url_shortner.project.entity.ImportJobEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ImportJobRepository extends JpaRepository<ImportJobEntity, Long> {
+
+    /**
+     * Adds one chunk's counts to the job, at most once per chunk: the
+     * import_job_chunks row and the counter update are one statement, so a
+     * redelivered chunk finds its row and changes nothing. Workers on several
+     * nodes finish chunks concurrently, so the counters are added to, never
+     * overwritten.
+     *
+     * @return 1 if the chunk was counted now, 0 if it had been already
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "WITH claimed AS (INSERT INTO import_job_chunks (job_id, chunk_index, recorded_at) "
+            + "VALUES (:id, :chunkIndex, :now) ON CONFLICT (job_id, chunk_index) DO NOTHING RETURNING job_id) "
+            + "UPDATE import_jobs SET completed_chunks = completed_chunks + 1, "
+            + "processed_lines = processed_lines + :lines, succeeded = succeeded + :succeeded, "
+            + "failed = failed + :failed WHERE id IN (SELECT job_id FROM claimed)", nativeQuery = true)
+    int recordChunk(Long id, int chunkIndex, long lines, long succeeded, long failed, LocalDateTime now);
+
+    @Query("SELECT COUNT(c) > 0 FROM ImportJobChunkEntity c WHERE c.jobId = :id AND c.chunkIndex = :chunkIndex")
+    boolean isChunkRecorded(Long id, int chunkIndex);
+
+    // Targeted update: saving a stale entity would overwrite counts other workers added meanwhile
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJobEntity j SET j.status = 'FAILED', j.error = :error, j.completedAt = :now "
+            + "WHERE j.id = :id AND j.status = 'RUNNING'")
+    int fail(Long id, String error, LocalDateTime now);
+
+    // Finished jobs past retention, oldest first (ImportJobService.cleanUpFinishedJobs)
+    @Query("SELECT j FROM ImportJobEntity j WHERE j.status IN ('COMPLETED', 'FAILED') "
+            + "AND COALESCE(j.completedAt, j.createdAt) < :cutoff ORDER BY j.id")
+    List<ImportJobEntity> findFinishedBefore(LocalDateTime cutoff, Pageable pageable);
+
+    // The job and its chunk rows in one statement
+    @Modifying
+    @Transactional
+    @Query(value = "WITH chunks AS (DELETE FROM import_job_chunks WHERE job_id = :id) "
+            + "DELETE FROM import_jobs WHERE id = :id", nativeQuery = true)
+    int deleteJob(Long id);
+
+    // Only the worker that finishes the last chunk flips the status
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJobEntity j SET j.status = 'COMPLETED', j.completedAt = :now "
+            + "WHERE j.id = :id AND j.status = 'RUNNING' AND j.completedChunks >= j.totalChunks")
+    int completeIfDone(Long id, LocalDateTime now);
+}
@@ -0,0 +1,50 @@
+package com.url_shortner.project.repository;
+
+import com.url_shortner.project.entity.UrlEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plain JDBC batch insert for urls.
+ *
+ * Hibernate can't batch inserts for an IDENTITY id (it needs each generated
+ * key back), so bulk creation bypasses the persistence context. With
+ * reWriteBatchedInserts=true on the JDBC URL, the Postgres driver sends each
+ * batch as multi-row INSERTs.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlBulkInsertRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO urls (original_url, short_code, visits, user_id, is_active, "
+            + "custom_code, expiry_date, password, url_hash, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<UrlEntity> urls) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, urls, urls.size(), (ps, url) -> {
+            ps.setString(1, url.getOriginalUrl());
+            ps.setString(2, url.getShortCode());
+            ps.setLong(3, url.getVisits() == null ? 0L : url.getVisits());
+            ps.setLong(4, url.getUser().getId());
+            ps.setBoolean(5, url.isActive());
+            ps.setString(6, url.getCustomCode());
+            if (url.getExpiryDate() == null) {
+                ps.setNull(7, Types.TIMESTAMP);
+            } else {
+                ps.setTimestamp(7, Timestamp.valueOf(url.getExpiryDate()));
+            }
+            ps.setString(8, url.getPassword());
+            ps.setString(9, url.getUrlHash());
+            ps.setTimestamp(10, now);
+            ps.setTimestamp(11, now);
+        });
+    }
+}
@@ -14,7 +14,10 @@ import java.util.Optional;
 public interface UrlRepository extends JpaRepository<UrlEntity, Long> {
     Optional<UrlEntity> findByShortCode(String shortCode);
 
-    Optional<UrlEntity> findByOriginalUrl(String originalUrl);
+    // Served by idx_user_url_hash
+    Optional<UrlEntity> findByUserAndUrlHash(UserEntity user, String urlHash);
+
+    List<UrlEntity> findByUserAndUrlHashIn(UserEntity user, java.util.Collection<String> urlHashes);
 
     Page<UrlEntity> findByUser(UserEntity user, Pageable pageable);
 
@@ -22,5 +25,37 @@ public interface UrlRepository extends JpaRepository<UrlEntity, Long> {
     @Query("UPDATE UrlEntity u SET u.visits = u.visits + :count WHERE u.shortCode = :shortCode")
     void incrementVisits(String shortCode, int count);
 
+    // Keyset pagination over all issued codes: each row is [id, shortCode]
+    @Query("SELECT u.id, u.shortCode FROM UrlEntity u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findShortCodesAfter(Long afterId, Pageable pageable);
+
+    List<UrlEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Keyset pagination over rows changed since a point in time, served by
+    // idx_updated_at_id: each row is [id, updatedAt, shortCode, originalUrl,
+    // expiryDate, password, isActive]
+    @Query("SELECT u.id, u.updatedAt, u.shortCode, u.originalUrl, u.expiryDate, u.password, u.isActive "
+            + "FROM UrlEntity u WHERE u.updatedAt > :since OR (u.updatedAt = :since AND u.id > :afterId) "
+            + "ORDER BY u.updatedAt, u.id")
+    List<Object[]> findLinksUpdatedAfter(java.time.LocalDateTime since, Long afterId, Pageable pageable);
+
+    // Most visited first, in (visits DESC, id) keyset pages served by idx_visits_id; rows that
+    // were never visited are left out. Pass Long.MAX_VALUE / 0 for the first page, then the
+    // last row's visits / id
+    @Query("SELECT u FROM UrlEntity u WHERE u.visits > 0 "
+            + "AND (u.visits < :visits OR (u.visits = :visits AND u.id > :afterId)) "
+            + "ORDER BY u.visits DESC, u.id")
+    List<UrlEntity> findMostVisitedAfter(Long visits, Long afterId, Pageable pageable);
+
+    List<UrlEntity> findByShortCodeIn(java.util.Collection<String> shortCodes);
+
+    // Owner of each code: rows are [shortCode, userId]
+    @Query("SELECT u.shortCode, u.user.id FROM UrlEntity u WHERE u.shortCode IN :shortCodes")
+    List<Object[]> findOwnerIdsByShortCodeIn(java.util.Collection<String> shortCodes);
+
+    // Which of these candidate codes are already taken
+    @Query("SELECT u.shortCode FROM UrlEntity u WHERE u.shortCode IN :shortCodes")
+    List<String> findExistingShortCodes(java.util.Collection<String> shortCodes);
+
 
 }
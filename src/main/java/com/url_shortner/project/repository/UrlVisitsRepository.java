@@ -0,0 +1,43 @@
+package com.url_shortner.project.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Adds synced visit counts to many urls with one statement:
+ *
+ * UPDATE urls SET visits = visits + v.count
+ * FROM (VALUES (?, ?), ...) AS v(code, count) WHERE short_code = v.code
+ *
+ * instead of one UPDATE (and one round trip) per link.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UrlVisitsRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param codes  distinct short codes
+     * @param counts visits to add, one per code
+     * @return number of urls updated (codes of deleted links don't match)
+     */
+    public int addVisits(List<String> codes, List<Long> counts) {
+        if (codes.isEmpty()) {
+            return 0;
+        }
+        String values = String.join(", ", Collections.nCopies(codes.size(), "(?, CAST(? AS BIGINT))"));
+        String sql = "UPDATE urls SET visits = COALESCE(urls.visits, 0) + v.count FROM (VALUES " + values
+                + ") AS v(code, count) WHERE urls.short_code = v.code";
+        Object[] args = new Object[codes.size() * 2];
+        for (int i = 0; i < codes.size(); i++) {
+            args[2 * i] = codes.get(i);
+            args[2 * i + 1] = counts.get(i);
+        }
+        return jdbcTemplate.update(sql, args);
+    }
+}
@@ -0,0 +1,23 @@
+package com.url_shortner.project.security;
+
+import java.security.Principal;
+import java.util.Set;
+
+/**
+ * Principal built from the JWT claims alone (no DB access).
+ *
+ * getName() is the user id, so controllers reading principal.getName()
+ * keep working. Roles are as of token issue time; authorization checks use
+ * the cached, invalidatable roles from UserLookupService instead.
+ */
+public record AuthenticatedUser(Long id, Set<String> roles) implements Principal {
+
+    public AuthenticatedUser {
+        roles = Set.copyOf(roles);
+    }
+
+    @Override
+    public String getName() {
+        return id.toString();
+    }
+}
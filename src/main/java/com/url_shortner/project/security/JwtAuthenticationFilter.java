@@ -59,9 +59,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
                 }
 
-                // Construct a principal object
+                // Principal straight from the claims; the user row is only read (and cached) where needed
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userId,
+                        new AuthenticatedUser(userId, roles),
                         null,
                         authorities);
 
@@ -1,54 +1,173 @@
 package com.url_shortner.project.service;
 
-import com.url_shortner.project.repository.UrlRepository;
-import jakarta.transaction.Transactional;
+import com.url_shortner.project.repository.UrlVisitsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import static com.url_shortner.project.service.visits.VisitCounterBuffer.DIRTY_SET_KEY;
+import static com.url_shortner.project.service.visits.VisitCounterBuffer.VISITS_KEY_PREFIX;
+
+/**
+ * Moves visit counts from Redis (visits:{code} + the dirty_urls set) into
+ * urls.visits.
+ *
+ * Per run, dirty_urls is walked with SSCAN in chunks. Each chunk is drained
+ * atomically by a Lua script (read + delete each counter, SREM the code), so
+ * a visit counted while we sync is never deleted unseen: it lands in a fresh
+ * counter and re-adds the code for the next run. Each chunk is then applied
+ * with a single UPDATE ... FROM (VALUES ...). If that fails, the drained
+ * counts are added back to Redis for the next run.
+ *
+ * Metrics: analytics.sync.links / .visits / .failures counters and an
+ * analytics.sync.duration timer (one sample per run).
+ */
 @Service
+@Slf4j
 public class AnalyticsSyncService {
 
-    private final UrlRepository urlRepository;
+    // KEYS: the dirty set, then each code's visits key; ARGV: the codes.
+    // Returns one count per code ("0" if it has none)
+    private static final RedisScript<List> DRAIN_SCRIPT = new DefaultRedisScript<>(
+            "local counts = {}\n" +
+                    "for i, code in ipairs(ARGV) do\n" +
+                    "  local key = KEYS[i + 1]\n" +
+                    "  counts[i] = redis.call('GET', key) or '0'\n" +
+                    "  redis.call('DEL', key)\n" +
+                    "  redis.call('SREM', KEYS[1], code)\n" +
+                    "end\n" +
+                    "return counts",
+            List.class);
+
+    private final UrlVisitsRepository urlVisitsRepository;
     private final StringRedisTemplate redisStatsTemplate;
+    private final Counter syncedLinks;
+    private final Counter syncedVisits;
+    private final Counter failedChunks;
+    private final Timer syncDuration;
 
+    @Value("${app.analytics.sync.batch-size:1000}")
+    private int batchSize;
 
-    public AnalyticsSyncService(UrlRepository urlRepository, StringRedisTemplate redisStatsTemplate) {
-        this.urlRepository = urlRepository;
+    public AnalyticsSyncService(UrlVisitsRepository urlVisitsRepository, StringRedisTemplate redisStatsTemplate,
+            MeterRegistry meterRegistry) {
+        this.urlVisitsRepository = urlVisitsRepository;
         this.redisStatsTemplate = redisStatsTemplate;
+        this.syncedLinks = Counter.builder("analytics.sync.links")
+                .description("Links whose visit counts were synced to the database")
+                .register(meterRegistry);
+        this.syncedVisits = Counter.builder("analytics.sync.visits")
+                .description("Visits synced to the database")
+                .register(meterRegistry);
+        this.failedChunks = Counter.builder("analytics.sync.failures")
+                .description("Sync chunks that failed and were put back into Redis")
+                .register(meterRegistry);
+        this.syncDuration = Timer.builder("analytics.sync.duration")
+                .description("Duration of one visit sync run")
+                .register(meterRegistry);
     }
 
-    @Scheduled(fixedDelay = 60000)
-    @Transactional
+    @Scheduled(fixedDelayString = "${app.analytics.sync.interval-ms:60000}")
     public void syncVisitsToDatabase() {
-        // 1. Get all shortCodes that have been visited recently
-        Set<String> dirtyCodes = redisStatsTemplate.opsForSet().members("dirty_urls");
-
-        if (dirtyCodes == null || dirtyCodes.isEmpty()) {
-            return; // Nothing to sync
+        long start = System.nanoTime();
+        SyncResult total = new SyncResult();
+        try (Cursor<String> cursor = redisStatsTemplate.opsForSet().scan(DIRTY_SET_KEY,
+                ScanOptions.scanOptions().count(batchSize).build())) {
+            // SSCAN may return a code twice; the second drain just finds nothing
+            Set<String> chunk = new LinkedHashSet<>();
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() == batchSize) {
+                    syncChunk(new ArrayList<>(chunk), total);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                syncChunk(new ArrayList<>(chunk), total);
+            }
+        } catch (Exception e) {
+            log.warn("[Analytics] Visit sync aborted after {} links: {}", total.links, e.getMessage());
+        } finally {
+            syncDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
-        for (String shortCode : dirtyCodes) {
-            // 2. Get the count from Redis
-            System.out.println("✅ This are dirty codes " + shortCode + " is in dirtycodes.");
-
-            String countStr = redisStatsTemplate.opsForValue().get("visits:" + shortCode);
-            System.out.println("Redis Count " + countStr);
-            if (countStr == null) continue;
-
-            int visitsToAdd = Integer.parseInt(countStr);
-
-            // 3. Update Postgres (Write a custom query in Repo!)
-            // UPDATE urls SET visits = visits + :count WHERE short_code = :code
-            urlRepository.incrementVisits(shortCode, visitsToAdd);
+        if (total.links > 0 || total.failedLinks > 0) {
+            log.info("[Analytics] Synced {} visits for {} links in {} ms ({} links put back after errors)",
+                    total.visits, total.links, (System.nanoTime() - start) / 1_000_000, total.failedLinks);
+        }
+    }
 
-            // 4. Cleanup Redis
-            // We delete the count and remove from dirty set
-            redisStatsTemplate.delete("visits:" + shortCode);
-            redisStatsTemplate.opsForSet().remove("dirty_urls", shortCode);
+    private void syncChunk(List<String> codes, SyncResult total) {
+        List<String> keys = new ArrayList<>(codes.size() + 1);
+        keys.add(DIRTY_SET_KEY);
+        for (String code : codes) {
+            keys.add(VISITS_KEY_PREFIX + code);
         }
+        List<?> drained = redisStatsTemplate.execute(DRAIN_SCRIPT, keys, codes.toArray());
+        if (drained == null || drained.size() != codes.size()) {
+            throw new IllegalStateException("Unexpected drain result for " + codes.size() + " codes");
+        }
+        List<String> drainedCodes = new ArrayList<>(codes.size());
+        List<Long> counts = new ArrayList<>(codes.size());
+        long visits = 0;
+        for (int i = 0; i < codes.size(); i++) {
+            long count = Long.parseLong(String.valueOf(drained.get(i)));
+            if (count > 0) {
+                drainedCodes.add(codes.get(i));
+                counts.add(count);
+                visits += count;
+            }
+        }
+        if (drainedCodes.isEmpty()) {
+            return;
+        }
+        try {
+            urlVisitsRepository.addVisits(drainedCodes, counts);
+        } catch (Exception e) {
+            log.warn("[Analytics] Saving visits for {} links failed, putting them back: {}", drainedCodes.size(),
+                    e.getMessage());
+            restore(drainedCodes, counts);
+            failedChunks.increment();
+            total.failedLinks += drainedCodes.size();
+            return;
+        }
+        syncedLinks.increment(drainedCodes.size());
+        syncedVisits.increment(visits);
+        total.links += drainedCodes.size();
+        total.visits += visits;
+        log.debug("[Analytics] Synced chunk of {} links ({} so far)", drainedCodes.size(), total.links);
+    }
+
+    private void restore(List<String> codes, List<Long> counts) {
+        redisStatsTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (int i = 0; i < codes.size(); i++) {
+                stringConnection.incrBy(VISITS_KEY_PREFIX + codes.get(i), counts.get(i));
+            }
+            stringConnection.sAdd(DIRTY_SET_KEY, codes.toArray(new String[0]));
+            return null;
+        });
+    }
 
-        System.out.println("✅ Synced " + dirtyCodes.size() + " URL stats to DB.");
+    private static final class SyncResult {
+        long links;
+        long visits;
+        long failedLinks;
     }
 }
@@ -1,31 +1,316 @@
 package com.url_shortner.project.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.url_shortner.project.dto.LeaderboardEntry;
+import com.url_shortner.project.entity.UrlEntity;
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.clicks.ClickEvent;
+import com.url_shortner.project.service.clicks.ClickEventListener;
 import com.url_shortner.project.websocket.LeaderboardHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Random;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+/**
+ * Top-links leaderboards, kept in Redis sorted sets (score = clicks):
+ *
+ * leaderboard:links         all links
+ * leaderboard:user:{userId} the links of one user
+ *
+ * Fed incrementally from the click stream: each click batch is one pipelined
+ * round of {@link #ADMIT_SCRIPT} calls, one per sorted set. At most
+ * max-tracked links are kept per set, using Space-Saving admission: a tracked
+ * link is incremented, and an untracked one replaces the current minimum and
+ * inherits its score (min + clicks). A newcomer therefore competes with the
+ * links already on the board (including the ones seeded from urls.visits on
+ * first start) instead of being trimmed before it can climb. Scores near the
+ * bottom of the tracked set may be overestimated by at most the evicted
+ * minimum; the top of the board is accurate.
+ *
+ * Every push interval the global top-N is read back and, only if the ranking
+ * changed, the difference is pushed to /ws/leaderboard (see
+ * {@link LeaderboardHandler} for the message format).
+ */
 @Service
-public class LeaderboardService {
+@Slf4j
+public class LeaderboardService implements ClickEventListener {
+
+    static final String GLOBAL_KEY = "leaderboard:links";
+    static final String USER_KEY_PREFIX = "leaderboard:user:";
+    static final int MAX_LIMIT = 100;
+
+    // KEYS[1]: sorted set. ARGV: max tracked, then code, clicks pairs.
+    // Sent by SHA (EVALSHA) from a pipeline; see admit()
+    static final RedisScript<Long> ADMIT_SCRIPT = new DefaultRedisScript<>(
+            "local max = tonumber(ARGV[1])\n" +
+                    "local size = redis.call('ZCARD', KEYS[1])\n" +
+                    "if size > max then\n" +
+                    "  redis.call('ZREMRANGEBYRANK', KEYS[1], 0, size - max - 1)\n" +
+                    "end\n" +
+                    "for i = 2, #ARGV, 2 do\n" +
+                    "  local code = ARGV[i]\n" +
+                    "  local clicks = tonumber(ARGV[i + 1])\n" +
+                    "  if redis.call('ZSCORE', KEYS[1], code) then\n" +
+                    "    redis.call('ZINCRBY', KEYS[1], clicks, code)\n" +
+                    "  elseif redis.call('ZCARD', KEYS[1]) < max then\n" +
+                    "    redis.call('ZADD', KEYS[1], clicks, code)\n" +
+                    "  else\n" +
+                    "    local min = redis.call('ZPOPMIN', KEYS[1])\n" +
+                    "    redis.call('ZADD', KEYS[1], tonumber(min[2]) + clicks, code)\n" +
+                    "  end\n" +
+                    "end\n" +
+                    "return 0",
+            Long.class);
 
     private final LeaderboardHandler leaderboardHandler;
-    private final Random random = new Random();
+    private final StringRedisTemplate redisTemplate;
+    private final UrlRepository urlRepository;
+    private final ObjectMapper objectMapper;
+
+    // Owner of a code never changes; cached so clicks don't query the DB
+    private final Cache<String, Long> ownerIds = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    // Last ranking pushed (only touched by the scheduler thread)
+    private List<LeaderboardEntry> lastPushed = List.of();
+
+    @Value("${app.leaderboard.size:10}")
+    private int size;
+
+    @Value("${app.leaderboard.max-tracked:10000}")
+    private int maxTracked;
+
+    @Value("${app.leaderboard.user-max-tracked:1000}")
+    private int userMaxTracked;
 
-    public LeaderboardService(LeaderboardHandler leaderboardHandler) {
+    public LeaderboardService(LeaderboardHandler leaderboardHandler, StringRedisTemplate redisTemplate,
+            UrlRepository urlRepository, ObjectMapper objectMapper) {
         this.leaderboardHandler = leaderboardHandler;
+        this.redisTemplate = redisTemplate;
+        this.urlRepository = urlRepository;
+        this.objectMapper = objectMapper;
     }
 
-    // Push updates every 2 seconds
-    @Scheduled(fixedRate = 2000)
+    @Override
+    public void onClicks(List<ClickEvent> clicks) {
+        Map<String, Long> clicksByCode = new LinkedHashMap<>();
+        for (ClickEvent click : clicks) {
+            clicksByCode.merge(click.shortCode(), (long) click.weight(), Long::sum);
+        }
+        Map<String, Long> owners = findOwners(clicksByCode.keySet());
+        List<String> globalArgs = admitArgs(GLOBAL_KEY, maxTracked);
+        Map<Long, List<String>> userArgs = new LinkedHashMap<>();
+        clicksByCode.forEach((code, count) -> {
+            globalArgs.add(code);
+            globalArgs.add(Long.toString(count));
+            Long ownerId = owners.get(code);
+            if (ownerId != null) {
+                List<String> args = userArgs.computeIfAbsent(ownerId,
+                        id -> admitArgs(USER_KEY_PREFIX + id, userMaxTracked));
+                args.add(code);
+                args.add(Long.toString(count));
+            }
+        });
+        List<List<String>> calls = new ArrayList<>(userArgs.size() + 1);
+        calls.add(globalArgs);
+        calls.addAll(userArgs.values());
+        try {
+            admit(calls);
+        } catch (RuntimeException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            // Script cache was flushed (Redis restart / failover): none of the calls ran, so load and retry
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.scriptingCommands()
+                    .scriptLoad(ADMIT_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+            admit(calls);
+        }
+    }
+
+    // One pipelined round of EVALSHA calls
+    private void admit(List<List<String>> calls) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (List<String> args : calls) {
+                stringConnection.evalSha(ADMIT_SCRIPT.getSha1(), ReturnType.INTEGER, 1,
+                        args.toArray(new String[0]));
+            }
+            return null;
+        });
+    }
+
+    private static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Push updates every 2 seconds (only when the ranking changed)
+    @Scheduled(fixedRateString = "${app.leaderboard.push-interval-ms:2000}")
     public void pushLeaderboardUpdates() {
-        // Simulate a leaderboard JSON
-        String json = String.format("{\"topPlayer\": \"Player%d\", \"score\": %d, \"timestamp\": %d}",
-                random.nextInt(100),
-                random.nextInt(10000),
-                System.currentTimeMillis());
-
-        leaderboardHandler.broadcast(json);
-        // System.out.println("Broadcasted: " + json);
+        List<LeaderboardEntry> current;
+        try {
+            current = topLinks(null, size);
+        } catch (Exception e) {
+            log.warn("[Leaderboard] Could not read the leaderboard: {}", e.getMessage());
+            return;
+        }
+        if (rankingOf(current).equals(rankingOf(lastPushed))) {
+            return;
+        }
+        Map<String, Object> delta = delta(lastPushed, current);
+        lastPushed = current;
+        leaderboardHandler.updateSnapshot(toJson(Map.of("type", "snapshot", "entries", current,
+                "timestamp", System.currentTimeMillis())));
+        leaderboardHandler.broadcast(toJson(delta));
+    }
+
+    /**
+     * @param userId null for the global leaderboard
+     */
+    public List<LeaderboardEntry> topLinks(Long userId, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT);
+        }
+        String key = userId == null ? GLOBAL_KEY : USER_KEY_PREFIX + userId;
+        Set<TypedTuple<String>> tuples = redisTemplate.opsForZSet().reverseRangeWithScores(key, 0, limit - 1L);
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        if (tuples != null) {
+            int rank = 1;
+            for (TypedTuple<String> tuple : tuples) {
+                long clicks = tuple.getScore() == null ? 0 : tuple.getScore().longValue();
+                entries.add(new LeaderboardEntry(rank++, tuple.getValue(), clicks));
+            }
+        }
+        return entries;
+    }
+
+    // Start from the click counts we already have instead of an empty board
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedIfEmpty() {
+        try {
+            Long existing = redisTemplate.opsForZSet().zCard(GLOBAL_KEY);
+            if (existing != null && existing > 0) {
+                return;
+            }
+            // First page of the indexed (visits DESC, id) keyset, as in CacheWarmupService
+            List<UrlEntity> mostVisited = urlRepository.findMostVisitedAfter(Long.MAX_VALUE, 0L,
+                    PageRequest.of(0, maxTracked));
+            if (mostVisited.isEmpty()) {
+                return;
+            }
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (UrlEntity url : mostVisited) {
+                    stringConnection.zAdd(GLOBAL_KEY, url.getVisits(), url.getShortCode());
+                    stringConnection.zAdd(USER_KEY_PREFIX + url.getUser().getId(), url.getVisits(),
+                            url.getShortCode());
+                }
+                return null;
+            });
+            log.info("[Leaderboard] Seeded with the {} most visited links", mostVisited.size());
+        } catch (Exception e) {
+            log.warn("[Leaderboard] Seeding failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Entries that are new or moved, and codes that left the board.
+     */
+    static Map<String, Object> delta(List<LeaderboardEntry> previous, List<LeaderboardEntry> current) {
+        Map<String, Integer> previousRanks = new HashMap<>();
+        for (LeaderboardEntry entry : previous) {
+            previousRanks.put(entry.shortCode(), entry.rank());
+        }
+        List<LeaderboardEntry> changed = new ArrayList<>();
+        Set<String> currentCodes = new HashSet<>();
+        for (LeaderboardEntry entry : current) {
+            currentCodes.add(entry.shortCode());
+            if (!Objects.equals(previousRanks.get(entry.shortCode()), entry.rank())) {
+                changed.add(entry);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (LeaderboardEntry entry : previous) {
+            if (!currentCodes.contains(entry.shortCode())) {
+                removed.add(entry.shortCode());
+            }
+        }
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("type", "delta");
+        delta.put("changed", changed);
+        delta.put("removed", removed);
+        delta.put("timestamp", System.currentTimeMillis());
+        return delta;
+    }
+
+    private static List<String> rankingOf(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::shortCode).toList();
+    }
+
+    // KEYS and ARGV prefix of one ADMIT_SCRIPT call
+    private static List<String> admitArgs(String key, int max) {
+        List<String> args = new ArrayList<>();
+        args.add(key);
+        args.add(Integer.toString(max));
+        return args;
+    }
+
+    private Map<String, Long> findOwners(Set<String> codes) {
+        Map<String, Long> owners = new HashMap<>(ownerIds.getAllPresent(codes));
+        Set<String> missing = new HashSet<>(codes);
+        missing.removeAll(owners.keySet());
+        if (!missing.isEmpty()) {
+            try {
+                for (Object[] row : urlRepository.findOwnerIdsByShortCodeIn(missing)) {
+                    owners.put((String) row[0], (Long) row[1]);
+                    ownerIds.put((String) row[0], (Long) row[1]);
+                }
+            } catch (Exception e) {
+                // Still count them on the global board
+                log.warn("[Leaderboard] Owner lookup for {} links failed: {}", missing.size(), e.getMessage());
+            }
+        }
+        return owners;
+    }
+
+    private String toJson(Object message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize leaderboard message", e);
+        }
     }
 }
@@ -0,0 +1,63 @@
+package com.url_shortner.project.service;
+
+import com.url_shortner.project.datasource.ReadYourWritesTracker;
+import com.url_shortner.project.dto.ResolvedLink;
+import com.url_shortner.project.entity.UrlEntity;
+import com.url_shortner.project.repository.UrlRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Cached short code -> {@link ResolvedLink} lookup.
+ *
+ * This only loads and caches the link; it deliberately does not apply any
+ * access checks so that the cached record can be checked on every request
+ * (see UrlServiceImpl.getOriginalUrl).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LinkLookupService {
+
+    private final UrlRepository urlRepository;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    // readOnly: served by a replica when replica routing is enabled, except
+    // right after the link was written.
+    // sync: concurrent misses for the same code share one DB load, and hot
+    // entries are refreshed ahead of expiry (see TwoLevelCache)
+    @Transactional(readOnly = true)
+    @Cacheable(value = "links", key = "#shortCode", sync = true)
+    public ResolvedLink findLink(String shortCode) {
+        log.debug("🐢 Cache Miss! Fetching from Database for: {}", shortCode);
+        return readYourWritesTracker.readForLink(shortCode, () -> urlRepository.findByShortCode(shortCode)
+                .map(LinkLookupService::toResolvedLink)
+                .orElse(null));
+    }
+
+    public static ResolvedLink toResolvedLink(UrlEntity entity) {
+        return toResolvedLink(entity.getOriginalUrl(), entity.getExpiryDate(), entity.getPassword(),
+                entity.isActive());
+    }
+
+    public static ResolvedLink toResolvedLink(String originalUrl, LocalDateTime expiryDate, String password,
+            boolean active) {
+        long expiresAt = expiryDate == null
+                ? ResolvedLink.NO_EXPIRY
+                : expiryDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        byte[] passwordHash = password == null ? null : ResolvedLink.hashPassword(password);
+
+        // Anything that can change its answer over time must stay a temporary redirect
+        ResolvedLink.RedirectType redirectType = expiryDate == null && password == null
+                ? ResolvedLink.RedirectType.PERMANENT
+                : ResolvedLink.RedirectType.TEMPORARY;
+
+        return new ResolvedLink(originalUrl, expiresAt, passwordHash, active, redirectType);
+    }
+}
@@ -1,12 +1,12 @@
 package com.url_shortner.project.service;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 @Service
@@ -15,11 +15,14 @@ public class PubSubService {
     // Thread-safe map to hold subscribers for each event type
     private final Map<String, List<Consumer<Object>>> subscribers = new ConcurrentHashMap<>();
 
-    // Executor pool for handling events asynchronously
-    // Using CachedThreadPool to spawn threads as needed (similar to the previous
-    // behaviors if load is high)
-    // or FixedThreadPool if we wanted to limit concurrency.
-    private final ExecutorService executorService = Executors.newCachedThreadPool();
+    // Executor for handling events asynchronously: one virtual thread per
+    // listener call when virtual threads are enabled, a cached pool otherwise
+    // (see VirtualThreadConfig)
+    private final ExecutorService executorService;
+
+    public PubSubService(@Qualifier("blockingTaskExecutor") ExecutorService executorService) {
+        this.executorService = executorService;
+    }
 
     /**
      * Subscribe to an event with a callback function.
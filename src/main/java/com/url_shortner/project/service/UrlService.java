@@ -5,7 +5,12 @@ import com.url_shortner.project.dto.BatchUrlResponseDto;
 import com.url_shortner.project.dto.UrlRequestDto;
 import com.url_shortner.project.dto.UrlResponseDto;
 import com.url_shortner.project.dto.PageResponseDto;
+import com.url_shortner.project.dto.ResolvedLink;
+import com.url_shortner.project.service.clicks.ClickEvent;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.List;
 
 public interface UrlService {
@@ -13,12 +18,15 @@ public interface UrlService {
 
     List<BatchUrlResponseDto> shortenBatch(BatchUrlRequestDto request, Long userId);
 
-    String getOriginalUrl(String shortCode, String password);
+    // Reads NDJSON/CSV requests from body and streams NDJSON results to out
+    void shortenStream(Reader body, boolean csv, Writer out, Long userId) throws IOException;
+
+    ResolvedLink getOriginalUrl(String shortCode, String password);
 
     PageResponseDto<UrlResponseDto> getUrlsByUserId(Long userId, int pageNo, int pageSize);
 
-    // This method handles the FAST write (Redis)
-    void incrementVisit(String shortCode);
+    // This method handles the FAST write: queued, never blocks on Redis
+    void incrementVisit(ClickEvent click);
 
     void deleteUrl(String shortCode, Long userId);
 
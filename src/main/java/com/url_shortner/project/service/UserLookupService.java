@@ -0,0 +1,58 @@
+package com.url_shortner.project.service;
+
+import com.url_shortner.project.dto.UserContext;
+import com.url_shortner.project.entity.UserEntity;
+import com.url_shortner.project.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Cached user id -> {@link UserContext} lookup, so authenticated calls don't
+ * each load UserEntity (and join user_roles) just to check the user exists
+ * and has a role.
+ *
+ * The L2 entry has a fixed TTL (app.cache.users.time-to-live, 60s), not a
+ * time-to-idle, so even a user that is active all the time is re-read from
+ * the database once it expires; a role change is picked up within that TTL
+ * plus the L1 TTL. Anything that changes a user's roles or deletes a user
+ * should still call {@link #evict}, which drops it on every node right away.
+ *
+ * Where only the foreign key is needed, use {@link #reference} instead of
+ * loading the user.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UserLookupService {
+
+    private final UserRepository userRepository;
+
+    // Unknown users aren't cached (the exception skips the put)
+    @Transactional(readOnly = true)
+    @Cacheable(value = "users", key = "#userId", sync = true)
+    public UserContext findUser(Long userId) {
+        log.debug("User cache miss, loading user {}", userId);
+        return userRepository.findById(userId)
+                .map(user -> new UserContext(user.getId(), user.getRoles()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+    }
+
+    @CacheEvict(value = "users", key = "#userId")
+    public void evict(Long userId) {
+        log.debug("Evicted user {} from the user cache", userId);
+    }
+
+    /**
+     * Uninitialized proxy for userId: enough to set a ManyToOne or to query
+     * by user, without a SELECT.
+     */
+    public UserEntity reference(Long userId) {
+        return userRepository.getReferenceById(userId);
+    }
+}
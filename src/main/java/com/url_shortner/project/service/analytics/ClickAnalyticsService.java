@@ -0,0 +1,156 @@
+package com.url_shortner.project.service.analytics;
+
+import com.url_shortner.project.dto.ClickTimeSeriesDto;
+import com.url_shortner.project.dto.LinkBreakdownDto;
+import com.url_shortner.project.dto.LinkStatsDto;
+import com.url_shortner.project.entity.RollupGranularity;
+import com.url_shortner.project.entity.UrlEntity;
+import com.url_shortner.project.repository.ClickRollupRepository;
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.visits.VisitCounterBuffer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Click time series read from click_rollups, per-link stats (visits,
+ * unique visitors) and breakdowns by referrer / browser / network.
+ * Read-only transactions, so these are served by a replica when one is
+ * configured.
+ *
+ * Clicks still buffered in memory (up to one rollup flush interval) are not
+ * included yet.
+ */
+@Service
+@RequiredArgsConstructor
+public class ClickAnalyticsService {
+
+    // Keeps one response (and the zero filling) bounded
+    static final int MAX_POINTS = 2000;
+    static final int MAX_STATS_DAYS = 90;
+    static final int MAX_BREAKDOWN_ENTRIES = 50;
+
+    // Range used when the caller gives no "from"
+    private static final Map<RollupGranularity, Integer> DEFAULT_POINTS = Map.of(
+            RollupGranularity.MINUTE, 60,
+            RollupGranularity.HOUR, 48,
+            RollupGranularity.DAY, 30);
+
+    private final ClickRollupRepository clickRollupRepository;
+    private final UrlRepository urlRepository;
+    private final UniqueVisitorCounter uniqueVisitorCounter;
+    private final ClickDimensionAnalytics clickDimensionAnalytics;
+    private final StringRedisTemplate redisStatsTemplate;
+    private final Clock clock = Clock.systemUTC();
+
+    @Transactional(readOnly = true)
+    public LinkStatsDto linkStats(String shortCode, Long userId, int days) {
+        if (days < 1 || days > MAX_STATS_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "days must be between 1 and " + MAX_STATS_DAYS);
+        }
+        UrlEntity url = findOwnLink(shortCode, userId);
+        // Counts not yet moved to the DB by AnalyticsSyncService
+        String pending = redisStatsTemplate.opsForValue().get(VisitCounterBuffer.VISITS_KEY_PREFIX + shortCode);
+        long visits = (url.getVisits() == null ? 0 : url.getVisits())
+                + (pending == null ? 0 : Long.parseLong(pending));
+
+        List<LinkStatsDto.DailyUniqueVisitors> byDay = new ArrayList<>(days);
+        uniqueVisitorCounter.countByDay(shortCode, LocalDate.now(clock), days)
+                .forEach((day, count) -> byDay.add(new LinkStatsDto.DailyUniqueVisitors(day, count)));
+        return LinkStatsDto.builder()
+                .shortCode(shortCode)
+                .visits(visits)
+                .uniqueVisitors(uniqueVisitorCounter.countAllTime(shortCode))
+                .uniqueVisitorsByDay(byDay)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public LinkBreakdownDto linkBreakdown(String shortCode, Long userId, int limit) {
+        if (limit < 1 || limit > MAX_BREAKDOWN_ENTRIES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_BREAKDOWN_ENTRIES);
+        }
+        findOwnLink(shortCode, userId);
+        LinkBreakdownDto breakdown = clickDimensionAnalytics.breakdown(shortCode, limit);
+        if (breakdown != null) {
+            return breakdown;
+        }
+        return LinkBreakdownDto.builder()
+                .shortCode(shortCode)
+                .referrers(List.of())
+                .browsers(List.of())
+                .networks(List.of())
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public ClickTimeSeriesDto linkTimeSeries(String shortCode, Long userId, RollupGranularity granularity,
+            LocalDateTime from, LocalDateTime to) {
+        UrlEntity url = findOwnLink(shortCode, userId);
+        LocalDateTime[] range = range(granularity, from, to);
+        return toDto(url.getShortCode(), granularity, range,
+                clickRollupRepository.timeSeries(shortCode, granularity, range[0], range[1]));
+    }
+
+    @Transactional(readOnly = true)
+    public ClickTimeSeriesDto userTimeSeries(Long userId, RollupGranularity granularity, LocalDateTime from,
+            LocalDateTime to) {
+        LocalDateTime[] range = range(granularity, from, to);
+        return toDto(null, granularity, range,
+                clickRollupRepository.timeSeriesForUser(userId, granularity, range[0], range[1]));
+    }
+
+    private UrlEntity findOwnLink(String shortCode, Long userId) {
+        return urlRepository.findByShortCode(shortCode)
+                .filter(entity -> entity.getUser().getId().equals(userId))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "URL not found"));
+    }
+
+    // [from, to) aligned to bucket boundaries; "to" defaults to the end of the current bucket
+    private LocalDateTime[] range(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = to != null ? granularity.truncate(to)
+                : granularity.truncate(LocalDateTime.now(clock)).plus(1, granularity.unit());
+        LocalDateTime start = from != null ? granularity.truncate(from)
+                : end.minus(DEFAULT_POINTS.get(granularity), granularity.unit());
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        if (granularity.unit().between(start, end) > MAX_POINTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range too large: at most " + MAX_POINTS + " " + granularity.name().toLowerCase() + " buckets");
+        }
+        return new LocalDateTime[] { start, end };
+    }
+
+    private static ClickTimeSeriesDto toDto(String shortCode, RollupGranularity granularity, LocalDateTime[] range,
+            Map<LocalDateTime, Long> counts) {
+        List<ClickTimeSeriesDto.Point> points = new ArrayList<>();
+        long total = 0;
+        for (LocalDateTime bucket = range[0]; bucket.isBefore(range[1]); bucket = bucket.plus(1,
+                granularity.unit())) {
+            long clicks = counts.getOrDefault(bucket, 0L);
+            points.add(new ClickTimeSeriesDto.Point(bucket, clicks));
+            total += clicks;
+        }
+        return ClickTimeSeriesDto.builder()
+                .shortCode(shortCode)
+                .granularity(granularity.name())
+                .from(range[0])
+                .to(range[1])
+                .totalClicks(total)
+                .points(points)
+                .build();
+    }
+}
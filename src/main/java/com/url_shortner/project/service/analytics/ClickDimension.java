@@ -0,0 +1,102 @@
+package com.url_shortner.project.service.analytics;
+
+import com.url_shortner.project.service.clicks.ClickEvent;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * What a click is broken down by, and how a click maps to a value.
+ */
+public enum ClickDimension {
+
+    // Referring site (host only), "(direct)" without a Referer
+    REFERRER {
+        @Override
+        String valueOf(ClickEvent click) {
+            String referrer = click.referrer();
+            if (referrer == null || referrer.isBlank()) {
+                return DIRECT;
+            }
+            try {
+                String host = URI.create(referrer.trim()).getHost();
+                if (host == null) {
+                    return UNKNOWN;
+                }
+                host = host.toLowerCase(Locale.ROOT);
+                return host.startsWith("www.") ? host.substring(4) : host;
+            } catch (IllegalArgumentException e) {
+                return UNKNOWN;
+            }
+        }
+    },
+
+    // Browser family from the User-Agent
+    BROWSER {
+        @Override
+        String valueOf(ClickEvent click) {
+            String userAgent = click.userAgent();
+            if (userAgent == null || userAgent.isBlank()) {
+                return UNKNOWN;
+            }
+            String ua = userAgent.toLowerCase(Locale.ROOT);
+            // Order matters: most browsers also claim to be Chrome and/or Safari
+            if (ua.contains("bot") || ua.contains("crawler") || ua.contains("spider")) {
+                return "Bot";
+            } else if (ua.contains("edg/") || ua.contains("edga/") || ua.contains("edgios/")) {
+                return "Edge";
+            } else if (ua.contains("opr/") || ua.contains("opera")) {
+                return "Opera";
+            } else if (ua.contains("samsungbrowser/")) {
+                return "Samsung Internet";
+            } else if (ua.contains("firefox/") || ua.contains("fxios/")) {
+                return "Firefox";
+            } else if (ua.contains("chrome/") || ua.contains("crios/")) {
+                return "Chrome";
+            } else if (ua.contains("safari/")) {
+                return "Safari";
+            } else if (ua.startsWith("curl/") || ua.startsWith("wget/")) {
+                return "CLI";
+            }
+            return "Other";
+        }
+    },
+
+    // Client network: the IPv4 /24 or IPv6 /48 the click came from
+    NETWORK {
+        @Override
+        String valueOf(ClickEvent click) {
+            String ip = click.clientIp();
+            if (ip == null) {
+                return UNKNOWN;
+            }
+            if (IPV4.matcher(ip).matches()) {
+                return ip.substring(0, ip.lastIndexOf('.')) + ".0/24";
+            }
+            if (ip.indexOf(':') >= 0) {
+                try {
+                    // A literal with ':' is parsed, never resolved
+                    byte[] address = InetAddress.getByName(ip).getAddress();
+                    if (address.length == 16) {
+                        return String.format("%x:%x:%x::/48", ((address[0] & 0xff) << 8) | (address[1] & 0xff),
+                                ((address[2] & 0xff) << 8) | (address[3] & 0xff),
+                                ((address[4] & 0xff) << 8) | (address[5] & 0xff));
+                    }
+                } catch (UnknownHostException e) {
+                    return UNKNOWN;
+                }
+            }
+            return UNKNOWN;
+        }
+    };
+
+    static final String DIRECT = "(direct)";
+    static final String UNKNOWN = "(unknown)";
+
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}");
+
+    abstract String valueOf(ClickEvent click);
+}
@@ -0,0 +1,420 @@
+package com.url_shortner.project.service.analytics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.url_shortner.project.dto.LinkBreakdownDto;
+import com.url_shortner.project.service.clicks.ClickEvent;
+import com.url_shortner.project.service.clicks.ClickEventListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate per-link breakdowns of clicks by {@link ClickDimension}
+ * (referrer, browser, client network), kept entirely in memory: one
+ * {@link CountMinSketch} plus a top-k {@link HeavyHitters} table per link and
+ * dimension, i.e. a fixed 3 * width * depth * 4 bytes (+ k entries) per link
+ * however many distinct values it sees.
+ *
+ * At most max-links links are tracked; the least recently clicked one is
+ * dropped beyond that, so breakdowns cover the clicks since a link was
+ * (re)admitted. Everything is written to a snapshot file every
+ * snapshot-interval-ms and on shutdown, and loaded back on startup.
+ *
+ * Each node only sees the clicks it served, so with share-across-nodes every
+ * node also publishes the sketches of links clicked since its last publish
+ * to Redis, one hash per link with one field per node:
+ *
+ * dimensions:{code} -> {nodeId: sketches}, expires after shared-retention
+ *
+ * A breakdown merges its own live sketches with the other nodes' fields
+ * (count-min sketches add up cell by cell; the top-k candidates of every node
+ * are re-ranked on the merged sketch), so it covers every node's clicks up
+ * to one share-interval-ms behind. The node id is kept in the snapshot, so a
+ * restarted node overwrites its own field instead of being counted twice;
+ * the snapshot path must therefore be local to the node.
+ */
+@Component
+@Slf4j
+public class ClickDimensionAnalytics implements ClickEventListener {
+
+    static final int SNAPSHOT_MAGIC = 0x434C4B44; // "CLKD"
+    // 2: node id after the header
+    static final int SNAPSHOT_VERSION = 2;
+    static final String SHARED_KEY_PREFIX = "dimensions:";
+
+    private static final ClickDimension[] DIMENSIONS = ClickDimension.values();
+
+    private final StringRedisTemplate redisTemplate;
+    private final int width;
+    private final int depth;
+    private final int topK;
+    private final Path snapshotPath;
+    private final Cache<String, LinkDimensions> links;
+    private volatile String nodeId = UUID.randomUUID().toString();
+
+    @Value("${app.analytics.dimensions.share-across-nodes:true}")
+    private boolean shareAcrossNodes;
+
+    @Value("${app.analytics.dimensions.shared-retention:30d}")
+    private Duration sharedRetention;
+
+    @Value("${app.analytics.dimensions.share-batch-size:500}")
+    private int shareBatchSize;
+
+    public ClickDimensionAnalytics(StringRedisTemplate redisTemplate,
+            @Value("${app.analytics.dimensions.max-links:5000}") int maxLinks,
+            @Value("${app.analytics.dimensions.sketch-width:128}") int width,
+            @Value("${app.analytics.dimensions.sketch-depth:4}") int depth,
+            @Value("${app.analytics.dimensions.top-k:10}") int topK,
+            @Value("${app.analytics.dimensions.snapshot-path:data/analytics/dimensions.snapshot}") String snapshotPath) {
+        this.redisTemplate = redisTemplate;
+        this.width = width;
+        this.depth = depth;
+        this.topK = topK;
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.links = Caffeine.newBuilder().maximumSize(maxLinks).build();
+    }
+
+    @Override
+    public void onClicks(List<ClickEvent> clicks) {
+        for (ClickEvent click : clicks) {
+            links.get(click.shortCode(), code -> new LinkDimensions(width, depth, topK)).add(click);
+        }
+    }
+
+    /**
+     * @return null when no clicks are tracked for the link on any node
+     */
+    public LinkBreakdownDto breakdown(String shortCode, int limit) {
+        LinkDimensions local = links.getIfPresent(shortCode);
+        List<LinkDimensions> others = shareAcrossNodes ? readShared(shortCode) : List.of();
+        if (others.isEmpty()) {
+            return local == null ? null : local.toDto(shortCode, limit);
+        }
+        LinkDimensions merged = new LinkDimensions(width, depth, topK);
+        Map<ClickDimension, Set<String>> candidates = new EnumMap<>(ClickDimension.class);
+        if (local != null) {
+            local.mergeInto(merged, candidates);
+        }
+        for (LinkDimensions other : others) {
+            other.mergeInto(merged, candidates);
+        }
+        merged.rank(candidates);
+        return merged.toDto(shortCode, limit);
+    }
+
+    /**
+     * Publishes the sketches of every link clicked since the previous run.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.dimensions.share-interval-ms:10000}")
+    public void share() {
+        if (!shareAcrossNodes) {
+            return;
+        }
+        Map<String, String> changed = new HashMap<>();
+        for (Map.Entry<String, LinkDimensions> entry : links.asMap().entrySet()) {
+            byte[] encoded = entry.getValue().encodeIfChanged(width, depth);
+            if (encoded != null) {
+                changed.put(entry.getKey(), Base64.getEncoder().encodeToString(encoded));
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, String>> entries = new ArrayList<>(changed.entrySet());
+        long ttlSeconds = sharedRetention.toSeconds();
+        try {
+            for (int from = 0; from < entries.size(); from += shareBatchSize) {
+                List<Map.Entry<String, String>> batch = entries.subList(from,
+                        Math.min(from + shareBatchSize, entries.size()));
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                    for (Map.Entry<String, String> entry : batch) {
+                        String key = SHARED_KEY_PREFIX + entry.getKey();
+                        stringConnection.hSet(key, nodeId, entry.getValue());
+                        stringConnection.expire(key, ttlSeconds);
+                    }
+                    return null;
+                });
+            }
+        } catch (Exception e) {
+            // Mark them changed again so the next run retries
+            changed.keySet().forEach(code -> {
+                LinkDimensions dimensions = links.getIfPresent(code);
+                if (dimensions != null) {
+                    dimensions.markChanged();
+                }
+            });
+            log.warn("[Dimensions] Sharing {} link breakdowns failed: {}", changed.size(), e.getMessage());
+        }
+    }
+
+    // Other nodes' sketches of the link; on a Redis error only this node's are used
+    private List<LinkDimensions> readShared(String shortCode) {
+        Map<Object, Object> fields;
+        try {
+            fields = redisTemplate.opsForHash().entries(SHARED_KEY_PREFIX + shortCode);
+        } catch (Exception e) {
+            log.warn("[Dimensions] Could not read shared breakdown of {}: {}", shortCode, e.getMessage());
+            return List.of();
+        }
+        List<LinkDimensions> others = new ArrayList<>();
+        for (Map.Entry<Object, Object> field : fields.entrySet()) {
+            if (nodeId.equals(field.getKey())) {
+                continue;
+            }
+            byte[] encoded;
+            try {
+                encoded = Base64.getDecoder().decode((String) field.getValue());
+            } catch (IllegalArgumentException e) {
+                log.warn("[Dimensions] Skipping unreadable shared breakdown of {} from {}", shortCode, field.getKey());
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+                if (in.readInt() != width || in.readInt() != depth || in.readInt() != DIMENSIONS.length) {
+                    continue; // Node with another sketch size
+                }
+                LinkDimensions dimensions = new LinkDimensions(width, depth, topK);
+                dimensions.readFrom(in);
+                others.add(dimensions);
+            } catch (IOException e) {
+                log.warn("[Dimensions] Skipping unreadable shared breakdown of {} from {}", shortCode, field.getKey());
+            }
+        }
+        return others;
+    }
+
+    @PostConstruct
+    public void loadSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION || in.readInt() != width
+                    || in.readInt() != depth || in.readInt() != DIMENSIONS.length) {
+                log.info("[Dimensions] Snapshot {} has another format or sketch size, starting empty", snapshotPath);
+                return;
+            }
+            nodeId = in.readUTF();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String code = in.readUTF();
+                LinkDimensions dimensions = new LinkDimensions(width, depth, topK);
+                dimensions.readFrom(in);
+                // Republish in case the shared copy is older or gone
+                dimensions.markChanged();
+                links.put(code, dimensions);
+            }
+            log.info("[Dimensions] Loaded breakdowns for {} links", count);
+        } catch (IOException e) {
+            log.warn("[Dimensions] Could not load snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.dimensions.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            if (snapshotPath.getParent() != null) {
+                Files.createDirectories(snapshotPath.getParent());
+            }
+            Map<String, LinkDimensions> current = Map.copyOf(links.asMap());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(width);
+                out.writeInt(depth);
+                out.writeInt(DIMENSIONS.length);
+                out.writeUTF(nodeId);
+                out.writeInt(current.size());
+                for (Map.Entry<String, LinkDimensions> entry : current.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().writeTo(out);
+                }
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("[Dimensions] Snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    // Runs after the click queue has drained (it depends on this bean)
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        share();
+        snapshot();
+    }
+
+    /**
+     * Sketches of one link. Written by the click writer, read by requests
+     * and the snapshot.
+     */
+    static final class LinkDimensions {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<ClickDimension, CountMinSketch> sketches = new EnumMap<>(ClickDimension.class);
+        private final Map<ClickDimension, HeavyHitters> heavyHitters = new EnumMap<>(ClickDimension.class);
+        private long clicks;
+        // Clicked since it was last shared (guarded by lock)
+        private boolean changed;
+
+        LinkDimensions(int width, int depth, int topK) {
+            for (ClickDimension dimension : DIMENSIONS) {
+                sketches.put(dimension, new CountMinSketch(width, depth));
+                heavyHitters.put(dimension, new HeavyHitters(topK));
+            }
+        }
+
+        void add(ClickEvent click) {
+            lock.lock();
+            try {
+                clicks += click.weight();
+                changed = true;
+                for (ClickDimension dimension : DIMENSIONS) {
+                    String value = dimension.valueOf(click);
+                    long estimate = sketches.get(dimension).add(value, click.weight());
+                    heavyHitters.get(dimension).offer(value, estimate);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        LinkBreakdownDto toDto(String shortCode, int limit) {
+            lock.lock();
+            try {
+                return LinkBreakdownDto.builder()
+                        .shortCode(shortCode)
+                        .clicks(clicks)
+                        .referrers(shares(ClickDimension.REFERRER, limit))
+                        .browsers(shares(ClickDimension.BROWSER, limit))
+                        .networks(shares(ClickDimension.NETWORK, limit))
+                        .build();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            lock.lock();
+            try {
+                out.writeLong(clicks);
+                for (ClickDimension dimension : DIMENSIONS) {
+                    sketches.get(dimension).writeTo(out);
+                    heavyHitters.get(dimension).writeTo(out);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the encoded sketches (width, depth, dimension count, then
+         *         {@link #writeTo}), or null if nothing changed since the
+         *         last call
+         */
+        byte[] encodeIfChanged(int width, int depth) {
+            lock.lock();
+            try {
+                if (!changed) {
+                    return null;
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (DataOutputStream out = new DataOutputStream(bytes)) {
+                    out.writeInt(width);
+                    out.writeInt(depth);
+                    out.writeInt(DIMENSIONS.length);
+                    writeTo(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // In-memory stream
+                }
+                changed = false;
+                return bytes.toByteArray();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void markChanged() {
+            lock.lock();
+            try {
+                changed = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Adds the counts to target and collects this node's top-k keys as candidates
+        void mergeInto(LinkDimensions target, Map<ClickDimension, Set<String>> candidates) {
+            lock.lock();
+            try {
+                target.clicks += clicks;
+                for (ClickDimension dimension : DIMENSIONS) {
+                    target.sketches.get(dimension).merge(sketches.get(dimension));
+                    Set<String> keys = candidates.computeIfAbsent(dimension, d -> new HashSet<>());
+                    for (HeavyHitters.Entry entry : heavyHitters.get(dimension).top(Integer.MAX_VALUE)) {
+                        keys.add(entry.key());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Top-k of a merged instance: every node's candidates, re-estimated on the merged sketch
+        void rank(Map<ClickDimension, Set<String>> candidates) {
+            candidates.forEach((dimension, keys) -> {
+                for (String key : keys) {
+                    heavyHitters.get(dimension).offer(key, sketches.get(dimension).estimate(key));
+                }
+            });
+        }
+
+        void readFrom(DataInputStream in) throws IOException {
+            clicks = in.readLong();
+            for (ClickDimension dimension : DIMENSIONS) {
+                sketches.get(dimension).readFrom(in);
+                heavyHitters.get(dimension).readFrom(in);
+            }
+        }
+
+        private List<LinkBreakdownDto.Share> shares(ClickDimension dimension, int limit) {
+            List<LinkBreakdownDto.Share> shares = new ArrayList<>();
+            for (HeavyHitters.Entry entry : heavyHitters.get(dimension).top(limit)) {
+                shares.add(new LinkBreakdownDto.Share(entry.key(), entry.count()));
+            }
+            return shares;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.url_shortner.project.service.analytics;
+
+import com.url_shortner.project.entity.RollupGranularity;
+import com.url_shortner.project.repository.ClickRollupRepository;
+import com.url_shortner.project.repository.ClickRollupRepository.Row;
+import com.url_shortner.project.service.clicks.ClickEvent;
+import com.url_shortner.project.service.clicks.ClickEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-link click counts in time buckets (click_rollups).
+ *
+ * Clicks are summed in memory per (link, UTC minute) and upserted as MINUTE
+ * rows every flush-interval-ms, so a busy link costs one row write per minute
+ * per node rather than one per click. The compaction job then folds MINUTE
+ * rows older than minute-retention into HOUR rows, and HOUR rows older than
+ * hour-retention into DAY rows. Late clicks (e.g. replayed from the click
+ * spill file) are written straight at the granularity their age calls for.
+ *
+ * A failed flush keeps its counts for the next one; a crash loses at most
+ * one flush interval of rollups (the raw visit counters are unaffected).
+ * While the database stays down, at most max-pending-buckets buckets are
+ * kept; clicks for further buckets are dropped and counted in
+ * analytics.rollups.dropped.
+ */
+@Component
+@Slf4j
+public class ClickRollupAggregator implements ClickEventListener {
+
+    private record BucketKey(String shortCode, LocalDateTime bucketStart) {
+    }
+
+    private record RollupKey(String shortCode, RollupGranularity granularity, LocalDateTime bucketStart) {
+    }
+
+    private final ClickRollupRepository clickRollupRepository;
+    private final Clock clock;
+    private final Counter droppedClicks;
+
+    // onClicks runs on the click writer, flush on the scheduler: swapped under the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<BucketKey, Long> pending = new HashMap<>();
+
+    @Value("${app.analytics.rollups.minute-retention:48h}")
+    private Duration minuteRetention;
+
+    @Value("${app.analytics.rollups.hour-retention:60d}")
+    private Duration hourRetention;
+
+    @Value("${app.analytics.rollups.max-pending-buckets:100000}")
+    private int maxPendingBuckets;
+
+    @Autowired
+    public ClickRollupAggregator(ClickRollupRepository clickRollupRepository, MeterRegistry meterRegistry) {
+        this(clickRollupRepository, meterRegistry, Clock.systemUTC());
+    }
+
+    ClickRollupAggregator(ClickRollupRepository clickRollupRepository, MeterRegistry meterRegistry, Clock clock) {
+        this.clickRollupRepository = clickRollupRepository;
+        this.clock = clock;
+        this.droppedClicks = Counter.builder("analytics.rollups.dropped")
+                .description("Clicks left out of the rollups because too many buckets were waiting to be written")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onClicks(List<ClickEvent> clicks) {
+        lock.lock();
+        try {
+            for (ClickEvent click : clicks) {
+                LocalDateTime minute = RollupGranularity.MINUTE.truncate(toUtc(click.timestamp()));
+                addPending(new BucketKey(click.shortCode(), minute), click.weight());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of rollup rows written
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.rollups.flush-interval-ms:10000}")
+    public int flush() {
+        Map<BucketKey, Long> batch;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+
+        LocalDateTime now = LocalDateTime.now(clock);
+        Map<RollupKey, Long> merged = new HashMap<>();
+        for (Map.Entry<BucketKey, Long> entry : batch.entrySet()) {
+            RollupGranularity granularity = granularityFor(entry.getKey().bucketStart(), now);
+            merged.merge(new RollupKey(entry.getKey().shortCode(), granularity,
+                    granularity.truncate(entry.getKey().bucketStart())), entry.getValue(), Long::sum);
+        }
+        List<Row> rows = new ArrayList<>(merged.size());
+        merged.forEach((key, clicks) -> rows.add(new Row(key.shortCode(), key.granularity(), key.bucketStart(),
+                clicks)));
+        try {
+            clickRollupRepository.upsert(rows);
+            return rows.size();
+        } catch (Exception e) {
+            log.warn("[Rollups] Writing {} rollup rows failed, keeping them for the next flush: {}", rows.size(),
+                    e.getMessage());
+            restore(batch);
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.rollups.compaction-interval-ms:300000}")
+    public void compact() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        try {
+            int hours = clickRollupRepository.compact(RollupGranularity.MINUTE, RollupGranularity.HOUR,
+                    RollupGranularity.HOUR.truncate(now.minus(minuteRetention)));
+            int days = clickRollupRepository.compact(RollupGranularity.HOUR, RollupGranularity.DAY,
+                    RollupGranularity.DAY.truncate(now.minus(hourRetention)));
+            if (hours > 0 || days > 0) {
+                log.info("[Rollups] Compacted into {} hour and {} day rows", hours, days);
+            }
+        } catch (Exception e) {
+            log.warn("[Rollups] Compaction failed: {}", e.getMessage());
+        }
+    }
+
+    // Same cut-offs as compact(), so late clicks don't land in already compacted ranges
+    private RollupGranularity granularityFor(LocalDateTime minute, LocalDateTime now) {
+        if (minute.isBefore(RollupGranularity.DAY.truncate(now.minus(hourRetention)))) {
+            return RollupGranularity.DAY;
+        }
+        if (minute.isBefore(RollupGranularity.HOUR.truncate(now.minus(minuteRetention)))) {
+            return RollupGranularity.HOUR;
+        }
+        return RollupGranularity.MINUTE;
+    }
+
+    private void restore(Map<BucketKey, Long> batch) {
+        lock.lock();
+        try {
+            batch.forEach(this::addPending);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Caller holds the lock
+    private void addPending(BucketKey key, long clicks) {
+        if (pending.size() >= maxPendingBuckets && !pending.containsKey(key)) {
+            droppedClicks.increment(clicks);
+            return;
+        }
+        pending.merge(key, clicks, Long::sum);
+    }
+
+    static LocalDateTime toUtc(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,101 @@
+package com.url_shortner.project.service.analytics;
+
+import com.url_shortner.project.service.bloom.ScalableBloomFilter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Count-min sketch: frequency estimates for an unbounded set of keys in
+ * depth x width int counters. Estimates never undercount; with conservative
+ * update the overcount is typically far below the e/width * total bound.
+ *
+ * Rows are indexed with double hashing (h1 + i * h2) of the same 128-bit
+ * MurmurHash3 the Bloom filters use. Not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final int[] counters;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new int[width * depth];
+    }
+
+    /**
+     * @return the key's estimate after adding {@code count}
+     */
+    public long add(String key, long count) {
+        int[] cells = cells(key);
+        long estimate = Long.MAX_VALUE;
+        for (int cell : cells) {
+            estimate = Math.min(estimate, counters[cell]);
+        }
+        // Conservative update: raise only the counters that are below the new estimate
+        long updated = Math.min(Integer.MAX_VALUE, estimate + count);
+        for (int cell : cells) {
+            if (counters[cell] < updated) {
+                counters[cell] = (int) updated;
+            }
+        }
+        return updated;
+    }
+
+    public long estimate(String key) {
+        long estimate = Long.MAX_VALUE;
+        for (int cell : cells(key)) {
+            estimate = Math.min(estimate, counters[cell]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds another sketch of the same size cell by cell; the result estimates
+     * the combined stream (still never undercounting).
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Can only merge sketches of the same width and depth");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = (int) Math.min(Integer.MAX_VALUE, (long) counters[i] + other.counters[i]);
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        for (int counter : counters) {
+            out.writeInt(counter);
+        }
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = in.readInt();
+        }
+    }
+
+    private int[] cells(String key) {
+        long[] hash = ScalableBloomFilter.hash(key);
+        int[] cells = new int[depth];
+        for (int row = 0; row < depth; row++) {
+            long combined = hash[0] + row * hash[1];
+            cells[row] = row * width + (int) Long.remainderUnsigned(combined, width);
+        }
+        return cells;
+    }
+}
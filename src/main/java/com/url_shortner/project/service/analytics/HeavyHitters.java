@@ -0,0 +1,80 @@
+package com.url_shortner.project.service.analytics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The k keys with the highest count-min estimates seen so far. The caller
+ * offers every key with its updated estimate; a key not tracked yet replaces
+ * the smallest entry once it overtakes it. With k ~ 10 a linear scan beats a
+ * heap with decrease-key. Not thread-safe.
+ */
+final class HeavyHitters {
+
+    record Entry(String key, long count) {
+    }
+
+    private final String[] keys;
+    private final long[] counts;
+    private int size;
+
+    HeavyHitters(int k) {
+        this.keys = new String[k];
+        this.counts = new long[k];
+    }
+
+    void offer(String key, long estimate) {
+        int min = -1;
+        for (int i = 0; i < size; i++) {
+            if (keys[i].equals(key)) {
+                counts[i] = Math.max(counts[i], estimate);
+                return;
+            }
+            if (min < 0 || counts[i] < counts[min]) {
+                min = i;
+            }
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size++] = estimate;
+        } else if (min >= 0 && estimate > counts[min]) {
+            keys[min] = key;
+            counts[min] = estimate;
+        }
+    }
+
+    // Highest first
+    List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i]));
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeUTF(keys[i]);
+            out.writeLong(counts[i]);
+        }
+    }
+
+    void readFrom(DataInput in) throws IOException {
+        int stored = in.readInt();
+        size = 0;
+        for (int i = 0; i < stored; i++) {
+            String key = in.readUTF();
+            long count = in.readLong();
+            if (size < keys.length) {
+                keys[size] = key;
+                counts[size++] = count;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.url_shortner.project.service.analytics;
+
+import com.url_shortner.project.service.clicks.ClickEvent;
+import com.url_shortner.project.service.clicks.ClickEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Approximate unique visitors per link, all-time and per UTC day, as Redis
+ * HyperLogLogs (at most ~12 KB per key, ~0.81% standard error):
+ *
+ * uv:{code}            all-time
+ * uv:{code}:{yyyyMMdd} one day, expires after day-retention
+ *
+ * A visitor is the SHA-256 of client IP + User-Agent (the raw IP is never
+ * stored). Each batch from the click writer is one pipelined round of
+ * PFADDs, one per key. Sampled clicks (weight > 1) add their one visitor:
+ * unique counts can't be scaled up, so they undercount while the click
+ * queue is sampling.
+ */
+@Component
+public class UniqueVisitorCounter implements ClickEventListener {
+
+    static final String KEY_PREFIX = "uv:";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.analytics.unique-visitors.day-retention:90d}")
+    private Duration dayRetention;
+
+    public UniqueVisitorCounter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void onClicks(List<ClickEvent> clicks) {
+        Map<String, Set<String>> visitorsByKey = new HashMap<>();
+        Set<String> dayKeys = new HashSet<>();
+        for (ClickEvent click : clicks) {
+            if (click.clientIp() == null) {
+                continue;
+            }
+            String visitor = visitorId(click.clientIp(), click.userAgent());
+            String dayKey = dayKey(click.shortCode(), day(click.timestamp()));
+            visitorsByKey.computeIfAbsent(allTimeKey(click.shortCode()), key -> new HashSet<>()).add(visitor);
+            visitorsByKey.computeIfAbsent(dayKey, key -> new HashSet<>()).add(visitor);
+            dayKeys.add(dayKey);
+        }
+        if (visitorsByKey.isEmpty()) {
+            return;
+        }
+        long ttlSeconds = dayRetention.toSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            visitorsByKey.forEach((key, visitors) -> stringConnection.pfAdd(key, visitors.toArray(new String[0])));
+            for (String dayKey : dayKeys) {
+                stringConnection.expire(dayKey, ttlSeconds);
+            }
+            return null;
+        });
+    }
+
+    public long countAllTime(String shortCode) {
+        Long count = redisTemplate.opsForHyperLogLog().size(allTimeKey(shortCode));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @return unique visitors per day, oldest first, for the {@code days}
+     *         days ending with {@code lastDay}
+     */
+    public Map<LocalDate, Long> countByDay(String shortCode, LocalDate lastDay, int days) {
+        List<LocalDate> dates = new ArrayList<>(days);
+        for (int i = days - 1; i >= 0; i--) {
+            dates.add(lastDay.minusDays(i));
+        }
+        List<Object> counts = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (LocalDate date : dates) {
+                stringConnection.pfCount(dayKey(shortCode, date));
+            }
+            return null;
+        });
+        Map<LocalDate, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < dates.size(); i++) {
+            Object count = counts == null || i >= counts.size() ? null : counts.get(i);
+            result.put(dates.get(i), count instanceof Number number ? number.longValue() : 0L);
+        }
+        return result;
+    }
+
+    static String allTimeKey(String shortCode) {
+        return KEY_PREFIX + shortCode;
+    }
+
+    static String dayKey(String shortCode, LocalDate day) {
+        return KEY_PREFIX + shortCode + ":" + DAY_FORMAT.format(day);
+    }
+
+    static LocalDate day(long epochMilli) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
+
+    // First 16 bytes of SHA-256(ip \n user agent), hex
+    static String visitorId(String clientIp, String userAgent) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((clientIp + "\n" + (userAgent == null ? "" : userAgent)).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
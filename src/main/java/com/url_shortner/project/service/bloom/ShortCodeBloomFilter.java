@@ -0,0 +1,203 @@
+package com.url_shortner.project.service.bloom;
+
+import com.url_shortner.project.repository.UrlRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter of every short code we have ever issued.
+ *
+ * A negative answer means the code definitely doesn't exist, so /redirect can
+ * 404 without touching the cache or Postgres (and without filling Redis with
+ * cached nulls for scanner traffic).
+ *
+ * Keeping it in sync across nodes:
+ * - new codes are added locally and broadcast on {@link #CHANNEL};
+ * - a periodic catch-up reads codes with an id above the last one seen, so a
+ *   lost pub/sub message only costs a short window of false 404s.
+ *
+ * IDENTITY ids are handed out before commit, so a row with a lower id can
+ * become visible after a higher one was already loaded (concurrent
+ * transactions, JDBC batch inserts). Each catch-up therefore re-scans the last
+ * catch-up-overlap ids below the high-water mark instead of starting right
+ * after it; codes already in the filter are skipped.
+ *
+ * Until the initial load from UrlRepository has finished, every code is
+ * reported as "might exist".
+ */
+@Service
+@Slf4j
+public class ShortCodeBloomFilter implements MessageListener {
+
+    public static final String CHANNEL = "shortcode:created";
+
+    private static final int LOAD_PAGE_SIZE = 10_000;
+
+    private final UrlRepository urlRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ScalableBloomFilter filter;
+
+    @Value("${app.bloom-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.bloom-filter.redis-sync:true}")
+    private boolean redisSync;
+
+    @Value("${app.bloom-filter.catch-up-overlap:10000}")
+    private long catchUpOverlap;
+
+    private volatile boolean ready = false;
+    private final AtomicLong lastLoadedId = new AtomicLong(0);
+
+    public ShortCodeBloomFilter(UrlRepository urlRepository, StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer,
+            @Value("${app.bloom-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${app.bloom-filter.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.urlRepository = urlRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.filter = new ScalableBloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (enabled && redisSync) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+        }
+    }
+
+    // Loading tens of millions of codes takes a while; don't block startup on it
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofPlatform().name("bloom-filter-loader").daemon().start(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                long loaded = loadCodesAfter(0);
+                ready = true;
+                log.info("Short code Bloom filter ready: {} codes, {} slices, {} KB in {} ms", loaded,
+                        filter.sliceCount(), filter.bitSize() / 8 / 1024, System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                log.error("Failed to build short code Bloom filter; redirects will bypass it", e);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.bloom-filter.catch-up-interval-ms:60000}")
+    public void catchUp() {
+        if (!ready) {
+            return;
+        }
+        try {
+            long loaded = loadCodesAfter(Math.max(0, lastLoadedId.get() - catchUpOverlap));
+            if (loaded > 0) {
+                log.debug("Bloom filter catch-up added {} codes", loaded);
+            }
+        } catch (Exception e) {
+            log.warn("Bloom filter catch-up failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return false only if the code was definitely never issued.
+     */
+    public boolean mightExist(String shortCode) {
+        if (!enabled || !ready) {
+            return true;
+        }
+        return filter.mightContain(shortCode);
+    }
+
+    /**
+     * @return true once {@link #mightExist} answers are meaningful (loaded and
+     *         enabled); before that it says "might exist" for everything.
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Records a newly issued code locally and tells the other nodes about it.
+     */
+    public void add(String shortCode) {
+        if (!enabled) {
+            return;
+        }
+        filter.add(shortCode);
+        if (redisSync) {
+            try {
+                redisTemplate.convertAndSend(CHANNEL, shortCode);
+            } catch (Exception e) {
+                // The periodic catch-up will pick it up on the other nodes
+                log.warn("Failed to broadcast new short code {}: {}", shortCode, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Bulk version of {@link #add}: one broadcast (newline-separated codes)
+     * instead of one per code.
+     */
+    public void addAll(Collection<String> shortCodes) {
+        if (!enabled || shortCodes.isEmpty()) {
+            return;
+        }
+        shortCodes.forEach(filter::add);
+        if (redisSync) {
+            try {
+                redisTemplate.convertAndSend(CHANNEL, String.join("\n", shortCodes));
+            } catch (Exception e) {
+                log.warn("Failed to broadcast {} new short codes: {}", shortCodes.size(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        for (String shortCode : new String(message.getBody(), StandardCharsets.UTF_8).split("\n")) {
+            filter.add(shortCode);
+        }
+    }
+
+    /**
+     * @return how many codes were new to the filter
+     */
+    private long loadCodesAfter(long fromId) {
+        long loaded = 0;
+        long afterId = fromId;
+        List<Object[]> rows;
+        do {
+            rows = urlRepository.findShortCodesAfter(afterId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            for (Object[] row : rows) {
+                String shortCode = (String) row[1];
+                // Re-scanned rows are mostly known already; don't count them towards slice capacity again
+                if (!filter.mightContain(shortCode)) {
+                    filter.add(shortCode);
+                    loaded++;
+                }
+                afterId = (Long) row[0];
+            }
+        } while (rows.size() == LOAD_PAGE_SIZE);
+        lastLoadedId.accumulateAndGet(afterId, Math::max);
+        return loaded;
+    }
+}
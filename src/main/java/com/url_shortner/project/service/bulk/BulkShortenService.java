@@ -0,0 +1,297 @@
+package com.url_shortner.project.service.bulk;
+
+import com.url_shortner.project.datasource.DataSourceRouting;
+import com.url_shortner.project.datasource.ReadYourWritesTracker;
+import com.url_shortner.project.dto.BatchUrlResponseDto;
+import com.url_shortner.project.dto.UrlRequestDto;
+import com.url_shortner.project.entity.UrlEntity;
+import com.url_shortner.project.entity.UserEntity;
+import com.url_shortner.project.repository.UrlBulkInsertRepository;
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.LinkLookupService;
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import com.url_shortner.project.service.dedupe.DestinationHash;
+import com.url_shortner.project.service.shortcode.CustomCodeReservationService;
+import com.url_shortner.project.service.shortcode.ShortCodeService;
+import com.url_shortner.project.service.snapshot.LinkSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk link creation: one user lookup (by the caller), codes allocated up
+ * front per chunk, and one JDBC batch insert per chunk.
+ *
+ * A chunk is inserted in a single transaction. If that fails (e.g. a code
+ * taken concurrently), its rows are retried one by one so that only the
+ * offending items are reported as failures.
+ *
+ * Plain URLs the user has already shortened (same DestinationHash) get the
+ * existing link back, as on POST /shorten.
+ */
+@Service
+@Slf4j
+public class BulkShortenService {
+
+    // Same rules as the @NotBlank/@Pattern on UrlRequestDto.url
+    private static final Pattern URL_PATTERN = Pattern.compile("^(http|https)://.*$");
+
+    private final UrlRepository urlRepository;
+    private final UrlBulkInsertRepository urlBulkInsertRepository;
+    private final ShortCodeService shortCodeService;
+    private final CustomCodeReservationService customCodeReservationService;
+    private final ShortCodeBloomFilter shortCodeBloomFilter;
+    private final LinkSnapshotService linkSnapshotService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.base-url:http://localhost:8080/}")
+    private String baseUrl;
+
+    @Value("${app.batch.insert-chunk-size:1000}")
+    private int chunkSize;
+
+    public BulkShortenService(UrlRepository urlRepository, UrlBulkInsertRepository urlBulkInsertRepository,
+            ShortCodeService shortCodeService, CustomCodeReservationService customCodeReservationService,
+            ShortCodeBloomFilter shortCodeBloomFilter,
+            LinkSnapshotService linkSnapshotService, ReadYourWritesTracker readYourWritesTracker,
+            PlatformTransactionManager transactionManager) {
+        this.urlRepository = urlRepository;
+        this.urlBulkInsertRepository = urlBulkInsertRepository;
+        this.shortCodeService = shortCodeService;
+        this.customCodeReservationService = customCodeReservationService;
+        this.shortCodeBloomFilter = shortCodeBloomFilter;
+        this.linkSnapshotService = linkSnapshotService;
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return one result per request, in request order
+     */
+    public List<BatchUrlResponseDto> shorten(UserEntity user, List<UrlRequestDto> requests) {
+        List<BatchUrlResponseDto> results = new ArrayList<>(requests.size());
+        for (int from = 0; from < requests.size(); from += chunkSize) {
+            results.addAll(shortenChunk(user, requests.subList(from, Math.min(from + chunkSize, requests.size()))));
+        }
+        return results;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Shortens up to one chunk of requests.
+     *
+     * @return one result per request, in request order
+     */
+    public List<BatchUrlResponseDto> shortenChunk(UserEntity user, List<UrlRequestDto> chunk) {
+        BatchUrlResponseDto[] results = new BatchUrlResponseDto[chunk.size()];
+
+        // 1. Validate, and check custom codes with one IN query
+        Set<String> customCodes = new HashSet<>();
+        for (UrlRequestDto request : chunk) {
+            if (hasCustomCode(request)) {
+                customCodes.add(request.getCustomCode());
+            }
+        }
+        Set<String> takenCodes = customCodes.isEmpty() ? new HashSet<>()
+                : new HashSet<>(urlRepository.findExistingShortCodes(customCodes));
+        Set<String> reservedCodes = customCodeReservationService.reservedByOthers(customCodes, user.getId());
+
+        String[] urlHashes = new String[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            UrlRequestDto request = chunk.get(i);
+            String error = validate(request);
+            if (error == null && hasCustomCode(request) && reservedCodes.contains(request.getCustomCode())) {
+                error = "Custom code is reserved by another user";
+            } else if (error == null && hasCustomCode(request) && !takenCodes.add(request.getCustomCode())) {
+                error = "Custom code already exists";
+            }
+            if (error != null) {
+                results[i] = failure(request, error);
+            } else {
+                urlHashes[i] = DestinationHash.ofPlainRequest(request);
+            }
+        }
+
+        // 2. Plain URLs already shortened by this user (one IN query), or repeated within the chunk
+        Map<String, UrlEntity> existingByHash = findExisting(user, urlHashes);
+        Map<String, Integer> firstIndexByHash = new HashMap<>();
+        int[] duplicateOf = new int[chunk.size()];
+        Arrays.fill(duplicateOf, -1);
+        int generatedCount = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            String urlHash = urlHashes[i];
+            if (urlHash != null && existingByHash.containsKey(urlHash)) {
+                results[i] = success(chunk.get(i), existingByHash.get(urlHash));
+            } else if (urlHash != null && firstIndexByHash.putIfAbsent(urlHash, i) != null) {
+                duplicateOf[i] = firstIndexByHash.get(urlHash);
+            } else if (!hasCustomCode(chunk.get(i))) {
+                generatedCount++;
+            }
+        }
+
+        // 3. Allocate all generated codes up front
+        Iterator<String> generatedCodes = generatedCount == 0 ? null
+                : shortCodeService.nextCodes(generatedCount).iterator();
+
+        List<Integer> indexes = new ArrayList<>();
+        List<UrlEntity> entities = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results[i] != null || duplicateOf[i] >= 0) {
+                continue;
+            }
+            UrlRequestDto request = chunk.get(i);
+            indexes.add(i);
+            entities.add(UrlEntity.builder()
+                    .originalUrl(request.getUrl())
+                    .shortCode(hasCustomCode(request) ? request.getCustomCode() : generatedCodes.next())
+                    .visits(0L)
+                    .user(user)
+                    .isActive(true)
+                    .customCode(hasCustomCode(request) ? request.getCustomCode() : null)
+                    .expiryDate(request.getExpiryDate())
+                    .password(request.getPassword())
+                    .urlHash(urlHashes[i])
+                    .build());
+        }
+
+        // 4. Insert
+        String[] insertErrors = insert(entities);
+
+        List<String> insertedCodes = new ArrayList<>();
+        for (int j = 0; j < entities.size(); j++) {
+            UrlEntity entity = entities.get(j);
+            int i = indexes.get(j);
+            if (insertErrors[j] == null) {
+                insertedCodes.add(entity.getShortCode());
+                linkSnapshotService.record(entity.getShortCode(), LinkLookupService.toResolvedLink(entity));
+                results[i] = success(chunk.get(i), entity);
+            } else {
+                results[i] = failure(chunk.get(i), insertErrors[j]);
+            }
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            if (duplicateOf[i] >= 0) {
+                BatchUrlResponseDto first = results[duplicateOf[i]];
+                results[i] = BatchUrlResponseDto.builder()
+                        .originalUrl(chunk.get(i).getUrl())
+                        .shortUrl(first.getShortUrl())
+                        .error(first.getError())
+                        .status(first.getStatus())
+                        .build();
+            }
+        }
+        shortCodeBloomFilter.addAll(insertedCodes);
+        if (!insertedCodes.isEmpty()) {
+            readYourWritesTracker.recordWrite(user.getId(), null);
+        }
+        return Arrays.asList(results);
+    }
+
+    private Map<String, UrlEntity> findExisting(UserEntity user, String[] urlHashes) {
+        Set<String> hashes = new HashSet<>();
+        for (String urlHash : urlHashes) {
+            if (urlHash != null) {
+                hashes.add(urlHash);
+            }
+        }
+        Map<String, UrlEntity> existing = new HashMap<>();
+        if (!hashes.isEmpty()) {
+            for (UrlEntity entity : urlRepository.findByUserAndUrlHashIn(user, hashes)) {
+                existing.put(entity.getUrlHash(), entity);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * @return per entity: null if inserted (or, for a plain URL created
+     *         concurrently, replaced by the existing row), otherwise the
+     *         error to report
+     */
+    private String[] insert(List<UrlEntity> entities) {
+        String[] errors = new String[entities.size()];
+        if (entities.isEmpty()) {
+            return errors;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> urlBulkInsertRepository.insertAll(entities));
+            return errors;
+        } catch (DataAccessException e) {
+            log.warn("Batch insert of {} urls failed ({}), retrying one by one", entities.size(), e.getMessage());
+        }
+        for (int j = 0; j < entities.size(); j++) {
+            UrlEntity entity = entities.get(j);
+            try {
+                urlBulkInsertRepository.insertAll(List.of(entity));
+            } catch (DuplicateKeyException e) {
+                UrlEntity existing = entity.getUrlHash() == null ? null
+                        : DataSourceRouting.onPrimary(() -> urlRepository
+                                .findByUserAndUrlHash(entity.getUser(), entity.getUrlHash())).orElse(null);
+                if (existing != null) {
+                    entities.set(j, existing);
+                } else {
+                    errors[j] = entity.getCustomCode() != null ? "Custom code already exists"
+                            : "Generated code already exists, please retry";
+                }
+            } catch (DataAccessException e) {
+                log.warn("Insert of {} failed: {}", entity.getOriginalUrl(), e.getMessage());
+                errors[j] = "Unexpected error while saving URL";
+            }
+        }
+        return errors;
+    }
+
+    private static String validate(UrlRequestDto request) {
+        if (request == null || request.getUrl() == null || request.getUrl().trim().isEmpty()) {
+            return "URL cannot be empty";
+        }
+        if (!URL_PATTERN.matcher(request.getUrl()).matches()) {
+            return "URL must start with http:// or https://";
+        }
+        if (hasCustomCode(request) && !CustomCodeReservationService.isValid(request.getCustomCode())) {
+            return "Custom code must be at most " + CustomCodeReservationService.MAX_CODE_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    private static boolean hasCustomCode(UrlRequestDto request) {
+        return request.getCustomCode() != null && !request.getCustomCode().trim().isEmpty();
+    }
+
+    private BatchUrlResponseDto success(UrlRequestDto request, UrlEntity entity) {
+        return BatchUrlResponseDto.builder()
+                .originalUrl(request.getUrl())
+                .shortUrl(baseUrl + entity.getShortCode())
+                .status("SUCCESS")
+                .build();
+    }
+
+    private static BatchUrlResponseDto failure(UrlRequestDto request, String error) {
+        return BatchUrlResponseDto.builder()
+                .originalUrl(request == null ? null : request.getUrl())
+                .error(error)
+                .status("FAILURE")
+                .build();
+    }
+}
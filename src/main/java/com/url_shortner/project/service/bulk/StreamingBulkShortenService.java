@@ -0,0 +1,291 @@
+package com.url_shortner.project.service.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.url_shortner.project.dto.BatchUrlResponseDto;
+import com.url_shortner.project.dto.UrlRequestDto;
+import com.url_shortner.project.entity.UserEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bulk shortening for inputs too large to hold in memory (link catalogs of
+ * 100k+ URLs).
+ *
+ * The body is read line by line (NDJSON, or CSV
+ * url,customCode,expiryDate,password) and cut into chunks, which are
+ * shortened in parallel on the blocking task executor via
+ * {@link BulkShortenService#shortenChunk}. Each chunk's results are written
+ * as NDJSON as soon as it completes, so results may come back out of input
+ * order; every result carries its input line number.
+ *
+ * Backpressure: at most max-in-flight-chunks chunks are read ahead. Once
+ * they are all running, we stop reading the body (and the client's TCP
+ * window fills up) until one finishes, so memory stays at
+ * chunk-size * max-in-flight-chunks requests whatever the input size.
+ */
+@Service
+@Slf4j
+public class StreamingBulkShortenService {
+
+    private final BulkShortenService bulkShortenService;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService blockingTaskExecutor;
+
+    @Value("${app.batch.stream.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.batch.stream.max-in-flight-chunks:4}")
+    private int maxInFlightChunks;
+
+    public StreamingBulkShortenService(BulkShortenService bulkShortenService, ObjectMapper objectMapper,
+            @Qualifier("blockingTaskExecutor") ExecutorService blockingTaskExecutor) {
+        this.bulkShortenService = bulkShortenService;
+        this.objectMapper = objectMapper;
+        this.blockingTaskExecutor = blockingTaskExecutor;
+    }
+
+    /**
+     * Reads requests from body until EOF and writes one result line per
+     * non-blank input line to out. Returns once every result is written.
+     */
+    public void shorten(UserEntity user, Reader body, boolean csv, Writer out) throws IOException {
+        ResultWriter writer = new ResultWriter(out);
+        Semaphore inFlight = new Semaphore(maxInFlightChunks);
+        BufferedReader reader = body instanceof BufferedReader buffered ? buffered : new BufferedReader(body);
+        List<ParsedLine> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        try {
+            String line;
+            while (!writer.isBroken() && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (csv && lineNumber == 1 && isCsvHeader(line))) {
+                    continue;
+                }
+                chunk.add(parse(lineNumber, line, csv));
+                if (chunk.size() == chunkSize) {
+                    submit(user, chunk, inFlight, writer);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(user, chunk, inFlight, writer);
+            }
+        } finally {
+            // Wait for the chunks still running before the response is completed
+            inFlight.acquireUninterruptibly(maxInFlightChunks);
+        }
+        writer.rethrow();
+        log.info("Streamed bulk shorten of {} lines for user {}", lineNumber, user.getId());
+    }
+
+    private void submit(UserEntity user, List<ParsedLine> chunk, Semaphore inFlight, ResultWriter writer)
+            throws InterruptedIOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a chunk slot");
+        }
+        try {
+            blockingTaskExecutor.execute(() -> {
+                try {
+                    writer.write(shortenLines(user, chunk));
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            try {
+                writer.write(shortenLines(user, chunk));
+            } finally {
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Shortens one chunk of parsed lines.
+     *
+     * @return one result per line, in order, each carrying its line number
+     */
+    public List<BatchUrlResponseDto> shortenLines(UserEntity user, List<ParsedLine> chunk) {
+        List<UrlRequestDto> requests = new ArrayList<>(chunk.size());
+        for (ParsedLine item : chunk) {
+            if (item.request() != null) {
+                requests.add(item.request());
+            }
+        }
+
+        List<BatchUrlResponseDto> shortened;
+        try {
+            shortened = requests.isEmpty() ? List.of() : bulkShortenService.shortenChunk(user, requests);
+        } catch (RuntimeException e) {
+            log.warn("Streamed chunk of {} urls failed: {}", requests.size(), e.getMessage());
+            shortened = null;
+        }
+
+        List<BatchUrlResponseDto> results = new ArrayList<>(chunk.size());
+        int next = 0;
+        for (ParsedLine item : chunk) {
+            BatchUrlResponseDto result;
+            if (item.request() == null) {
+                result = failure(null, item.error());
+            } else if (shortened == null) {
+                result = failure(item.request().getUrl(), "Unexpected error while saving URL");
+            } else {
+                result = shortened.get(next++);
+            }
+            result.setLine(item.lineNumber());
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Parses one non-blank NDJSON or CSV input line.
+     */
+    public ParsedLine parse(long lineNumber, String line, boolean csv) {
+        return csv ? parseCsv(lineNumber, line) : parseJson(lineNumber, line);
+    }
+
+    private ParsedLine parseJson(long lineNumber, String line) {
+        try {
+            UrlRequestDto request = objectMapper.readValue(line, UrlRequestDto.class);
+            if (request == null) {
+                // A literal "null" line parses fine but carries no request
+                return new ParsedLine(lineNumber, null, "Invalid line, expected a JSON object");
+            }
+            return new ParsedLine(lineNumber, request, null);
+        } catch (JsonProcessingException e) {
+            return new ParsedLine(lineNumber, null, "Malformed JSON line");
+        }
+    }
+
+    private ParsedLine parseCsv(long lineNumber, String line) {
+        List<String> fields = splitCsv(line);
+        UrlRequestDto request = new UrlRequestDto();
+        request.setUrl(fields.get(0).trim());
+        if (fields.size() > 1 && !fields.get(1).isBlank()) {
+            request.setCustomCode(fields.get(1).trim());
+        }
+        if (fields.size() > 2 && !fields.get(2).isBlank()) {
+            try {
+                request.setExpiryDate(LocalDateTime.parse(fields.get(2).trim()));
+            } catch (DateTimeParseException e) {
+                return new ParsedLine(lineNumber, null, "Invalid expiryDate, expected ISO-8601 (e.g. 2030-01-31T23:59:00)");
+            }
+        }
+        if (fields.size() > 3 && !fields.get(3).isEmpty()) {
+            request.setPassword(fields.get(3));
+        }
+        return new ParsedLine(lineNumber, request, null);
+    }
+
+    public static boolean isCsvHeader(String line) {
+        return splitCsv(line).get(0).trim().equalsIgnoreCase("url");
+    }
+
+    // Single-line CSV: comma separated, fields may be "quoted" with "" as an escaped quote
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static BatchUrlResponseDto failure(String url, String error) {
+        return BatchUrlResponseDto.builder()
+                .originalUrl(url)
+                .error(error)
+                .status("FAILURE")
+                .build();
+    }
+
+    // A parsed input line: either a request or the reason it couldn't be parsed
+    public record ParsedLine(long lineNumber, UrlRequestDto request, String error) {
+    }
+
+    /**
+     * Serializes chunk results onto the shared response writer. After the
+     * first write error (client gone) everything else is dropped and the
+     * reader stops.
+     */
+    private final class ResultWriter {
+
+        private final Writer out;
+        // Not synchronized: a virtual thread blocked on a slow client would pin its carrier
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile IOException failure;
+
+        ResultWriter(Writer out) {
+            this.out = out;
+        }
+
+        void write(List<BatchUrlResponseDto> results) {
+            lock.lock();
+            try {
+                if (failure != null) {
+                    return;
+                }
+                for (BatchUrlResponseDto result : results) {
+                    out.write(objectMapper.writeValueAsString(result));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                log.warn("Streamed bulk shorten aborted, client write failed: {}", e.getMessage());
+                failure = e;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isBroken() {
+            return failure != null;
+        }
+
+        void rethrow() throws IOException {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.url_shortner.project.service.clicks;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * One redirect, as handed from the request thread to the click listeners.
+ *
+ * @param shortCode the link that was followed
+ * @param timestamp epoch millis of the redirect
+ * @param clientIp  first X-Forwarded-For entry, else the remote address
+ * @param userAgent User-Agent header, or null
+ * @param referrer  Referer header, or null
+ * @param weight    how many clicks this event stands for: 1, or the sample
+ *                  rate when the queue is sampling under overload
+ */
+public record ClickEvent(String shortCode, long timestamp, String clientIp, String userAgent, String referrer,
+        int weight) {
+
+    public static ClickEvent of(String shortCode, HttpServletRequest request) {
+        return new ClickEvent(shortCode, System.currentTimeMillis(), clientIp(request),
+                request.getHeader(HttpHeaders.USER_AGENT), request.getHeader(HttpHeaders.REFERER), 1);
+    }
+
+    public ClickEvent withWeight(int weight) {
+        return new ClickEvent(shortCode, timestamp, clientIp, userAgent, referrer, weight);
+    }
+
+    // Same rules as RequestLoggingFilter
+    private static String clientIp(HttpServletRequest request) {
+        String ip = request.getHeader("X-Forwarded-For");
+        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getRemoteAddr();
+        }
+        if (ip != null && ip.contains(",")) {
+            ip = ip.split(",")[0].trim();
+        }
+        return ip;
+    }
+}
@@ -0,0 +1,14 @@
+package com.url_shortner.project.service.clicks;
+
+import java.util.List;
+
+/**
+ * Receives redirects from {@link ClickEventQueue}, in batches, on its single
+ * writer thread (never on a request thread). Implementations may block on
+ * Redis or disk, but a slow listener delays all the others. The list is
+ * reused once the call returns, so copy what you keep.
+ */
+public interface ClickEventListener {
+
+    void onClicks(List<ClickEvent> clicks);
+}
@@ -0,0 +1,297 @@
+package com.url_shortner.project.service.clicks;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Takes visit recording off the redirect path: the request thread only
+ * offers a {@link ClickEvent} to a bounded in-memory queue, and a single
+ * "click-writer" thread drains it in batches to every
+ * {@link ClickEventListener} (visit counters, ...). A slow or unavailable
+ * Redis then backs up this queue instead of the redirects.
+ *
+ * When the queue is full the configured {@link ClickOverflowPolicy} applies.
+ * With SPILL, overflowing clicks are appended to a local file; the writer
+ * replays it (oldest first) whenever the queue is empty, and a file left
+ * behind by a crash is replayed after the next start. Every spilled line is
+ * flushed to the file as it is written, so a process crash loses none of it.
+ *
+ * On shutdown the writer drains what is queued before the listeners (and
+ * their own flush on shutdown) are destroyed.
+ */
+@Component
+@Slf4j
+public class ClickEventQueue {
+
+    private static final String SPILL_FILE = "clicks.spill";
+    private static final String REPLAY_FILE = "clicks.replay";
+    private static final long POLL_TIMEOUT_MS = 200;
+
+    private final List<ClickEventListener> listeners;
+    private final BlockingQueue<ClickEvent> queue;
+    private final ClickOverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final int sampleRate;
+    private final int highWaterMark;
+    private final Path spillDir;
+
+    private final Counter dropped;
+    private final Counter sampledOut;
+    private final Counter spilled;
+
+    // Not synchronized: a virtual thread blocked on disk would pin its carrier
+    private final ReentrantLock spillLock = new ReentrantLock();
+    private BufferedWriter spillWriter;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public ClickEventQueue(List<ClickEventListener> listeners,
+            @Value("${app.clicks.queue.capacity:100000}") int capacity,
+            @Value("${app.clicks.queue.batch-size:1000}") int batchSize,
+            @Value("${app.clicks.queue.overflow-policy:DROP}") ClickOverflowPolicy overflowPolicy,
+            @Value("${app.clicks.queue.sample-rate:10}") int sampleRate,
+            @Value("${app.clicks.queue.spill-dir:data/clicks}") String spillDir,
+            MeterRegistry meterRegistry) {
+        this.listeners = listeners;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.highWaterMark = capacity - capacity / 4;
+        this.spillDir = Paths.get(spillDir);
+
+        Gauge.builder("clicks.queue.size", queue, BlockingQueue::size)
+                .description("Clicks waiting for the click writer")
+                .register(meterRegistry);
+        this.dropped = overflowCounter(meterRegistry, "dropped");
+        this.sampledOut = overflowCounter(meterRegistry, "sampled_out");
+        this.spilled = overflowCounter(meterRegistry, "spilled");
+    }
+
+    private static Counter overflowCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("clicks.overflow")
+                .description("Clicks that did not fit in the click queue")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("click-writer").daemon().start(this::drainLoop);
+        log.info("[Clicks] Click writer started ({} listeners, overflow policy {})", listeners.size(),
+                overflowPolicy);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        closeSpillWriter();
+    }
+
+    /**
+     * Never blocks on the listeners; at worst appends one line to the spill
+     * file.
+     */
+    public void offer(ClickEvent click) {
+        if (overflowPolicy == ClickOverflowPolicy.SAMPLE && queue.size() >= highWaterMark) {
+            if (ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+                sampledOut.increment();
+                return;
+            }
+            click = click.withWeight(click.weight() * sampleRate);
+        }
+        if (queue.offer(click)) {
+            return;
+        }
+        if (overflowPolicy == ClickOverflowPolicy.SPILL) {
+            spill(click);
+        } else {
+            dropped.increment();
+        }
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<ClickEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (!drainBatch(batch, POLL_TIMEOUT_MS)) {
+                    replaySpill();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("[Clicks] Click writer error: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return false if nothing arrived within the timeout
+     */
+    boolean drainBatch(List<ClickEvent> batch, long timeoutMs) throws InterruptedException {
+        ClickEvent first = queue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.clear();
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        dispatch(batch);
+        return true;
+    }
+
+    private void dispatch(List<ClickEvent> batch) {
+        for (ClickEventListener listener : listeners) {
+            try {
+                listener.onClicks(batch);
+            } catch (Exception e) {
+                // One broken consumer must not starve the others
+                log.warn("[Clicks] {} failed on {} clicks: {}", listener.getClass().getSimpleName(), batch.size(),
+                        e.getMessage());
+            }
+        }
+    }
+
+    private void spill(ClickEvent click) {
+        spillLock.lock();
+        try {
+            if (spillWriter == null) {
+                Files.createDirectories(spillDir);
+                spillWriter = Files.newBufferedWriter(spillDir.resolve(SPILL_FILE), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            spillWriter.write(encode(click));
+            spillWriter.newLine();
+            // Hand each line to the OS right away, so a crash doesn't lose the buffered tail
+            spillWriter.flush();
+            spilled.increment();
+        } catch (IOException e) {
+            dropped.increment();
+            log.warn("[Clicks] Could not spill click for {}: {}", click.shortCode(), e.getMessage());
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    /**
+     * Replays spilled clicks through the listeners.
+     *
+     * @return number of clicks replayed
+     */
+    long replaySpill() throws IOException {
+        Path replay = spillDir.resolve(REPLAY_FILE);
+        if (!Files.exists(replay)) {
+            Path spill = spillDir.resolve(SPILL_FILE);
+            spillLock.lock();
+            try {
+                if (!Files.exists(spill)) {
+                    return 0;
+                }
+                // New overflow goes to a fresh spill file while we replay this one
+                closeSpillWriter();
+                Files.move(spill, replay, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                spillLock.unlock();
+            }
+        }
+        long replayed = 0;
+        List<ClickEvent> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = Files.newBufferedReader(replay, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                ClickEvent click = decode(line);
+                if (click == null) {
+                    continue;
+                }
+                batch.add(click);
+                if (batch.size() == batchSize) {
+                    dispatch(batch);
+                    replayed += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            dispatch(batch);
+            replayed += batch.size();
+        }
+        Files.delete(replay);
+        log.info("[Clicks] Replayed {} spilled clicks", replayed);
+        return replayed;
+    }
+
+    private void closeSpillWriter() {
+        spillLock.lock();
+        try {
+            if (spillWriter != null) {
+                spillWriter.close();
+                spillWriter = null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            spillLock.unlock();
+        }
+    }
+
+    // timestamp \t weight \t code \t ip \t user agent \t referrer; null is written as empty
+    static String encode(ClickEvent click) {
+        return click.timestamp() + "\t" + click.weight() + "\t" + field(click.shortCode()) + "\t"
+                + field(click.clientIp()) + "\t" + field(click.userAgent()) + "\t" + field(click.referrer());
+    }
+
+    static ClickEvent decode(String line) {
+        String[] parts = line.split("\t", -1);
+        if (parts.length != 6 || parts[2].isEmpty()) {
+            return null;
+        }
+        try {
+            return new ClickEvent(parts[2], Long.parseLong(parts[0]), blankToNull(parts[3]),
+                    blankToNull(parts[4]), blankToNull(parts[5]), Integer.parseInt(parts[1]));
+        } catch (NumberFormatException e) {
+            return null; // e.g. a line torn by a crash
+        }
+    }
+
+    private static String field(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static String blankToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,16 @@
+package com.url_shortner.project.service.clicks;
+
+/**
+ * What {@link ClickEventQueue} does with a click when its queue is full.
+ */
+public enum ClickOverflowPolicy {
+    /** Drop the click and count it (clicks.overflow{outcome=dropped}). */
+    DROP,
+    /**
+     * Above the high-water mark, keep one click in sample-rate, weighted by
+     * sample-rate, so counts stay right on average; drop only when full.
+     */
+    SAMPLE,
+    /** Append the click to a local spill file, replayed once the queue drains. */
+    SPILL
+}
@@ -0,0 +1,337 @@
+package com.url_shortner.project.service.clicks.journal;
+
+import com.url_shortner.project.service.clicks.ClickEvent;
+import com.url_shortner.project.service.clicks.ClickEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Optional append-only log of every click ({@code app.clicks.journal.enabled=true}),
+ * kept as raw history for replays into rollups or exports without a DB row
+ * per click.
+ *
+ * Clicks are appended by the click writer thread (the only writer) to a
+ * memory-mapped segment file: a click costs ~30 bytes plus the code, with the
+ * IP stored as a hash and user agents / referrers as per-segment ids (see
+ * {@link JournalSegment} for the format). A full segment is forced to disk
+ * and a new one started; segments older than the retention are deleted.
+ * The active segment is forced every force-interval-ms, so a machine crash
+ * loses at most that much (a process crash loses nothing: the pages are
+ * already in the page cache).
+ *
+ * On startup the last segment is scanned to find where appending resumes.
+ */
+@Component
+@ConditionalOnProperty(name = "app.clicks.journal.enabled", havingValue = "true")
+@Slf4j
+public class ClickJournal implements ClickEventListener {
+
+    // Must fit the largest record (a click plus its two definitions)
+    static final int MIN_SEGMENT_SIZE = 4096;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final Duration retention;
+    private final Counter appended;
+    private final MessageDigest sha256;
+
+    // Appends run on the click writer, force/close on other threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private MappedByteBuffer segment;
+    private long baseOffset;
+    private int position;
+    private final Map<String, Integer> userAgentIds = new HashMap<>();
+    private final Map<String, Integer> referrerIds = new HashMap<>();
+
+    // Everything below this offset is complete and readable
+    private volatile long endOffset;
+
+    public ClickJournal(@Value("${app.clicks.journal.dir:data/clicks/journal}") String dir,
+            @Value("${app.clicks.journal.segment-size:64MB}") DataSize segmentSize,
+            @Value("${app.clicks.journal.retention:7d}") Duration retention,
+            MeterRegistry meterRegistry) {
+        this.dir = Paths.get(dir);
+        this.segmentSize = (int) Math.min(Integer.MAX_VALUE, Math.max(MIN_SEGMENT_SIZE, segmentSize.toBytes()));
+        this.retention = retention;
+        this.appended = Counter.builder("clicks.journal.appended")
+                .description("Clicks appended to the click journal")
+                .register(meterRegistry);
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> segments = JournalSegment.list(dir);
+        lock.lock();
+        try {
+            if (segments.isEmpty()) {
+                startSegment(0);
+            } else {
+                resume(segments.get(segments.size() - 1));
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.info("[ClickJournal] Appending at offset {} in {}", endOffset, dir);
+    }
+
+    @Override
+    public void onClicks(List<ClickEvent> clicks) {
+        lock.lock();
+        try {
+            if (segment == null) {
+                return; // Closed
+            }
+            for (ClickEvent click : clicks) {
+                append(click);
+            }
+            endOffset = offsetOf(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands the clicks from {@code fromOffset} on to the consumer, oldest
+     * first, at most {@code maxEvents} of them. Start at 0 for everything
+     * still retained.
+     *
+     * @return the offset to continue from (equal to {@link #endOffset()} once
+     *         caught up)
+     */
+    public long replay(long fromOffset, int maxEvents, Consumer<JournaledClick> consumer) {
+        try {
+            return ClickJournalReader.replay(dir, fromOffset, endOffset, maxEvents, consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long endOffset() {
+        return endOffset;
+    }
+
+    @Scheduled(fixedDelayString = "${app.clicks.journal.force-interval-ms:1000}")
+    public void force() {
+        MappedByteBuffer current;
+        lock.lock();
+        try {
+            current = segment;
+        } finally {
+            lock.unlock();
+        }
+        // Outside the lock: appends can continue while dirty pages are written
+        if (current != null) {
+            current.force();
+        }
+    }
+
+    // A segment is expired once the one after it was started more than `retention` ago
+    @Scheduled(fixedDelayString = "${app.clicks.journal.retention-check-interval-ms:600000}")
+    public void deleteExpiredSegments() {
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        try {
+            List<Path> segments = JournalSegment.list(dir);
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (createdAt(segments.get(i + 1)) >= cutoff) {
+                    break;
+                }
+                Files.deleteIfExists(segments.get(i));
+                log.info("[ClickJournal] Deleted expired segment {}", segments.get(i).getFileName());
+            }
+        } catch (IOException e) {
+            log.warn("[ClickJournal] Retention check failed: {}", e.getMessage());
+        }
+    }
+
+    // Runs after the click queue has drained (it depends on this bean)
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (segment != null) {
+                segment.force();
+                segment = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void append(ClickEvent click) throws IOException {
+        byte[] code = click.shortCode().getBytes(StandardCharsets.UTF_8);
+        if (code.length > JournalSegment.MAX_CODE_BYTES) {
+            log.warn("[ClickJournal] Skipping click with an oversized code ({} bytes)", code.length);
+            return;
+        }
+        byte[] userAgent = truncate(click.userAgent());
+        byte[] referrer = truncate(click.referrer());
+        if (position + recordSize(code, click, userAgent, referrer) > segment.capacity()) {
+            rotate();
+        }
+        int userAgentId = stringId(JournalSegment.TYPE_USER_AGENT, userAgentIds, click.userAgent(), userAgent);
+        int referrerId = stringId(JournalSegment.TYPE_REFERRER, referrerIds, click.referrer(), referrer);
+
+        segment.putLong(position + 1, click.timestamp());
+        segment.putLong(position + 9, ipHash(click.clientIp()));
+        segment.putInt(position + 17, userAgentId);
+        segment.putInt(position + 21, referrerId);
+        segment.putInt(position + 25, click.weight());
+        segment.put(position + 29, (byte) code.length);
+        segment.put(position + JournalSegment.CLICK_FIXED_SIZE, code);
+        segment.put(position, JournalSegment.TYPE_CLICK);
+        position += JournalSegment.CLICK_FIXED_SIZE + code.length;
+        appended.increment();
+    }
+
+    // Bytes this click takes, including definitions of values new to the segment
+    private int recordSize(byte[] code, ClickEvent click, byte[] userAgent, byte[] referrer) {
+        int size = JournalSegment.CLICK_FIXED_SIZE + code.length;
+        if (userAgent != null && !userAgentIds.containsKey(click.userAgent())) {
+            size += JournalSegment.STRING_FIXED_SIZE + userAgent.length;
+        }
+        if (referrer != null && !referrerIds.containsKey(click.referrer())) {
+            size += JournalSegment.STRING_FIXED_SIZE + referrer.length;
+        }
+        return size;
+    }
+
+    private int stringId(byte type, Map<String, Integer> ids, String value, byte[] bytes) {
+        if (value == null) {
+            return 0;
+        }
+        Integer existing = ids.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int id = ids.size() + 1;
+        segment.putInt(position + 1, id);
+        segment.putShort(position + 5, (short) bytes.length);
+        segment.put(position + JournalSegment.STRING_FIXED_SIZE, bytes);
+        segment.put(position, type);
+        position += JournalSegment.STRING_FIXED_SIZE + bytes.length;
+        ids.put(value, id);
+        return id;
+    }
+
+    private void rotate() throws IOException {
+        segment.force();
+        startSegment(offsetOf(position));
+    }
+
+    private void startSegment(long base) throws IOException {
+        Path file = dir.resolve(JournalSegment.fileName(base));
+        segment = map(file, segmentSize);
+        JournalSegment.writeHeader(segment, base, System.currentTimeMillis());
+        segment.force(0, JournalSegment.HEADER_SIZE);
+        baseOffset = base;
+        position = JournalSegment.HEADER_SIZE;
+        userAgentIds.clear();
+        referrerIds.clear();
+        endOffset = base;
+    }
+
+    private void resume(Path file) throws IOException {
+        long base = JournalSegment.baseOffset(file);
+        long size = Files.size(file);
+        if (size < JournalSegment.HEADER_SIZE) {
+            startSegment(base); // Crashed before the header was written
+            return;
+        }
+        MappedByteBuffer buffer = map(file, size);
+        if (JournalSegment.hasBlankHeader(buffer)) {
+            startSegment(base); // Crashed right after mapping it, so it holds no records either
+            return;
+        }
+        if (!JournalSegment.hasValidHeader(buffer)) {
+            throw new IOException("Not a click journal segment: " + file);
+        }
+        Map<Integer, String> userAgents = new HashMap<>();
+        Map<Integer, String> referrers = new HashMap<>();
+        segment = buffer;
+        baseOffset = base;
+        position = JournalSegment.scan(buffer, buffer.capacity(), base, userAgents, referrers, null);
+        userAgentIds.clear();
+        referrerIds.clear();
+        userAgents.forEach((id, value) -> userAgentIds.put(value, id));
+        referrers.forEach((id, value) -> referrerIds.put(value, id));
+        // A record torn by a crash (body written, type byte not) must not
+        // leave bytes behind the next, possibly shorter, record
+        int tornEnd = Math.min(buffer.capacity(), position + JournalSegment.MAX_RECORD_SIZE);
+        for (int i = position; i < tornEnd; i++) {
+            buffer.put(i, JournalSegment.TYPE_END);
+        }
+        endOffset = offsetOf(position);
+    }
+
+    private long offsetOf(int segmentPosition) {
+        return baseOffset + segmentPosition - JournalSegment.HEADER_SIZE;
+    }
+
+    private long ipHash(String clientIp) {
+        if (clientIp == null) {
+            return 0;
+        }
+        byte[] digest = sha256.digest(clientIp.getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.wrap(digest).getLong();
+    }
+
+    private static byte[] truncate(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= JournalSegment.MAX_STRING_BYTES ? bytes
+                : Arrays.copyOf(bytes, JournalSegment.MAX_STRING_BYTES);
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static long createdAt(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(JournalSegment.HEADER_SIZE);
+            channel.read(header, 0);
+            return JournalSegment.createdAt(header);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.url_shortner.project.service.clicks.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sequential reads of a journal directory, through read-only mappings of its
+ * segments (independent of the writer's mapping).
+ */
+final class ClickJournalReader {
+
+    private ClickJournalReader() {
+    }
+
+    /**
+     * Hands the clicks in [fromOffset, endOffset) to the consumer, oldest
+     * first, at most maxEvents of them. An offset older than the oldest
+     * remaining segment starts at that segment.
+     *
+     * @return the offset to continue from
+     */
+    static long replay(Path dir, long fromOffset, long endOffset, int maxEvents, Consumer<JournaledClick> consumer)
+            throws IOException {
+        List<Path> segments = JournalSegment.list(dir);
+        int first = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if (JournalSegment.baseOffset(segments.get(i)) <= fromOffset) {
+                first = i;
+            }
+        }
+
+        long next = fromOffset;
+        int[] remaining = { maxEvents };
+        for (int i = first; i < segments.size() && remaining[0] > 0 && next < endOffset; i++) {
+            long baseOffset = JournalSegment.baseOffset(segments.get(i));
+            next = Math.max(next, baseOffset);
+            MappedByteBuffer buffer = map(segments.get(i));
+            if (!JournalSegment.hasValidHeader(buffer)) {
+                throw new IOException("Not a click journal segment: " + segments.get(i));
+            }
+            int limit = (int) Math.min(buffer.capacity(), JournalSegment.HEADER_SIZE + (endOffset - baseOffset));
+            long start = next;
+            int end = JournalSegment.scan(buffer, limit, baseOffset, new HashMap<>(), new HashMap<>(),
+                    (offset, timestamp, shortCode, ipHash, userAgent, referrer, weight) -> {
+                        if (offset < start) {
+                            return true;
+                        }
+                        if (remaining[0] == 0) {
+                            return false;
+                        }
+                        consumer.accept(new JournaledClick(offset, timestamp, shortCode, ipHash, userAgent,
+                                referrer, weight));
+                        remaining[0]--;
+                        return true;
+                    });
+            next = Math.max(next, baseOffset + end - JournalSegment.HEADER_SIZE);
+        }
+        return next;
+    }
+
+    private static MappedByteBuffer map(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.url_shortner.project.service.clicks.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * On-disk format of one journal segment, {baseOffset, 20 digits}.clicks:
+ *
+ * <pre>
+ * Header (32 bytes)
+ *   int magic, int version, long baseOffset, long createdAtEpochMilli
+ * Records, back to back, until a 0 type byte (the unused tail of the file):
+ *   click:      byte 1, long timestamp, long ipHash, int userAgentId,
+ *               int referrerId, int weight, byte codeLength, byte[] code
+ *   user agent: byte 2, int id, short length, byte[] value
+ *   referrer:   byte 3, int id, short length, byte[] value
+ * </pre>
+ *
+ * User agent and referrer ids are assigned per segment (0 = none); the
+ * defining record always comes before the first click using it, so a
+ * segment can be read on its own. The offset of a record is
+ * baseOffset + (position - HEADER_SIZE), and a segment's successor starts at
+ * the offset where it ends, so offsets are contiguous across segments.
+ *
+ * The type byte of a record is written last: a reader sees either a complete
+ * record or the 0 that ends the segment.
+ */
+final class JournalSegment {
+
+    static final int MAGIC = 0x434C4B4A; // "CLKJ"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    static final byte TYPE_END = 0;
+    static final byte TYPE_CLICK = 1;
+    static final byte TYPE_USER_AGENT = 2;
+    static final byte TYPE_REFERRER = 3;
+
+    static final int CLICK_FIXED_SIZE = 30;
+    static final int STRING_FIXED_SIZE = 7;
+    static final int MAX_CODE_BYTES = 255;
+    static final int MAX_STRING_BYTES = 512;
+    // A click with both of its definitions
+    static final int MAX_RECORD_SIZE = CLICK_FIXED_SIZE + MAX_CODE_BYTES + 2 * (STRING_FIXED_SIZE + MAX_STRING_BYTES);
+
+    private static final String SUFFIX = ".clicks";
+
+    private JournalSegment() {
+    }
+
+    @FunctionalInterface
+    interface ClickVisitor {
+        /**
+         * @return false to stop before this click (it is not consumed)
+         */
+        boolean visit(long offset, long timestamp, String shortCode, long ipHash, String userAgent, String referrer,
+                int weight);
+    }
+
+    static String fileName(long baseOffset) {
+        return String.format("%020d%s", baseOffset, SUFFIX);
+    }
+
+    static long baseOffset(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    // Oldest first
+    static List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().matches("\\d{20}\\" + SUFFIX))
+                    .sorted(Comparator.comparingLong(JournalSegment::baseOffset))
+                    .toList();
+        }
+    }
+
+    static void writeHeader(ByteBuffer buffer, long baseOffset, long createdAtEpochMilli) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, baseOffset);
+        buffer.putLong(16, createdAtEpochMilli);
+    }
+
+    static boolean hasValidHeader(ByteBuffer buffer) {
+        return buffer.capacity() >= HEADER_SIZE && buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION;
+    }
+
+    // A segment that was mapped (zero-filled) but whose header never reached the disk
+    static boolean hasBlankHeader(ByteBuffer buffer) {
+        for (int i = 0; i < HEADER_SIZE; i++) {
+            if (buffer.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long createdAt(ByteBuffer header) {
+        return header.getLong(16);
+    }
+
+    /**
+     * Reads records from the start of the segment up to {@code limit},
+     * collecting the user agent / referrer definitions into the given maps.
+     *
+     * @param visitor null to only rebuild the dictionaries
+     * @return the position after the last record read: where the next one
+     *         starts (or would be appended)
+     */
+    static int scan(ByteBuffer buffer, int limit, long baseOffset, Map<Integer, String> userAgents,
+            Map<Integer, String> referrers, ClickVisitor visitor) {
+        int position = HEADER_SIZE;
+        while (position < limit) {
+            byte type = buffer.get(position);
+            if (type == TYPE_CLICK) {
+                if (position + CLICK_FIXED_SIZE > limit) {
+                    break;
+                }
+                int codeLength = buffer.get(position + 29) & 0xff;
+                int size = CLICK_FIXED_SIZE + codeLength;
+                if (position + size > limit) {
+                    break;
+                }
+                if (visitor != null) {
+                    byte[] code = new byte[codeLength];
+                    buffer.get(position + CLICK_FIXED_SIZE, code);
+                    boolean more = visitor.visit(baseOffset + position - HEADER_SIZE,
+                            buffer.getLong(position + 1),
+                            new String(code, StandardCharsets.UTF_8),
+                            buffer.getLong(position + 9),
+                            userAgents.get(buffer.getInt(position + 17)),
+                            referrers.get(buffer.getInt(position + 21)),
+                            buffer.getInt(position + 25));
+                    if (!more) {
+                        break;
+                    }
+                }
+                position += size;
+            } else if (type == TYPE_USER_AGENT || type == TYPE_REFERRER) {
+                if (position + STRING_FIXED_SIZE > limit) {
+                    break;
+                }
+                int length = buffer.getShort(position + 5) & 0xffff;
+                if (length > MAX_STRING_BYTES || position + STRING_FIXED_SIZE + length > limit) {
+                    break;
+                }
+                byte[] value = new byte[length];
+                buffer.get(position + STRING_FIXED_SIZE, value);
+                (type == TYPE_USER_AGENT ? userAgents : referrers)
+                        .put(buffer.getInt(position + 1), new String(value, StandardCharsets.UTF_8));
+                position += STRING_FIXED_SIZE + length;
+            } else {
+                // TYPE_END, or garbage left by a crash: the segment ends here
+                break;
+            }
+        }
+        return position;
+    }
+}
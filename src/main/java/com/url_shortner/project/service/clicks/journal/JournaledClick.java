@@ -0,0 +1,25 @@
+package com.url_shortner.project.service.clicks.journal;
+
+import com.url_shortner.project.service.clicks.ClickEvent;
+
+/**
+ * One click read back from the {@link ClickJournal}.
+ *
+ * @param offset    journal offset of this record; replaying from it returns
+ *                  this click first
+ * @param ipHash    first 8 bytes of SHA-256(client IP), 0 when unknown
+ * @param userAgent null when the request had none
+ * @param referrer  null when the request had none
+ */
+public record JournaledClick(long offset, long timestamp, String shortCode, long ipHash, String userAgent,
+        String referrer, int weight) {
+
+    /**
+     * For feeding a replay to a {@link com.url_shortner.project.service.clicks.ClickEventListener}
+     * (rollups, leaderboard). The raw IP is not journaled, so the event has
+     * no client IP and unique visitor counting skips it.
+     */
+    public ClickEvent toClickEvent() {
+        return new ClickEvent(shortCode, timestamp, null, userAgent, referrer, weight);
+    }
+}
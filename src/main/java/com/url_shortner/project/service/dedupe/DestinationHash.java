@@ -0,0 +1,92 @@
+package com.url_shortner.project.service.dedupe;
+
+import com.url_shortner.project.dto.UrlRequestDto;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Fixed-width key for a destination URL, stored in urls.url_hash and indexed
+ * together with user_id, so "has this user already shortened this URL?" is
+ * one index lookup instead of a scan over the TEXT original_url column.
+ *
+ * The hash is the first 128 bits of SHA-256 over the normalized URL, as 32
+ * hex characters.
+ */
+public final class DestinationHash {
+
+    public static final int LENGTH = 32;
+
+    private DestinationHash() {
+    }
+
+    /**
+     * Hash for a create request that may be answered with an existing link,
+     * or null. Only plain requests qualify: a custom code, expiry or
+     * password means the caller wants a link of their own.
+     */
+    public static String ofPlainRequest(UrlRequestDto request) {
+        boolean plain = (request.getCustomCode() == null || request.getCustomCode().trim().isEmpty())
+                && request.getExpiryDate() == null
+                && (request.getPassword() == null || request.getPassword().isEmpty());
+        return plain ? of(request.getUrl()) : null;
+    }
+
+    public static String of(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(normalize(url).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, LENGTH / 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Only changes what can't change where the link goes: surrounding
+     * whitespace, scheme/host case, a default port and an empty path. Path,
+     * query and fragment are kept as sent.
+     */
+    static String normalize(String url) {
+        String trimmed = url.trim();
+        try {
+            URI uri = new URI(trimmed);
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return trimmed;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() == null ? null : uri.getHost().toLowerCase(Locale.ROOT);
+            if (host == null) {
+                return trimmed;
+            }
+            int port = uri.getPort();
+            boolean defaultPort = port == -1 || ("http".equals(scheme) && port == 80)
+                    || ("https".equals(scheme) && port == 443);
+
+            StringBuilder normalized = new StringBuilder(trimmed.length()).append(scheme).append("://");
+            if (uri.getRawUserInfo() != null) {
+                normalized.append(uri.getRawUserInfo()).append('@');
+            }
+            normalized.append(host);
+            if (!defaultPort) {
+                normalized.append(':').append(port);
+            }
+            String path = uri.getRawPath();
+            normalized.append(path == null || path.isEmpty() ? "/" : path);
+            if (uri.getRawQuery() != null) {
+                normalized.append('?').append(uri.getRawQuery());
+            }
+            if (uri.getRawFragment() != null) {
+                normalized.append('#').append(uri.getRawFragment());
+            }
+            return normalized.toString();
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.url_shortner.project.service.EmailService;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -19,8 +20,14 @@ public class SequentialQueueService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    @Qualifier("blockingTaskExecutor")
+    private java.util.concurrent.ExecutorService blockingTaskExecutor;
+
+    // Only keeps time; the enqueue itself (blocking RabbitMQ I/O) is handed to
+    // blockingTaskExecutor so one slow publish can't delay the other schedules
     private final java.util.concurrent.ScheduledExecutorService scheduler = java.util.concurrent.Executors
-            .newScheduledThreadPool(10); // increased pool for scheduling
+            .newSingleThreadScheduledExecutor();
 
     // --- Publisher (Immediate) ---
 
@@ -49,10 +56,10 @@ public class SequentialQueueService {
             System.out.println("[SequentialService] 🕒 Scheduling email for " + request.getScheduledTime() + " (in "
                     + delay + "ms): " + taskMessage);
             // "Add that much delay while adding the task to the queue"
-            scheduler.schedule(() -> {
+            scheduler.schedule(() -> blockingTaskExecutor.execute(() -> {
                 System.out.println("[SequentialService] ⏰ Delay expired. Enqueuing now: " + taskMessage);
                 enqueue(taskMessage);
-            }, delay, java.util.concurrent.TimeUnit.MILLISECONDS);
+            }), delay, java.util.concurrent.TimeUnit.MILLISECONDS);
         }
     }
 
@@ -1,20 +1,30 @@
 package com.url_shortner.project.service.impl;
 
+import com.url_shortner.project.datasource.DataSourceRouting;
+import com.url_shortner.project.datasource.ReadYourWritesTracker;
 import com.url_shortner.project.dto.*;
 import com.url_shortner.project.entity.UrlEntity;
 import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.LinkLookupService;
 import com.url_shortner.project.service.UrlService;
+import com.url_shortner.project.service.UserLookupService;
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import com.url_shortner.project.service.bulk.BulkShortenService;
+import com.url_shortner.project.service.bulk.StreamingBulkShortenService;
+import com.url_shortner.project.service.clicks.ClickEvent;
+import com.url_shortner.project.service.clicks.ClickEventQueue;
+import com.url_shortner.project.service.dedupe.DestinationHash;
+import com.url_shortner.project.service.shortcode.CustomCodeReservationService;
+import com.url_shortner.project.service.shortcode.ShortCodeService;
+import com.url_shortner.project.service.snapshot.LinkSnapshotService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,12 +32,15 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.dao.DataIntegrityViolationException;
 import com.url_shortner.project.entity.Role;
 import com.url_shortner.project.entity.UserEntity;
-import java.security.SecureRandom;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -39,76 +52,119 @@ import java.util.stream.Collectors;
 public class UrlServiceImpl implements UrlService {
 
     private final UrlRepository urlRepository;
-    private final com.url_shortner.project.repository.UserRepository userRepository;
+    private final UserLookupService userLookupService;
+    private final ShortCodeBloomFilter shortCodeBloomFilter;
+    private final LinkLookupService linkLookupService;
+    private final LinkSnapshotService linkSnapshotService;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final ShortCodeService shortCodeService;
+    private final CustomCodeReservationService customCodeReservationService;
+    private final BulkShortenService bulkShortenService;
+    private final StreamingBulkShortenService streamingBulkShortenService;
+    private final ClickEventQueue clickEventQueue;
     private final Map<String, String> urlCache = new ConcurrentHashMap<>();
 
     // 📊 METRICS COUNTERS
     private final AtomicInteger cacheHits = new AtomicInteger(0);
     private final AtomicInteger cacheMisses = new AtomicInteger(0);
 
-    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    private final SecureRandom random = new SecureRandom();
-
-    @Autowired
-    private StringRedisTemplate redisStatsTemplate;
+    // Generated codes that hit an existing short_code before giving up
+    private static final int MAX_GENERATED_CODE_ATTEMPTS = 3;
 
     @Value("${app.base-url:http://localhost:8080/}")
     private String baseUrl;
 
+    // Not @Transactional: after a unique violation Postgres aborts the
+    // transaction, and the fallback below still has to query
     @Override
-    @Transactional
     public UrlResponseDto shortenUrl(UrlRequestDto request, Long userId) {
-        System.out.println("request: " + request + " userId: " + userId);
         if (request == null || request.getUrl() == null || request.getUrl().trim().isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "URL cannot be empty");
         }
 
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+        // Cached existence check; the link only needs the user's id as FK
+        userLookupService.findUser(userId);
+        UserEntity user = userLookupService.reference(userId);
+
+        // Same plain URL for the same user again: hand back the existing link
+        String urlHash = DestinationHash.ofPlainRequest(request);
+        if (urlHash != null) {
+            Optional<UrlEntity> existing = readYourWritesTracker.readForUser(userId,
+                    () -> urlRepository.findByUserAndUrlHash(user, urlHash));
+            if (existing.isPresent()) {
+                return toResponse(existing.get());
+            }
+        }
 
         String code = request.getCustomCode();
-        if (code != null && !code.trim().isEmpty()) {
-            if (urlRepository.findByShortCode(code).isPresent()) {
-                throw new ResponseStatusException(HttpStatus.CONFLICT, "Custom code already exists");
+        boolean custom = code != null && !code.trim().isEmpty();
+        if (custom) {
+            if (!CustomCodeReservationService.isValid(code)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Custom code must be at most " + CustomCodeReservationService.MAX_CODE_LENGTH + " characters");
+            }
+            // Atomic hold instead of SELECT-then-INSERT; the unique index on insert has the final say
+            if (!customCodeReservationService.reserve(code, userId)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Custom code is reserved by another user");
             }
         } else {
-            code = generateUniqueCode();
+            code = shortCodeService.nextCode();
         }
 
-        UrlEntity entity = UrlEntity.builder()
-                .originalUrl(request.getUrl())
-                .shortCode(code)
-                .visits(0L)
-                .user(user)
-                .isActive(true)
-                .customCode(request.getCustomCode())
-                .expiryDate(request.getExpiryDate())
-                .password(request.getPassword())
-                .build();
-
-        log.debug("Generated entity: {}", entity);
-
+        int attempts = 0;
         try {
-            UrlEntity savedEntity = urlRepository.save(entity);
-
-            return UrlResponseDto.builder()
-                    .originalUrl(savedEntity.getOriginalUrl())
-                    .shortCode(savedEntity.getShortCode())
-                    .shortUrl(baseUrl + savedEntity.getShortCode())
-                    .build();
-
-        } catch (DataIntegrityViolationException e) {
-            log.warn("Race condition detected for URL: {}. Fetching existing record.", request.getUrl());
-            // Fallback: try to find the existing one again
-            return urlRepository.findByOriginalUrl(request.getUrl())
-                    .map(existing -> UrlResponseDto.builder()
-                            .originalUrl(existing.getOriginalUrl())
-                            .shortCode(existing.getShortCode())
-                            .shortUrl(baseUrl + "redirect?code=" + existing.getShortCode())
-                            .build())
-                    .orElseThrow(() -> new ResponseStatusException(
-                            HttpStatus.INTERNAL_SERVER_ERROR,
-                            "Unexpected error while saving URL"));
+            while (true) {
+                UrlEntity entity = UrlEntity.builder()
+                        .originalUrl(request.getUrl())
+                        .shortCode(code)
+                        .visits(0L)
+                        .user(user)
+                        .isActive(true)
+                        .customCode(request.getCustomCode())
+                        .expiryDate(request.getExpiryDate())
+                        .password(request.getPassword())
+                        .urlHash(urlHash)
+                        .build();
+
+                try {
+                    UrlEntity savedEntity = urlRepository.save(entity);
+                    shortCodeBloomFilter.add(savedEntity.getShortCode());
+                    linkSnapshotService.record(savedEntity.getShortCode(),
+                            LinkLookupService.toResolvedLink(savedEntity));
+                    readYourWritesTracker.recordWrite(userId, savedEntity.getShortCode());
+                    if (custom) {
+                        // The link holds the code now. Only released on success: on failure this
+                        // may be the user's own campaign reservation, which must survive a retry
+                        customCodeReservationService.release(code, userId);
+                    }
+
+                    return toResponse(savedEntity);
+
+                } catch (DataIntegrityViolationException e) {
+                    if (custom) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, "Custom code already exists");
+                    }
+                    if (urlHash != null) {
+                        // A concurrent request may have created it first (idx_user_url_hash); read it back from the primary
+                        Optional<UrlEntity> existing = DataSourceRouting
+                                .onPrimary(() -> urlRepository.findByUserAndUrlHash(user, urlHash));
+                        if (existing.isPresent()) {
+                            log.warn("Race condition detected for URL: {}. Returning existing record.",
+                                    request.getUrl());
+                            return toResponse(existing.get());
+                        }
+                    }
+                    // Otherwise the generated code itself was taken (idx_short_code): try a fresh one
+                    if (++attempts >= MAX_GENERATED_CODE_ATTEMPTS) {
+                        throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR,
+                                "Unexpected error while saving URL");
+                    }
+                    log.warn("Generated short code {} is already taken, retrying with a fresh code", code);
+                    code = shortCodeService.nextCode();
+                }
+            }
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error creating short URL", e);
             throw new ResponseStatusException(
@@ -119,59 +175,39 @@ public class UrlServiceImpl implements UrlService {
     }
 
     @Override
-    @Transactional
-    @Cacheable(value = "urls", key = "#shortCode")
-    public String getOriginalUrl(String shortCode, String password) {
-        log.debug("Fetching URL for code: {}", shortCode, password);
-
-        System.out.println("🐢 Cache Miss! Fetching from Database for: " +
-                shortCode);
-
-        UrlEntity entity = urlRepository.findByShortCode(shortCode)
-                .orElse(null);
+    public ResolvedLink getOriginalUrl(String shortCode, String password) {
+        log.debug("Fetching URL for code: {}", shortCode);
+
+        // Off-heap snapshot first (when enabled), then the L1/L2 cache.
+        // The checks below run on every hit either way.
+        ResolvedLink link = linkSnapshotService.find(shortCode);
+        if (link == null) {
+            link = linkLookupService.findLink(shortCode);
+        }
 
-        if (entity == null) {
+        if (link == null) {
             return null;
         }
 
-        log.debug("Entity get password " + entity.getPassword());
-        if (entity.getPassword() != null) {
-            if (!entity.getPassword().equals(password)) {
-                throw new RuntimeException("Not able to access, Password not matching: " + shortCode);
-            }
+        if (!link.matchesPassword(password)) {
+            throw new RuntimeException("Not able to access, Password not matching: " + shortCode);
         }
-        if (!entity.isActive()) {
+        if (!link.active()) {
             throw new RuntimeException("URL not found for code: " + shortCode);
         }
 
-        if (entity.getExpiryDate() != null) {
-            if (entity.getExpiryDate().isBefore(LocalDateTime.now())) {
-                throw new ResponseStatusException(HttpStatus.GONE, "URL has expired");
-            }
+        if (link.isExpired(System.currentTimeMillis())) {
+            throw new ResponseStatusException(HttpStatus.GONE, "URL has expired");
         }
 
-        // urlCache.put(shortCode, entity.getOriginalUrl());
-
-        // if (entity.getVisits() == null) {
-        // entity.setVisits(1L);
-        // } else {
-        // System.out.println("get visits "+ entity.getVisits());
-        // entity.setVisits(entity.getVisits() + 1);
-        // }
-        // entity.setLast_accessed_at(LocalDateTime.now());
-        // urlRepository.save(entity);
-
-        return entity.getOriginalUrl();
+        return link;
     }
 
-    // This method handles the FAST write (Redis)
+    // This method handles the FAST write: only queued here; the click writer
+    // feeds the counters ("visits:abc12" + the "dirty_urls" set) off-thread
     @Override
-    public void incrementVisit(String shortCode) {
-        // 1. Increment the counter in Redis (Key: "visits:abc12")
-        redisStatsTemplate.opsForValue().increment("visits:" + shortCode);
-
-        // 2. Add to a "Dirty Set" so we know WHICH keys changed
-        redisStatsTemplate.opsForSet().add("dirty_urls", shortCode);
+    public void incrementVisit(ClickEvent click) {
+        clickEventQueue.offer(click);
     }
 
     // Helper to print stats
@@ -196,78 +232,72 @@ public class UrlServiceImpl implements UrlService {
 
     @Override
     @Transactional
+    @CacheEvict(value = "links", key = "#shortCode")
     public void deleteUrl(String shortCode, Long userId) {
         log.debug("Deleting URL with code: {}", shortCode);
 
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        userLookupService.findUser(userId);
 
         UrlEntity entity = urlRepository.findByShortCode(shortCode)
                 .orElseThrow(() -> new RuntimeException("URL not found"));
 
-        if (!entity.getUser().getId().equals(user.getId())) {
+        if (!entity.getUser().getId().equals(userId)) {
             throw new RuntimeException("User is not authorized to delete this URL");
         }
         entity.setActive(false);
+        // A deleted link must not be handed out again for the same URL
+        entity.setUrlHash(null);
         urlRepository.save(entity);
+        linkSnapshotService.recordAfterCommit(shortCode, LinkLookupService.toResolvedLink(entity));
+        readYourWritesTracker.recordWrite(userId, shortCode);
     }
 
-    private String generateUniqueCode() {
-        String code;
-        do {
-            code = generateRandomString(6);
-        } while (urlRepository.findByShortCode(code).isPresent());
-        return code;
-    }
+    @Override
+    public List<BatchUrlResponseDto> shortenBatch(BatchUrlRequestDto request, Long userId) {
+
+        UserEntity user = findEnterpriseUser(userId);
 
-    private String generateRandomString(int length) {
-        StringBuilder sb = new StringBuilder(length);
-        for (int i = 0; i < length; i++) {
-            sb.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        List<UrlRequestDto> requests = new ArrayList<>(request.getUrls().size());
+        for (String url : request.getUrls()) {
+            UrlRequestDto singleRequest = new UrlRequestDto();
+            singleRequest.setUrl(url);
+            requests.add(singleRequest);
         }
-        return sb.toString();
+        return bulkShortenService.shorten(user, requests);
     }
 
     @Override
-    public List<BatchUrlResponseDto> shortenBatch(BatchUrlRequestDto request, Long userId) {
+    public void shortenStream(Reader body, boolean csv, Writer out, Long userId) throws IOException {
+        // Checked before anything is written, so a 401/403 is still a normal error response
+        UserEntity user = findEnterpriseUser(userId);
+        streamingBulkShortenService.shorten(user, body, csv, out);
+    }
 
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+    private UrlResponseDto toResponse(UrlEntity entity) {
+        return UrlResponseDto.builder()
+                .originalUrl(entity.getOriginalUrl())
+                .shortCode(entity.getShortCode())
+                .shortUrl(baseUrl + entity.getShortCode())
+                .build();
+    }
 
-        if (!user.getRoles().contains(Role.ENTERPRISE)) {
+    private UserEntity findEnterpriseUser(Long userId) {
+        if (!userLookupService.findUser(userId).hasRole(Role.ENTERPRISE)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied: Enterprise role required");
         }
-
-        List<BatchUrlResponseDto> responseList = new ArrayList<>();
-
-        for (String url : request.getUrls()) {
-            try {
-                UrlRequestDto singleRequest = new UrlRequestDto();
-                singleRequest.setUrl(url);
-
-                UrlResponseDto singleResponse = shortenUrl(singleRequest, userId);
-
-                responseList.add(BatchUrlResponseDto.builder()
-                        .originalUrl(url)
-                        .shortUrl(singleResponse.getShortUrl())
-                        .status("SUCCESS")
-                        .build());
-
-            } catch (Exception e) {
-                responseList.add(BatchUrlResponseDto.builder()
-                        .originalUrl(url)
-                        .error(e.getMessage())
-                        .status("FAILURE")
-                        .build());
-            }
-        }
-        return responseList;
+        return userLookupService.reference(userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public PageResponseDto<UrlResponseDto> getUrlsByUserId(Long userId, int pageNo, int pageSize) {
-        UserEntity user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+        // Replica, unless this user just created/edited a link
+        return readYourWritesTracker.readForUser(userId, () -> findUrlsByUserId(userId, pageNo, pageSize));
+    }
+
+    private PageResponseDto<UrlResponseDto> findUrlsByUserId(Long userId, int pageNo, int pageSize) {
+        userLookupService.findUser(userId);
+        UserEntity user = userLookupService.reference(userId);
         Pageable pageable = PageRequest.of(pageNo, pageSize, Sort.by("createdAt").descending());
 
         Page<UrlEntity> urls = urlRepository.findByUser(user, pageable);
@@ -292,7 +322,7 @@ public class UrlServiceImpl implements UrlService {
 
     @Override
     @Transactional
-    @CacheEvict(value = "urls", key = "#shortCode")
+    @CacheEvict(value = "links", key = "#shortCode")
     public UrlResponseDto editUrl(String shortCode, UrlRequestDto request, Long userId) {
         UrlEntity entity = urlRepository.findByShortCode(shortCode)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "URL not found"));
@@ -300,8 +330,12 @@ public class UrlServiceImpl implements UrlService {
         entity.setOriginalUrl(request.getUrl());
         // entity.setCustomCode(request.getCustomCode());
         entity.setExpiryDate(request.getExpiryDate());
+        // Edited links no longer stand for "the" link to a URL
+        entity.setUrlHash(null);
 
         UrlEntity updatedEntity = urlRepository.save(entity);
+        linkSnapshotService.recordAfterCommit(shortCode, LinkLookupService.toResolvedLink(updatedEntity));
+        readYourWritesTracker.recordWrite(userId, shortCode);
 
         return UrlResponseDto.builder()
                 .originalUrl(updatedEntity.getOriginalUrl())
@@ -0,0 +1,25 @@
+package com.url_shortner.project.service.imports;
+
+/**
+ * One unit of work of an import job: a byte range of the uploaded file that
+ * starts and ends on a line boundary.
+ *
+ * Sent over RabbitMQ as "jobId:index:offset:length:firstLine".
+ *
+ * @param firstLine 1-based line number of the first line in the range
+ */
+public record ImportChunk(long jobId, int index, long offset, long length, long firstLine) {
+
+    public String toMessage() {
+        return jobId + ":" + index + ":" + offset + ":" + length + ":" + firstLine;
+    }
+
+    public static ImportChunk parse(String message) {
+        String[] parts = message.split(":");
+        if (parts.length != 5) {
+            throw new IllegalArgumentException("Malformed import chunk message: " + message);
+        }
+        return new ImportChunk(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), Long.parseLong(parts[2]),
+                Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+    }
+}
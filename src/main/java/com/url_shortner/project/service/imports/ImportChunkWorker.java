@@ -0,0 +1,180 @@
+package com.url_shortner.project.service.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.url_shortner.project.config.RabbitMQConfig;
+import com.url_shortner.project.dto.BatchUrlResponseDto;
+import com.url_shortner.project.entity.ImportJobEntity;
+import com.url_shortner.project.entity.UserEntity;
+import com.url_shortner.project.repository.ImportJobRepository;
+import com.url_shortner.project.service.bulk.StreamingBulkShortenService;
+import com.url_shortner.project.service.bulk.StreamingBulkShortenService.ParsedLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Processes import chunks from the imports.chunks queue: reads the chunk's
+ * byte range, shortens its lines through the same path as
+ * POST /shorten/stream, writes the results file and adds the counts to the
+ * job.
+ *
+ * Whether a chunk has been counted is tracked in the database
+ * (ImportJobRepository.recordChunk), not by its results file, so a
+ * redelivered chunk is counted exactly once. If a worker died after writing
+ * the results file but before counting, the redelivery counts the chunk from
+ * that file instead of shortening its lines again.
+ */
+@Service
+@Slf4j
+public class ImportChunkWorker {
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportJobService importJobService;
+    private final StreamingBulkShortenService streamingBulkShortenService;
+    private final ObjectMapper objectMapper;
+
+    public ImportChunkWorker(ImportJobRepository importJobRepository, ImportJobService importJobService, StreamingBulkShortenService streamingBulkShortenService,
+            ObjectMapper objectMapper) {
+        this.importJobRepository = importJobRepository;
+        this.importJobService = importJobService;
+        this.streamingBulkShortenService = streamingBulkShortenService;
+        this.objectMapper = objectMapper;
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.QUEUE_IMPORT_CHUNKS, concurrency = "${app.import.worker-concurrency:4}")
+    public void processChunk(String message) {
+        ImportChunk chunk;
+        try {
+            chunk = ImportChunk.parse(message);
+        } catch (IllegalArgumentException e) {
+            log.warn("Dropping import chunk message: {}", e.getMessage());
+            return;
+        }
+        try {
+            processChunk(chunk);
+        } catch (RuntimeException e) {
+            // Requeueing would redeliver it forever; park it on imports.chunks.dlq instead
+            throw new AmqpRejectAndDontRequeueException(
+                    "Import job " + chunk.jobId() + " chunk " + chunk.index() + " could not be handled", e);
+        }
+    }
+
+    private void processChunk(ImportChunk chunk) {
+        ImportJobEntity job = importJobRepository.findById(chunk.jobId()).orElse(null);
+        if (job == null || !"RUNNING".equals(job.getStatus())) {
+            return;
+        }
+        try {
+            process(job, chunk);
+        } catch (Exception e) {
+            // Rows of this chunk may be half created; re-running it blindly would duplicate them
+            log.error("Import job {} chunk {} failed", chunk.jobId(), chunk.index(), e);
+            String error = "Chunk " + chunk.index() + " failed: " + e.getMessage();
+            importJobRepository.fail(chunk.jobId(), error.length() > ImportJobEntity.ERROR_LENGTH
+                    ? error.substring(0, ImportJobEntity.ERROR_LENGTH) : error, LocalDateTime.now());
+        }
+        importJobService.publishProgress(chunk.jobId());
+    }
+
+    void process(ImportJobEntity job, ImportChunk chunk) throws IOException {
+        if (importJobRepository.isChunkRecorded(job.getId(), chunk.index())) {
+            log.debug("Import job {} chunk {} was already counted", chunk.jobId(), chunk.index());
+            return;
+        }
+        String data = read(job, chunk);
+        Path resultFile = ImportJobService.resultFile(job, chunk.index());
+
+        List<String> statuses;
+        long lineCount;
+        if (Files.exists(resultFile)) {
+            // Shortened before a crash or redelivery, but never counted: count what was written
+            log.info("Import job {} chunk {} has results but was not counted; counting them", chunk.jobId(),
+                    chunk.index());
+            lineCount = data.lines().count();
+            statuses = readStatuses(resultFile);
+        } else {
+            // Lazy proxy: shortening only needs the owner's id
+            UserEntity user = job.getUser();
+
+            List<ParsedLine> lines = new ArrayList<>();
+            lineCount = 0;
+            try (BufferedReader reader = new BufferedReader(new StringReader(data))) {
+                String line;
+                long lineNumber = chunk.firstLine();
+                while ((line = reader.readLine()) != null) {
+                    lineCount++;
+                    boolean header = job.isCsv() && lineNumber == 1 && StreamingBulkShortenService.isCsvHeader(line);
+                    if (!line.isBlank() && !header) {
+                        lines.add(streamingBulkShortenService.parse(lineNumber, line, job.isCsv()));
+                    }
+                    lineNumber++;
+                }
+            }
+
+            List<BatchUrlResponseDto> results = lines.isEmpty() ? List.of()
+                    : streamingBulkShortenService.shortenLines(user, lines);
+            writeResults(resultFile, results);
+            statuses = results.stream().map(BatchUrlResponseDto::getStatus).toList();
+        }
+        long succeeded = statuses.stream().filter("SUCCESS"::equals).count();
+
+        if (importJobRepository.recordChunk(job.getId(), chunk.index(), lineCount, succeeded,
+                statuses.size() - succeeded, LocalDateTime.now()) == 0) {
+            log.debug("Import job {} chunk {} was counted concurrently", chunk.jobId(), chunk.index());
+        }
+        if (importJobRepository.completeIfDone(job.getId(), LocalDateTime.now()) == 1) {
+            log.info("Import job {} completed", job.getId());
+        }
+    }
+
+    // Write aside and move into place, so a results file is always complete
+    private void writeResults(Path resultFile, List<BatchUrlResponseDto> results) throws IOException {
+        Files.createDirectories(resultFile.getParent());
+        Path tmp = resultFile.resolveSibling(resultFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (BatchUrlResponseDto result : results) {
+                writer.write(objectMapper.writeValueAsString(result));
+                writer.write('\n');
+            }
+        }
+        Files.move(tmp, resultFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<String> readStatuses(Path resultFile) throws IOException {
+        List<String> statuses = new ArrayList<>();
+        for (String line : Files.readAllLines(resultFile, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                statuses.add(objectMapper.readTree(line).path("status").asText());
+            }
+        }
+        return statuses;
+    }
+
+    private static String read(ImportJobEntity job, ImportChunk chunk) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(chunk.length()));
+        try (FileChannel channel = FileChannel.open(Path.of(job.getFilePath()), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, chunk.offset() + buffer.position()) < 0) {
+                    throw new IOException("Import file " + job.getFilePath() + " is shorter than expected");
+                }
+            }
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+}
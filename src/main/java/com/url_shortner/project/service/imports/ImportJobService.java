@@ -0,0 +1,348 @@
+package com.url_shortner.project.service.imports;
+
+import com.url_shortner.project.config.RabbitMQConfig;
+import com.url_shortner.project.dto.ImportJobDto;
+import com.url_shortner.project.entity.ImportJobEntity;
+import com.url_shortner.project.entity.Role;
+import com.url_shortner.project.entity.UserEntity;
+import com.url_shortner.project.repository.ImportJobRepository;
+import com.url_shortner.project.service.UserLookupService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Asynchronous bulk imports: the upload is streamed to disk and split into
+ * line-aligned chunks, which {@link ImportChunkWorker}s process from the
+ * imports.chunks RabbitMQ queue. The request only lasts as long as the upload.
+ *
+ * Progress lives in import_jobs and can be polled, or long-polled like
+ * ImageStatusService: {@link #waitForProgress} parks a DeferredResult until
+ * the next chunk completes. Workers announce progress on a Redis channel, so
+ * a waiter is woken up whichever node did the work.
+ *
+ * Uploaded files and per-chunk results live under app.import.dir, which has
+ * to be shared storage when workers run on more than one node. Finished jobs
+ * are deleted, files and all, once they are older than app.import.retention.
+ */
+@Service
+@Slf4j
+public class ImportJobService implements MessageListener {
+
+    public static final String PROGRESS_CHANNEL = "import-jobs:progress";
+
+    private static final int CLEANUP_BATCH_SIZE = 100;
+
+    private final ImportJobRepository importJobRepository;
+    private final UserLookupService userLookupService;
+    private final RabbitTemplate rabbitTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final Map<Long, Set<DeferredResult<ImportJobDto>>> waiting = new ConcurrentHashMap<>();
+
+    @Value("${app.import.dir:data/imports}")
+    private Path importDir;
+
+    @Value("${app.import.chunk-lines:1000}")
+    private int chunkLines;
+
+    @Value("${app.import.long-poll-timeout:30s}")
+    private Duration longPollTimeout;
+
+    @Value("${app.import.retention:7d}")
+    private Duration retention;
+
+    public ImportJobService(ImportJobRepository importJobRepository, UserLookupService userLookupService,
+            RabbitTemplate rabbitTemplate, StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer listenerContainer) {
+        this.importJobRepository = importJobRepository;
+        this.userLookupService = userLookupService;
+        this.rabbitTemplate = rabbitTemplate;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(PROGRESS_CHANNEL));
+    }
+
+    /**
+     * Streams body to disk, then queues its chunks.
+     */
+    public ImportJobDto createJob(Long userId, InputStream body, boolean csv) throws IOException {
+        if (!userLookupService.findUser(userId).hasRole(Role.ENTERPRISE)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Access denied: Enterprise role required");
+        }
+        UserEntity user = userLookupService.reference(userId);
+
+        Files.createDirectories(importDir);
+        Path file = importDir.resolve(UUID.randomUUID() + (csv ? ".csv" : ".ndjson"));
+        ImportJobEntity job = importJobRepository.save(ImportJobEntity.builder()
+                .user(user)
+                .csv(csv)
+                .filePath(file.toString())
+                .build());
+
+        Upload upload;
+        try {
+            upload = upload(job.getId(), body, file);
+        } catch (IOException e) {
+            log.warn("Upload of import job {} failed: {}", job.getId(), e.getMessage());
+            Files.deleteIfExists(file);
+            job.setStatus("FAILED");
+            job.setError("Upload failed");
+            importJobRepository.save(job);
+            throw e;
+        }
+
+        List<ImportChunk> chunks = upload.chunks();
+        job.setTotalChunks(chunks.size());
+        job.setTotalLines(upload.lines());
+        job.setStatus(chunks.isEmpty() ? "COMPLETED" : "RUNNING");
+        if (chunks.isEmpty()) {
+            job.setCompletedAt(LocalDateTime.now());
+        }
+        importJobRepository.save(job);
+
+        for (ImportChunk chunk : chunks) {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE, RabbitMQConfig.ROUTING_KEY_IMPORT_CHUNK,
+                    chunk.toMessage());
+        }
+        log.info("Import job {} queued: {} lines in {} chunks", job.getId(), job.getTotalLines(), chunks.size());
+        return toDto(job);
+    }
+
+    /**
+     * Copies body to file, cutting it into chunks of chunk-lines lines at
+     * newline boundaries (so multi-byte characters are never split).
+     */
+    Upload upload(long jobId, InputStream body, Path file) throws IOException {
+        List<ImportChunk> chunks = new ArrayList<>();
+        long position = 0;
+        long chunkStart = 0;
+        long lines = 0;
+        int linesInChunk = 0;
+        byte last = '\n';
+        try (InputStream in = body; OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n' && ++linesInChunk == chunkLines) {
+                        long end = position + i + 1;
+                        chunks.add(new ImportChunk(jobId, chunks.size(), chunkStart, end - chunkStart, lines + 1));
+                        lines += linesInChunk;
+                        linesInChunk = 0;
+                        chunkStart = end;
+                    }
+                }
+                position += read;
+                last = buffer[read - 1];
+            }
+        }
+        if (position > chunkStart) {
+            chunks.add(new ImportChunk(jobId, chunks.size(), chunkStart, position - chunkStart, lines + 1));
+            lines += linesInChunk + (last == '\n' ? 0 : 1);
+        }
+        return new Upload(chunks, lines);
+    }
+
+    public ImportJobDto getJob(Long jobId, Long userId) {
+        return toDto(findOwnJob(jobId, userId));
+    }
+
+    /**
+     * Completes with the job's state once it has moved past seenProcessedLines
+     * (immediately if it already has, or the job is finished), or with the
+     * unchanged state after the long-poll timeout.
+     */
+    public DeferredResult<ImportJobDto> waitForProgress(Long jobId, Long userId, Long seenProcessedLines) {
+        ImportJobEntity job = findOwnJob(jobId, userId);
+        DeferredResult<ImportJobDto> output = new DeferredResult<>(longPollTimeout.toMillis());
+
+        Set<DeferredResult<ImportJobDto>> waiters = waiting.computeIfAbsent(jobId, id -> ConcurrentHashMap.newKeySet());
+        waiters.add(output);
+        output.onCompletion(() -> removeWaiter(jobId, output));
+        output.onTimeout(() -> output.setResult(toDto(importJobRepository.findById(jobId).orElse(job))));
+        output.onError(e -> removeWaiter(jobId, output));
+
+        // Check state after registering, so a chunk finishing in between isn't missed
+        ImportJobEntity current = importJobRepository.findById(jobId).orElse(job);
+        if (isFinished(current) || seenProcessedLines == null
+                || current.getProcessedLines() != seenProcessedLines) {
+            output.setResult(toDto(current));
+        }
+        return output;
+    }
+
+    /**
+     * Copies the results written so far (NDJSON, one line per input line,
+     * chunk by chunk in input order) to out.
+     */
+    public void writeResults(Long jobId, Long userId, OutputStream out) throws IOException {
+        Path resultDir = resultDir(findOwnJob(jobId, userId));
+        if (!Files.isDirectory(resultDir)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> list = Files.list(resultDir)) {
+            // Zero-padded chunk indexes: name order is input order
+            files = list.filter(path -> path.getFileName().toString().endsWith(".ndjson")).sorted().toList();
+        }
+        for (Path file : files) {
+            Files.copy(file, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Called by workers after a chunk is done; wakes up waiters on all nodes.
+     */
+    public void publishProgress(long jobId) {
+        try {
+            redisTemplate.convertAndSend(PROGRESS_CHANNEL, Long.toString(jobId));
+        } catch (Exception e) {
+            // Waiters still return on their timeout
+            log.warn("Failed to publish progress of import job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        long jobId;
+        try {
+            jobId = Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        Set<DeferredResult<ImportJobDto>> waiters = waiting.remove(jobId);
+        if (waiters == null || waiters.isEmpty()) {
+            return;
+        }
+        importJobRepository.findById(jobId).map(ImportJobService::toDto).ifPresent(dto -> {
+            for (DeferredResult<ImportJobDto> waiter : waiters) {
+                waiter.setResult(dto);
+            }
+        });
+    }
+
+    /**
+     * Deletes finished jobs older than the retention: the upload, its results
+     * directory and the job's rows. Files go first, so a job whose files could
+     * not be deleted is retried on the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.import.cleanup-interval-ms:3600000}",
+            initialDelayString = "${app.import.cleanup-interval-ms:3600000}")
+    public void cleanUpFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int deleted = 0;
+        List<ImportJobEntity> jobs;
+        try {
+            do {
+                jobs = importJobRepository.findFinishedBefore(cutoff, PageRequest.of(0, CLEANUP_BATCH_SIZE));
+                for (ImportJobEntity job : jobs) {
+                    deleteRecursively(resultDir(job));
+                    Files.deleteIfExists(Path.of(job.getFilePath()));
+                    importJobRepository.deleteJob(job.getId());
+                    deleted++;
+                }
+            } while (jobs.size() == CLEANUP_BATCH_SIZE);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Import job clean-up stopped after {} jobs: {}", deleted, e.getMessage());
+            return;
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} import jobs finished before {}", deleted, cutoff);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            // Deepest first, so each directory is empty by the time it is deleted
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static Path resultDir(ImportJobEntity job) {
+        return Path.of(job.getFilePath() + ".results");
+    }
+
+    static Path resultFile(ImportJobEntity job, int chunkIndex) {
+        return resultDir(job).resolve(String.format("chunk-%08d.ndjson", chunkIndex));
+    }
+
+    private ImportJobEntity findOwnJob(Long jobId, Long userId) {
+        ImportJobEntity job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import job not found"));
+        if (!job.getUser().getId().equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Import job not found");
+        }
+        return job;
+    }
+
+    private void removeWaiter(Long jobId, DeferredResult<ImportJobDto> output) {
+        waiting.computeIfPresent(jobId, (id, waiters) -> {
+            waiters.remove(output);
+            return waiters.isEmpty() ? null : waiters;
+        });
+    }
+
+    private static boolean isFinished(ImportJobEntity job) {
+        return "COMPLETED".equals(job.getStatus()) || "FAILED".equals(job.getStatus());
+    }
+
+    static ImportJobDto toDto(ImportJobEntity job) {
+        return ImportJobDto.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .totalLines(job.getTotalLines())
+                .processedLines(job.getProcessedLines())
+                .succeeded(job.getSucceeded())
+                .failed(job.getFailed())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+
+    record Upload(List<ImportChunk> chunks, long lines) {
+    }
+}
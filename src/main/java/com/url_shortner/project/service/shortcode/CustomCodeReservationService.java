@@ -0,0 +1,179 @@
+package com.url_shortner.project.service.shortcode;
+
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Custom (vanity) code reservations and availability checks.
+ *
+ * A reservation is a Redis key shortcode:reserved:{code} holding the owner's
+ * user id, set with NX and a TTL, so only one user can hold a code at a
+ * time and abandoned reservations expire. It only guards the window until
+ * the link is inserted; the unique index on short_code stays the authority.
+ *
+ * Availability of many codes is answered with the Bloom filter (codes it
+ * has never seen are free in the DB), one IN query for the rest, and one
+ * MGET for reservations.
+ */
+@Service
+@Slf4j
+public class CustomCodeReservationService {
+
+    public static final int MAX_CODE_LENGTH = 10; // urls.short_code length
+
+    static final String RESERVATION_PREFIX = "shortcode:reserved:";
+
+    // Reserves for ARGV[1], or extends ARGV[1]'s own reservation; 1 if ARGV[1] holds it now
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('GET', KEYS[1])\n" +
+                    "if not owner then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end\n" +
+                    "if owner == ARGV[1] then redis.call('PEXPIRE', KEYS[1], ARGV[2]) return 1 end\n" +
+                    "return 0",
+            Long.class);
+
+    // Deletes only our own reservation
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end\n" +
+                    "return 0",
+            Long.class);
+
+    public enum Availability {
+        AVAILABLE, TAKEN, RESERVED, INVALID
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final UrlRepository urlRepository;
+    private final ShortCodeBloomFilter shortCodeBloomFilter;
+
+    @Value("${app.short-code.reservation.ttl:15m}")
+    private Duration reservationTtl;
+
+    public CustomCodeReservationService(StringRedisTemplate redisTemplate, UrlRepository urlRepository,
+            ShortCodeBloomFilter shortCodeBloomFilter) {
+        this.redisTemplate = redisTemplate;
+        this.urlRepository = urlRepository;
+        this.shortCodeBloomFilter = shortCodeBloomFilter;
+    }
+
+    /**
+     * @return false if another user holds the code. If Redis is unavailable
+     *         this answers true and leaves it to the unique index.
+     */
+    public boolean reserve(String code, Long userId) {
+        try {
+            Long result = redisTemplate.execute(RESERVE_SCRIPT, List.of(RESERVATION_PREFIX + code),
+                    userId.toString(), Long.toString(reservationTtl.toMillis()));
+            return result == null || result == 1L;
+        } catch (Exception e) {
+            log.warn("Could not reserve custom code {}: {}", code, e.getMessage());
+            return true;
+        }
+    }
+
+    public void release(String code, Long userId) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(RESERVATION_PREFIX + code), userId.toString());
+        } catch (Exception e) {
+            // Expires by itself
+            log.debug("Could not release custom code {}: {}", code, e.getMessage());
+        }
+    }
+
+    /**
+     * Explicit reservation (campaign setup): fails if the code is invalid,
+     * already used, or held by someone else.
+     */
+    public Availability reserveIfAvailable(String code, Long userId) {
+        if (!isValid(code)) {
+            return Availability.INVALID;
+        }
+        if (shortCodeBloomFilter.mightExist(code) && !urlRepository.findExistingShortCodes(List.of(code)).isEmpty()) {
+            return Availability.TAKEN;
+        }
+        return reserve(code, userId) ? Availability.AVAILABLE : Availability.RESERVED;
+    }
+
+    public Duration getReservationTtl() {
+        return reservationTtl;
+    }
+
+    /**
+     * Availability of each code for userId (their own reservations count as
+     * available), in request order.
+     */
+    public Map<String, Availability> checkAvailability(Collection<String> codes, Long userId) {
+        Set<String> candidates = new LinkedHashSet<>();
+        for (String code : codes) {
+            if (isValid(code)) {
+                candidates.add(code);
+            }
+        }
+
+        // 1. Only codes the Bloom filter might know need the DB
+        List<String> maybeTaken = new ArrayList<>();
+        for (String code : candidates) {
+            if (shortCodeBloomFilter.mightExist(code)) {
+                maybeTaken.add(code);
+            }
+        }
+        Set<String> taken = maybeTaken.isEmpty() ? Set.of()
+                : new HashSet<>(urlRepository.findExistingShortCodes(maybeTaken));
+
+        // 2. Reservations by others
+        Set<String> reserved = reservedByOthers(candidates, userId);
+
+        Map<String, Availability> result = new LinkedHashMap<>();
+        for (String code : codes) {
+            result.put(code, !candidates.contains(code) ? Availability.INVALID
+                    : taken.contains(code) ? Availability.TAKEN
+                    : reserved.contains(code) ? Availability.RESERVED
+                    : Availability.AVAILABLE);
+        }
+        return result;
+    }
+
+    /**
+     * Which of these codes another user currently holds (one MGET).
+     */
+    public Set<String> reservedByOthers(Collection<String> codes, Long userId) {
+        if (codes.isEmpty()) {
+            return Set.of();
+        }
+        List<String> ordered = new ArrayList<>(codes);
+        List<String> owners;
+        try {
+            owners = redisTemplate.opsForValue().multiGet(ordered.stream().map(c -> RESERVATION_PREFIX + c).toList());
+        } catch (Exception e) {
+            log.warn("Could not read custom code reservations: {}", e.getMessage());
+            return Set.of();
+        }
+        Set<String> reserved = new HashSet<>();
+        for (int i = 0; owners != null && i < ordered.size(); i++) {
+            String owner = owners.get(i);
+            if (owner != null && !owner.equals(userId.toString())) {
+                reserved.add(ordered.get(i));
+            }
+        }
+        return reserved;
+    }
+
+    public static boolean isValid(String code) {
+        return code != null && !code.isBlank() && code.length() <= MAX_CODE_LENGTH;
+    }
+}
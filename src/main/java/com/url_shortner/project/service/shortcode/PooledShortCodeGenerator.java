@@ -0,0 +1,225 @@
+package com.url_shortner.project.service.shortcode;
+
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands out codes from a shared pool of pre-checked, unused codes kept in a
+ * Redis list, so creating a link costs one Redis round trip and no SELECT.
+ *
+ * Refill (in the background, one node at a time):
+ * 1. generate random candidates, skipping ones the Bloom filter already knows,
+ * 2. drop the ones that exist in the DB (one IN query per batch),
+ * 3. push the rest, deduplicated against the codes already pooled (a Redis
+ *    set mirrors the list contents).
+ *
+ * The pool is refilled up to target-size whenever it drops below
+ * low-water-mark. If it runs dry anyway, we fall back to the random
+ * generator for that request.
+ */
+@Component("pooledShortCodeGenerator")
+@Slf4j
+public class PooledShortCodeGenerator implements ShortCodeGenerator {
+
+    static final String POOL_KEY = "shortcode:pool";
+    static final String POOLED_SET_KEY = "shortcode:pool:members";
+    private static final String REFILL_LOCK_KEY = "shortcode:pool:refill-lock";
+
+    // Returns {remaining, code}; code is nil when the pool is empty
+    private static final RedisScript<List> POP_SCRIPT = new DefaultRedisScript<>(
+            "local code = redis.call('LPOP', KEYS[1])\n" +
+                    "if code then redis.call('SREM', KEYS[2], code) end\n" +
+                    "return {redis.call('LLEN', KEYS[1]), code}",
+            List.class);
+
+    // Pops up to ARGV[1] codes at once; returns {remaining, code...}
+    private static final RedisScript<List> POP_MANY_SCRIPT = new DefaultRedisScript<>(
+            "local codes = redis.call('LPOP', KEYS[1], ARGV[1]) or {}\n" +
+                    "if #codes > 0 then redis.call('SREM', KEYS[2], unpack(codes)) end\n" +
+                    "local result = {redis.call('LLEN', KEYS[1])}\n" +
+                    "for _, code in ipairs(codes) do table.insert(result, code) end\n" +
+                    "return result",
+            List.class);
+
+    // Pushes only codes that aren't pooled already; returns how many were added
+    private static final RedisScript<Long> PUSH_SCRIPT = new DefaultRedisScript<>(
+            "local added = 0\n" +
+                    "for _, code in ipairs(ARGV) do\n" +
+                    "  if redis.call('SADD', KEYS[2], code) == 1 then\n" +
+                    "    redis.call('RPUSH', KEYS[1], code)\n" +
+                    "    added = added + 1\n" +
+                    "  end\n" +
+                    "end\n" +
+                    "return added",
+            Long.class);
+
+    // A code popped from the pool can have been taken as a custom code since
+    private static final int MAX_POP_ATTEMPTS = 3;
+    private static final int MAX_POP_MANY = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final UrlRepository urlRepository;
+    private final ShortCodeBloomFilter shortCodeBloomFilter;
+    private final RandomShortCodeGenerator randomShortCodeGenerator;
+    private final ExecutorService blockingTaskExecutor;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicBoolean refilling = new AtomicBoolean(false);
+
+    @Value("${app.short-code.pool.low-water-mark:2000}")
+    private long lowWaterMark;
+
+    @Value("${app.short-code.pool.target-size:10000}")
+    private long targetSize;
+
+    @Value("${app.short-code.pool.refill-batch-size:1000}")
+    private int refillBatchSize;
+
+    public PooledShortCodeGenerator(StringRedisTemplate redisTemplate, UrlRepository urlRepository,
+            ShortCodeBloomFilter shortCodeBloomFilter, RandomShortCodeGenerator randomShortCodeGenerator,
+            @Qualifier("blockingTaskExecutor") ExecutorService blockingTaskExecutor) {
+        this.redisTemplate = redisTemplate;
+        this.urlRepository = urlRepository;
+        this.shortCodeBloomFilter = shortCodeBloomFilter;
+        this.randomShortCodeGenerator = randomShortCodeGenerator;
+        this.blockingTaskExecutor = blockingTaskExecutor;
+    }
+
+    @Override
+    public String nextCode() {
+        for (int attempt = 0; attempt < MAX_POP_ATTEMPTS; attempt++) {
+            List<?> result = redisTemplate.execute(POP_SCRIPT, List.of(POOL_KEY, POOLED_SET_KEY));
+            long remaining = result == null || result.isEmpty() ? 0 : ((Number) result.get(0)).longValue();
+            if (remaining < lowWaterMark) {
+                refillAsync();
+            }
+            String code = result == null || result.size() < 2 ? null : (String) result.get(1);
+            if (code == null) {
+                break;
+            }
+            if (!isKnownCode(code)) {
+                return code;
+            }
+        }
+        log.warn("Short code pool is empty, generating a code inline");
+        return randomShortCodeGenerator.nextCode();
+    }
+
+    @Override
+    public List<String> nextCodes(int count) {
+        List<String> codes = new ArrayList<>(count);
+        // unpack() is limited by the Lua stack, so pop in bounded slices
+        while (codes.size() < count) {
+            int wanted = Math.min(count - codes.size(), MAX_POP_MANY);
+            List<?> result = redisTemplate.execute(POP_MANY_SCRIPT, List.of(POOL_KEY, POOLED_SET_KEY),
+                    String.valueOf(wanted));
+            long remaining = result == null || result.isEmpty() ? 0 : ((Number) result.get(0)).longValue();
+            if (remaining < lowWaterMark) {
+                refillAsync();
+            }
+            int popped = result == null ? 0 : result.size() - 1;
+            for (int i = 1; i <= popped; i++) {
+                String code = (String) result.get(i);
+                if (!isKnownCode(code)) {
+                    codes.add(code);
+                }
+            }
+            if (popped < wanted) {
+                break; // Pool ran dry
+            }
+        }
+        if (codes.size() < count) {
+            log.warn("Short code pool short by {} codes, generating them inline", count - codes.size());
+            codes.addAll(randomShortCodeGenerator.nextCodes(count - codes.size()));
+        }
+        return codes;
+    }
+
+    @Override
+    public void replenish() {
+        Long size = redisTemplate.opsForList().size(POOL_KEY);
+        if (size == null || size < lowWaterMark) {
+            refillAsync();
+        }
+    }
+
+    private void refillAsync() {
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            blockingTaskExecutor.execute(() -> {
+                try {
+                    refill();
+                } catch (Exception e) {
+                    log.warn("Short code pool refill failed: {}", e.getMessage());
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling.set(false);
+        }
+    }
+
+    void refill() {
+        // One node refills at a time; the others keep consuming
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(REFILL_LOCK_KEY, nodeId, Duration.ofSeconds(30));
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            Long size = redisTemplate.opsForList().size(POOL_KEY);
+            long poolSize = size == null ? 0 : size;
+            long added = 0;
+            while (poolSize < targetSize) {
+                Set<String> candidates = new HashSet<>();
+                for (int i = 0; i < refillBatchSize * 2 && candidates.size() < refillBatchSize; i++) {
+                    String candidate = randomShortCodeGenerator.randomCode();
+                    if (!isKnownCode(candidate)) {
+                        candidates.add(candidate);
+                    }
+                }
+                candidates.removeAll(urlRepository.findExistingShortCodes(candidates));
+                Long pushed = candidates.isEmpty() ? Long.valueOf(0)
+                        : redisTemplate.execute(PUSH_SCRIPT, List.of(POOL_KEY, POOLED_SET_KEY),
+                                candidates.toArray());
+                if (pushed == null || pushed == 0) {
+                    // Keyspace (nearly) exhausted: stop instead of spinning
+                    log.warn("Short code pool refill made no progress, stopping at size {}", poolSize);
+                    break;
+                }
+                poolSize += pushed;
+                added += pushed;
+            }
+            log.info("Short code pool refilled with {} codes (size {})", added, poolSize);
+        } finally {
+            // Only release our own lock (it may have expired and been taken by another node)
+            if (nodeId.equals(redisTemplate.opsForValue().get(REFILL_LOCK_KEY))) {
+                redisTemplate.delete(REFILL_LOCK_KEY);
+            }
+        }
+    }
+
+    // False positives only cost us a candidate
+    private boolean isKnownCode(String code) {
+        return shortCodeBloomFilter.isReady() && shortCodeBloomFilter.mightExist(code);
+    }
+}
@@ -0,0 +1,64 @@
+package com.url_shortner.project.service.shortcode;
+
+import com.url_shortner.project.repository.UrlRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Random 6-character code, retried until findByShortCode finds no match.
+ * One SELECT per new link (more as the keyspace fills up).
+ */
+@Component("randomShortCodeGenerator")
+@RequiredArgsConstructor
+public class RandomShortCodeGenerator implements ShortCodeGenerator {
+
+    static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    static final int CODE_LENGTH = 6;
+
+    private final UrlRepository urlRepository;
+    private final SecureRandom random = new SecureRandom();
+
+    @Override
+    public String nextCode() {
+        String code;
+        do {
+            code = randomCode();
+        } while (urlRepository.findByShortCode(code).isPresent());
+        return code;
+    }
+
+    // One IN query per round instead of one SELECT per code
+    @Override
+    public List<String> nextCodes(int count) {
+        Set<String> codes = new LinkedHashSet<>(count);
+        while (codes.size() < count) {
+            Set<String> candidates = new LinkedHashSet<>();
+            while (candidates.size() < count - codes.size()) {
+                String candidate = randomCode();
+                if (!codes.contains(candidate)) {
+                    candidates.add(candidate);
+                }
+            }
+            candidates.removeAll(urlRepository.findExistingShortCodes(candidates));
+            codes.addAll(candidates);
+        }
+        return new ArrayList<>(codes);
+    }
+
+    /**
+     * A random code without any existence check.
+     */
+    public String randomCode() {
+        StringBuilder sb = new StringBuilder(CODE_LENGTH);
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            sb.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,168 @@
+package com.url_shortner.project.service.shortcode;
+
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collision-free codes from a global counter, without per-code coordination.
+ *
+ * Each node leases a block of ids at a time with one Redis INCRBY (hi/lo),
+ * then hands them out locally. Every id maps to a distinct fixed-width
+ * base62 code, so there is no existence check. With a scramble key set, ids
+ * are first run through a keyed Feistel permutation of [0, 62^width), so
+ * consecutive ids don't produce guessable neighbouring codes. Each round gets
+ * its own 64-bit key taken from a SHA-256 of the scramble key.
+ *
+ * The counter lives in Redis, so Redis must be persistent (AOF) for this
+ * strategy: a counter reset would re-issue codes. The unique index on
+ * short_code still rejects those, and codes the Bloom filter already knows
+ * (e.g. an equal custom code) are skipped.
+ */
+@Component("sequenceShortCodeGenerator")
+@Slf4j
+public class SequenceShortCodeGenerator implements ShortCodeGenerator {
+
+    static final String SEQUENCE_KEY = "shortcode:sequence";
+
+    private static final String ALPHABET = RandomShortCodeGenerator.CHARACTERS;
+    // One 64-bit round key per 8 bytes of SHA-256
+    private static final int FEISTEL_ROUNDS = 4;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ShortCodeBloomFilter shortCodeBloomFilter;
+    private final long blockSize;
+    private final int width;
+    private final long keyspace;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys;
+    private final boolean scramble;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextId = 1;
+    private long blockEnd = 0;
+
+    public SequenceShortCodeGenerator(StringRedisTemplate redisTemplate, ShortCodeBloomFilter shortCodeBloomFilter,
+            @Value("${app.short-code.sequence.block-size:10000}") long blockSize,
+            @Value("${app.short-code.sequence.width:7}") int width,
+            @Value("${app.short-code.sequence.scramble-key:}") String scrambleKey) {
+        if (width < 2 || width > 10) {
+            // 10 is the shortCode column length; 62^10 still fits in a long
+            throw new IllegalArgumentException("app.short-code.sequence.width must be between 2 and 10");
+        }
+        this.redisTemplate = redisTemplate;
+        this.shortCodeBloomFilter = shortCodeBloomFilter;
+        this.blockSize = blockSize;
+        this.width = width;
+
+        long space = 1;
+        for (int i = 0; i < width; i++) {
+            space *= ALPHABET.length();
+        }
+        this.keyspace = space;
+
+        // Smallest even number of bits covering the keyspace (balanced Feistel halves)
+        int bits = 64 - Long.numberOfLeadingZeros(space - 1);
+        bits += bits & 1;
+        this.halfBits = bits / 2;
+        this.halfMask = (1L << halfBits) - 1;
+
+        this.scramble = scrambleKey != null && !scrambleKey.isBlank();
+        this.roundKeys = scramble ? deriveRoundKeys(scrambleKey) : new long[FEISTEL_ROUNDS];
+    }
+
+    @Override
+    public String nextCode() {
+        while (true) {
+            String code = encode(nextId());
+            if (!(shortCodeBloomFilter.isReady() && shortCodeBloomFilter.mightExist(code))) {
+                return code;
+            }
+            log.debug("Skipping sequence code {} (already taken)", code);
+        }
+    }
+
+    /**
+     * Fixed-width base62 code for an id in [0, 62^width).
+     */
+    String encode(long id) {
+        long value = scramble ? permute(id) : id;
+        char[] chars = new char[width];
+        for (int i = width - 1; i >= 0; i--) {
+            chars[i] = ALPHABET.charAt((int) (value % ALPHABET.length()));
+            value /= ALPHABET.length();
+        }
+        return new String(chars);
+    }
+
+    private long nextId() {
+        lock.lock();
+        try {
+            if (nextId > blockEnd) {
+                Long end = redisTemplate.opsForValue().increment(SEQUENCE_KEY, blockSize);
+                if (end == null) {
+                    throw new IllegalStateException("Could not lease a short code id block");
+                }
+                blockEnd = end;
+                nextId = end - blockSize + 1;
+                log.debug("Leased short code ids {}..{}", nextId, blockEnd);
+            }
+            if (nextId >= keyspace) {
+                throw new IllegalStateException("Short code keyspace of width " + width + " is exhausted");
+            }
+            return nextId++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Feistel permutation of [0, 2^(2*halfBits)), cycle-walked into [0, keyspace)
+    private long permute(long id) {
+        long value = id;
+        do {
+            value = feistel(value);
+        } while (value >= keyspace);
+        return value;
+    }
+
+    private long feistel(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int round = 0; round < FEISTEL_ROUNDS; round++) {
+            long next = left ^ (mix(right ^ roundKeys[round]) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private static long[] deriveRoundKeys(String scrambleKey) {
+        try {
+            ByteBuffer digest = ByteBuffer.wrap(MessageDigest.getInstance("SHA-256")
+                    .digest(scrambleKey.getBytes(StandardCharsets.UTF_8)));
+            long[] keys = new long[FEISTEL_ROUNDS];
+            for (int round = 0; round < FEISTEL_ROUNDS; round++) {
+                keys[round] = digest.getLong();
+            }
+            return keys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
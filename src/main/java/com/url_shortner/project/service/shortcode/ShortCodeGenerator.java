@@ -0,0 +1,35 @@
+package com.url_shortner.project.service.shortcode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Produces short codes for new links. Implementations are selected by bean
+ * name with app.short-code.strategy (see {@link ShortCodeService}).
+ */
+public interface ShortCodeGenerator {
+
+    /**
+     * Returns a code that is not used by any existing link.
+     */
+    String nextCode();
+
+    /**
+     * Allocates codes for a bulk insert; implementations override this when
+     * they can do better than one {@link #nextCode()} per code.
+     */
+    default List<String> nextCodes(int count) {
+        List<String> codes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            codes.add(nextCode());
+        }
+        return codes;
+    }
+
+    /**
+     * Called periodically so that generators can top up whatever they keep
+     * ready in the background. Must not block for long.
+     */
+    default void replenish() {
+    }
+}
@@ -0,0 +1,48 @@
+package com.url_shortner.project.service.shortcode;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ShortCodeService {
+
+    private final Map<String, ShortCodeGenerator> generators;
+
+    @Value("${app.short-code.strategy:randomShortCodeGenerator}")
+    private String activeGeneratorName;
+
+    public String nextCode() {
+        return getActiveGenerator().nextCode();
+    }
+
+    public List<String> nextCodes(int count) {
+        return getActiveGenerator().nextCodes(count);
+    }
+
+    @Scheduled(fixedDelayString = "${app.short-code.replenish-interval-ms:5000}")
+    public void replenish() {
+        try {
+            getActiveGenerator().replenish();
+        } catch (Exception e) {
+            log.warn("Short code generator {} failed to replenish: {}", activeGeneratorName, e.getMessage());
+        }
+    }
+
+    private ShortCodeGenerator getActiveGenerator() {
+        ShortCodeGenerator generator = generators.get(activeGeneratorName);
+        if (generator == null) {
+            log.warn("Short code strategy {} not found, defaulting to randomShortCodeGenerator",
+                    activeGeneratorName);
+            generator = generators.get("randomShortCodeGenerator");
+        }
+        return generator;
+    }
+}
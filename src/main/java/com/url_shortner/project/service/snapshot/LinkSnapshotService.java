@@ -0,0 +1,275 @@
+package com.url_shortner.project.service.snapshot;
+
+import com.url_shortner.project.cache.CacheInvalidationPublisher;
+import com.url_shortner.project.dto.ResolvedLink;
+import com.url_shortner.project.entity.UrlEntity;
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.LinkLookupService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional off-heap snapshot of the whole urls table
+ * ({@code app.snapshot.enabled=true}).
+ *
+ * Lookups check, in order:
+ * 1. an on-heap overlay of links changed since the snapshot was taken
+ *    (shortenUrl / editUrl / deleteUrl on this node),
+ * 2. the memory-mapped {@link MappedLinkTable},
+ * and return null when the caller should fall back to the regular cache/DB
+ * path (unknown code, or a code changed on another node).
+ *
+ * The snapshot is re-exported periodically; on startup the previous file is
+ * mapped right away and rows updated since it was written are loaded into
+ * the overlay, so a restarted pod starts warm.
+ *
+ * Changes made on other nodes arrive as cache invalidations over pub/sub. In
+ * case one of those is lost, the same updated_at catch-up also runs every
+ * reconcile-interval-ms, so a stale snapshot entry is served for at most
+ * that long rather than until the next export.
+ */
+@Service
+@Slf4j
+public class LinkSnapshotService implements MessageListener {
+
+    // Marks a code that changed on another node: don't trust the snapshot for it
+    private static final ResolvedLink BYPASS = new ResolvedLink("", ResolvedLink.NO_EXPIRY, null, false,
+            ResolvedLink.RedirectType.TEMPORARY);
+
+    // Covers changes recorded just before an export started but committed after
+    private static final long OVERLAY_RETENTION_MARGIN_MS = 60_000;
+
+    private static final int EXPORT_PAGE_SIZE = 5_000;
+
+    private final UrlRepository urlRepository;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final CacheInvalidationPublisher cacheInvalidationPublisher;
+
+    @Value("${app.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.snapshot.path:data/links.snapshot}")
+    private String snapshotPath;
+
+    private volatile long lastReconcileAt;
+
+    private final Map<String, OverlayEntry> overlay = new ConcurrentHashMap<>();
+    private volatile MappedLinkTable table;
+    private volatile boolean bypassSnapshot = false;
+
+    public LinkSnapshotService(UrlRepository urlRepository, RedisMessageListenerContainer listenerContainer,
+            CacheInvalidationPublisher cacheInvalidationPublisher) {
+        this.urlRepository = urlRepository;
+        this.listenerContainer = listenerContainer;
+        this.cacheInvalidationPublisher = cacheInvalidationPublisher;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        lastReconcileAt = System.currentTimeMillis();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CacheInvalidationPublisher.CHANNEL));
+
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) {
+            log.info("[Snapshot] No snapshot at {} yet; first export will create it", path);
+            return;
+        }
+        try {
+            MappedLinkTable existing = MappedLinkTable.open(path);
+            // Catch up on everything that changed while we were down
+            LocalDateTime since = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(existing.getCreatedAtEpochMilli() - OVERLAY_RETENTION_MARGIN_MS),
+                    ZoneId.systemDefault());
+            long changed = loadChangedSince(since, System.currentTimeMillis());
+            table = existing;
+            log.info("[Snapshot] Mapped {} links from {} ({} changed since)", existing.getEntryCount(), path,
+                    changed);
+        } catch (Exception e) {
+            log.warn("[Snapshot] Could not load existing snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the link, or null if the caller should use the cache/DB path
+     */
+    public ResolvedLink find(String shortCode) {
+        if (!enabled) {
+            return null;
+        }
+        OverlayEntry entry = overlay.get(shortCode);
+        if (entry != null) {
+            return entry.link() == BYPASS ? null : entry.link();
+        }
+        MappedLinkTable current = table;
+        if (current == null || bypassSnapshot) {
+            return null;
+        }
+        return current.find(shortCode);
+    }
+
+    /**
+     * Records a link created or changed on this node since the last export.
+     */
+    public void record(String shortCode, ResolvedLink link) {
+        if (enabled) {
+            overlay.put(shortCode, new OverlayEntry(link, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Like {@link #record}, but when called inside a transaction only once it
+     * has committed, so a rolled-back edit is never served from the overlay.
+     */
+    public void recordAfterCommit(String shortCode, ResolvedLink link) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(shortCode, link);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(shortCode, link);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.snapshot.export-interval-ms:3600000}",
+            initialDelayString = "${app.snapshot.initial-delay-ms:60000}")
+    public void export() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Path path = Paths.get(snapshotPath);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            long skipped = 0;
+            long written;
+            try (LinkSnapshotWriter writer = new LinkSnapshotWriter(tmp, urlRepository.count())) {
+                long lastId = 0;
+                List<UrlEntity> page;
+                do {
+                    page = urlRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, EXPORT_PAGE_SIZE));
+                    for (UrlEntity entity : page) {
+                        if (!writer.add(entity.getShortCode(), LinkLookupService.toResolvedLink(entity))) {
+                            skipped++;
+                        }
+                        lastId = entity.getId();
+                    }
+                } while (page.size() == EXPORT_PAGE_SIZE);
+                writer.finish(start);
+                written = writer.getEntryCount();
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // Readers still holding the old table keep a valid mapping until it is GC'd
+            table = MappedLinkTable.open(path);
+            bypassSnapshot = false;
+            overlay.values().removeIf(entry -> entry.recordedAt() < start - OVERLAY_RETENTION_MARGIN_MS);
+
+            log.info("[Snapshot] Exported {} links ({} skipped) to {} in {} ms; overlay size {}", written, skipped,
+                    path, System.currentTimeMillis() - start, overlay.size());
+        } catch (Exception e) {
+            log.error("[Snapshot] Export failed", e);
+        }
+    }
+
+    /**
+     * Loads rows changed since the previous run into the overlay, so a lost
+     * invalidation from another node doesn't leave an edited or deleted link
+     * served from the snapshot until the next export.
+     */
+    @Scheduled(fixedDelayString = "${app.snapshot.reconcile-interval-ms:30000}",
+            initialDelayString = "${app.snapshot.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            LocalDateTime since = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(lastReconcileAt - OVERLAY_RETENTION_MARGIN_MS), ZoneId.systemDefault());
+            long changed = loadChangedSince(since, start);
+            lastReconcileAt = start;
+            if (changed > 0) {
+                log.debug("[Snapshot] Reconciled {} changed links into the overlay", changed);
+            }
+        } catch (Exception e) {
+            log.warn("[Snapshot] Reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    // Pages through rows changed since the given time in (updated_at, id) order
+    private long loadChangedSince(LocalDateTime since, long readStartedAt) {
+        long loaded = 0;
+        LocalDateTime afterUpdatedAt = since;
+        long afterId = 0;
+        List<Object[]> page;
+        do {
+            page = urlRepository.findLinksUpdatedAfter(afterUpdatedAt, afterId,
+                    PageRequest.of(0, EXPORT_PAGE_SIZE));
+            for (Object[] row : page) {
+                afterId = (Long) row[0];
+                afterUpdatedAt = (LocalDateTime) row[1];
+                ResolvedLink link = LinkLookupService.toResolvedLink((String) row[3], (LocalDateTime) row[4],
+                        (String) row[5], (Boolean) row[6]);
+                recordIfNotNewer((String) row[2], link, readStartedAt);
+                loaded++;
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+        return loaded;
+    }
+
+    // A local record() made after the rows were read is newer than what we read; keep it
+    private void recordIfNotNewer(String shortCode, ResolvedLink link, long readStartedAt) {
+        OverlayEntry fromDb = new OverlayEntry(link, readStartedAt);
+        overlay.compute(shortCode,
+                (code, existing) -> existing != null && existing.recordedAt() > readStartedAt ? existing : fromDb);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationPublisher.Invalidation invalidation = CacheInvalidationPublisher
+                .parse(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (invalidation == null || !"links".equals(invalidation.cacheName())
+                || cacheInvalidationPublisher.getNodeId().equals(invalidation.nodeId())) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            bypassSnapshot = true; // Until the next export
+        } else {
+            overlay.put(invalidation.key(), new OverlayEntry(BYPASS, System.currentTimeMillis()));
+        }
+    }
+
+    private record OverlayEntry(ResolvedLink link, long recordedAt) {
+    }
+}
@@ -0,0 +1,143 @@
+package com.url_shortner.project.service.snapshot;
+
+import com.url_shortner.project.cache.ResolvedLinkRedisSerializer;
+import com.url_shortner.project.dto.ResolvedLink;
+import com.url_shortner.project.service.bloom.ScalableBloomFilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.url_shortner.project.service.snapshot.MappedLinkTable.CHUNK_SHIFT;
+import static com.url_shortner.project.service.snapshot.MappedLinkTable.CHUNK_SIZE;
+import static com.url_shortner.project.service.snapshot.MappedLinkTable.FINGERPRINT_BITS;
+import static com.url_shortner.project.service.snapshot.MappedLinkTable.HEADER_SIZE;
+
+/**
+ * Writes a {@link MappedLinkTable} file in a single pass.
+ *
+ * The slot table is sized up front and written through a read-write mapping,
+ * so building the index doesn't need a heap array of tens of millions of
+ * entries either. Records are appended behind it.
+ */
+public class LinkSnapshotWriter implements Closeable {
+
+    // Stop inserting at this load factor; the rest is served by the cache path
+    private static final double MAX_LOAD_FACTOR = 0.75;
+
+    private static final ResolvedLinkRedisSerializer LINK_SERIALIZER = new ResolvedLinkRedisSerializer();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] slotChunks;
+    private final long slotCount;
+    private final long recordsStart;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1 << 20);
+
+    private long position;
+    private long entryCount;
+
+    public LinkSnapshotWriter(Path file, long expectedEntries) throws IOException {
+        // Power of two, at most ~50% full for the expected entries
+        this.slotCount = Long.highestOneBit(Math.max(16, expectedEntries * 2 - 1)) << 1;
+        this.recordsStart = HEADER_SIZE + slotCount * Long.BYTES;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        int chunkCount = (int) ((recordsStart + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        this.slotChunks = new MappedByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            slotChunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, start,
+                    Math.min(CHUNK_SIZE, recordsStart - start));
+        }
+        this.position = recordsStart;
+    }
+
+    /**
+     * @return false if the table is full and the link was skipped
+     */
+    public boolean add(String shortCode, ResolvedLink link) throws IOException {
+        if (entryCount >= slotCount * MAX_LOAD_FACTOR) {
+            return false;
+        }
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        byte[] linkBytes = LINK_SERIALIZER.serialize(link);
+        int recordSize = 1 + code.length + Integer.BYTES + linkBytes.length;
+
+        if (recordSize > writeBuffer.capacity()) {
+            throw new IOException("Link too large for snapshot: " + shortCode);
+        }
+
+        // Keep every record inside one 1 GB mapping on the read side
+        long recordOffset = position + writeBuffer.position();
+        long chunkEnd = ((recordOffset >>> CHUNK_SHIFT) + 1) << CHUNK_SHIFT;
+        if (recordOffset + recordSize > chunkEnd) {
+            flushWriteBuffer();
+            position = chunkEnd;
+            recordOffset = chunkEnd;
+        } else if (writeBuffer.remaining() < recordSize) {
+            flushWriteBuffer();
+        }
+        writeBuffer.put((byte) code.length).put(code).putInt(linkBytes.length).put(linkBytes);
+
+        insertSlot(shortCode, recordOffset);
+        entryCount++;
+        return true;
+    }
+
+    public void finish(long createdAtEpochMilli) throws IOException {
+        flushWriteBuffer();
+
+        ByteBuffer header = slotChunks[0];
+        header.putInt(0, MappedLinkTable.MAGIC);
+        header.putInt(4, MappedLinkTable.VERSION);
+        header.putLong(8, slotCount);
+        header.putLong(16, entryCount);
+        header.putLong(24, createdAtEpochMilli);
+        header.putLong(32, recordsStart);
+
+        for (MappedByteBuffer chunk : slotChunks) {
+            chunk.force();
+        }
+        channel.force(true);
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void insertSlot(String shortCode, long recordOffset) {
+        long[] hash = ScalableBloomFilter.hash(shortCode);
+        long value = (recordOffset << FINGERPRINT_BITS) | MappedLinkTable.fingerprint(hash);
+        long mask = slotCount - 1;
+        long slot = hash[0] & mask;
+        while (true) {
+            long offset = HEADER_SIZE + slot * Long.BYTES;
+            MappedByteBuffer chunk = slotChunks[(int) (offset >>> CHUNK_SHIFT)];
+            int index = (int) (offset & (CHUNK_SIZE - 1));
+            if (chunk.getLong(index) == 0) {
+                chunk.putLong(index, value);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void flushWriteBuffer() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            position += channel.write(writeBuffer, position);
+        }
+        writeBuffer.clear();
+    }
+}
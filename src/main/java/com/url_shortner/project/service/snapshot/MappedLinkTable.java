@@ -0,0 +1,138 @@
+package com.url_shortner.project.service.snapshot;
+
+import com.url_shortner.project.cache.ResolvedLinkRedisSerializer;
+import com.url_shortner.project.dto.ResolvedLink;
+import com.url_shortner.project.service.bloom.ScalableBloomFilter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped short code -> {@link ResolvedLink} table.
+ *
+ * The whole table lives in the page cache, not on the Java heap, so tens of
+ * millions of links cost the GC nothing and a restarted pod can serve
+ * lookups as soon as the file is mapped.
+ *
+ * <pre>
+ * Header (64 bytes)
+ *   int  magic, int version, long slotCount, long entryCount,
+ *   long createdAtEpochMilli, long recordsStart
+ * Slot table: slotCount longs, open addressing with linear probing.
+ *   slot = (recordOffset << 24) | 24-bit fingerprint, 0 = empty
+ * Records, never crossing a 1 GB chunk boundary:
+ *   byte codeLength, byte[] code, int linkLength, byte[] link
+ *   (link bytes use the same encoding as the Redis cache)
+ * </pre>
+ */
+public class MappedLinkTable {
+
+    static final int MAGIC = 0x4C4E4B53; // "LNKS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    static final int CHUNK_SHIFT = 30; // 1 GB mappings (MappedByteBuffer is int-indexed)
+    static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    static final int FINGERPRINT_BITS = 24;
+    static final long FINGERPRINT_MASK = (1L << FINGERPRINT_BITS) - 1;
+
+    private static final ResolvedLinkRedisSerializer LINK_SERIALIZER = new ResolvedLinkRedisSerializer();
+
+    private final MappedByteBuffer[] chunks;
+    private final long slotCount;
+    private final long entryCount;
+    private final long createdAtEpochMilli;
+
+    private MappedLinkTable(MappedByteBuffer[] chunks, long slotCount, long entryCount, long createdAtEpochMilli) {
+        this.chunks = chunks;
+        this.slotCount = slotCount;
+        this.entryCount = entryCount;
+        this.createdAtEpochMilli = createdAtEpochMilli;
+    }
+
+    public static MappedLinkTable open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Snapshot file too small: " + file);
+            }
+            int chunkCount = (int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+            }
+            // The mapping stays valid after the channel is closed
+
+            ByteBuffer header = chunks[0];
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Not a link snapshot (or unsupported version): " + file);
+            }
+            return new MappedLinkTable(chunks, header.getLong(8), header.getLong(16), header.getLong(24));
+        }
+    }
+
+    public ResolvedLink find(String shortCode) {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        long[] hash = ScalableBloomFilter.hash(shortCode);
+        long fingerprint = fingerprint(hash);
+        long mask = slotCount - 1;
+
+        for (long probe = 0, slot = hash[0] & mask; probe < slotCount; probe++, slot = (slot + 1) & mask) {
+            long value = getLong(HEADER_SIZE + slot * Long.BYTES);
+            if (value == 0) {
+                return null; // Empty slot: not in the snapshot
+            }
+            if ((value & FINGERPRINT_MASK) == fingerprint) {
+                ResolvedLink link = readIfMatches(value >>> FINGERPRINT_BITS, code);
+                if (link != null) {
+                    return link;
+                }
+            }
+        }
+        return null;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public long getCreatedAtEpochMilli() {
+        return createdAtEpochMilli;
+    }
+
+    static long fingerprint(long[] hash) {
+        // Never 0 so that an occupied slot can't look empty
+        long fingerprint = hash[1] & FINGERPRINT_MASK;
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private ResolvedLink readIfMatches(long offset, byte[] code) {
+        ByteBuffer chunk = chunks[(int) (offset >>> CHUNK_SHIFT)];
+        int position = (int) (offset & (CHUNK_SIZE - 1));
+
+        int codeLength = chunk.get(position) & 0xff;
+        if (codeLength != code.length) {
+            return null;
+        }
+        for (int i = 0; i < codeLength; i++) {
+            if (chunk.get(position + 1 + i) != code[i]) {
+                return null;
+            }
+        }
+        position += 1 + codeLength;
+        int linkLength = chunk.getInt(position);
+        byte[] linkBytes = new byte[linkLength];
+        chunk.get(position + Integer.BYTES, linkBytes);
+        return LINK_SERIALIZER.deserialize(linkBytes);
+    }
+
+    private long getLong(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & (CHUNK_SIZE - 1)));
+    }
+}
@@ -0,0 +1,250 @@
+package com.url_shortner.project.service.visits;
+
+import com.url_shortner.project.service.clicks.ClickEvent;
+import com.url_shortner.project.service.clicks.ClickEventListener;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts redirects in memory and pushes them to Redis in batches, instead of
+ * an INCR + SADD round trip per redirect. Clicks arrive from the
+ * ClickEventQueue writer thread.
+ *
+ * Counters are AtomicLongs in a ConcurrentHashMap, so recording a visit never
+ * takes a lock. A flush drains every counter and sends one pipelined batch of
+ * INCRBY visits:{code} plus SADD dirty_urls, the same keys
+ * AnalyticsSyncService has always read. Flushes run every flush-interval-ms,
+ * and early once flush-max-events visits have been buffered. Links idle for
+ * two flushes are dropped from the map: the flush marks the counter retired
+ * first, and a record() that raced with it sees the mark and moves on to a
+ * fresh counter instead of adding to one nobody reads any more.
+ *
+ * Loss is bounded: a crash loses at most the visits buffered since the last
+ * flush (one interval, or about flush-max-events). A failed flush puts its
+ * counts back, so a Redis outage doesn't lose visits while the node is up.
+ * At most max-codes links are buffered; visits to further links go to Redis
+ * directly, as before. Whatever is buffered is flushed on shutdown.
+ */
+@Component
+@Slf4j
+public class VisitCounterBuffer implements ClickEventListener {
+
+    public static final String VISITS_KEY_PREFIX = "visits:";
+    public static final String DIRTY_SET_KEY = "dirty_urls";
+
+    // The event count is a LongAdder; summing it on every visit would undo
+    // the striping, so only about one visit in this many checks the threshold
+    private static final int THRESHOLD_CHECK_MASK = 63;
+
+    // Value of a counter the flush has removed from the map
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final StringRedisTemplate redisStatsTemplate;
+    private final ExecutorService blockingTaskExecutor;
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final LongAdder bufferedEvents = new LongAdder();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Codes that were idle at the previous flush (guarded by flushLock)
+    private Set<String> idleCodes = new HashSet<>();
+
+    @Value("${app.visits.flush-max-events:10000}")
+    private long flushMaxEvents;
+
+    @Value("${app.visits.pipeline-batch-size:1000}")
+    private int pipelineBatchSize;
+
+    @Value("${app.visits.max-codes:100000}")
+    private int maxCodes;
+
+    public VisitCounterBuffer(StringRedisTemplate redisStatsTemplate,
+            @Qualifier("blockingTaskExecutor") ExecutorService blockingTaskExecutor) {
+        this.redisStatsTemplate = redisStatsTemplate;
+        this.blockingTaskExecutor = blockingTaskExecutor;
+    }
+
+    @Override
+    public void onClicks(List<ClickEvent> clicks) {
+        for (ClickEvent click : clicks) {
+            record(click.shortCode(), click.weight());
+        }
+    }
+
+    public void record(String shortCode) {
+        record(shortCode, 1);
+    }
+
+    public void record(String shortCode, long visits) {
+        if (!addToCounter(shortCode, visits, true)) {
+            recordDirectly(shortCode, visits);
+            return;
+        }
+        bufferedEvents.add(visits);
+        if ((ThreadLocalRandom.current().nextInt() & THRESHOLD_CHECK_MASK) == 0
+                && bufferedEvents.sum() >= flushMaxEvents) {
+            flushAsync();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.visits.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        int flushed = flush();
+        if (flushed > 0) {
+            log.info("[Visits] Flushed {} buffered visit counters on shutdown", flushed);
+        }
+    }
+
+    /**
+     * Sends every buffered count to Redis.
+     *
+     * @return how many links were flushed
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            bufferedEvents.reset();
+            List<String> codes = new ArrayList<>();
+            List<Long> counts = new ArrayList<>();
+            Set<String> idle = new HashSet<>();
+            for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+                AtomicLong counter = entry.getValue();
+                long count = counter.getAndUpdate(value -> value == RETIRED ? RETIRED : 0);
+                if (count == RETIRED) {
+                    continue;
+                }
+                if (count > 0) {
+                    codes.add(entry.getKey());
+                    counts.add(count);
+                } else if (idleCodes.contains(entry.getKey())) {
+                    // Idle for two flushes: drop it, so the map only holds active links.
+                    // Fails if a visit arrived since the drain above; then it stays
+                    if (counter.compareAndSet(0, RETIRED)) {
+                        counters.remove(entry.getKey(), counter);
+                    }
+                } else {
+                    idle.add(entry.getKey());
+                }
+            }
+            idleCodes = idle;
+
+            for (int from = 0; from < codes.size(); from += pipelineBatchSize) {
+                int to = Math.min(from + pipelineBatchSize, codes.size());
+                try {
+                    send(codes.subList(from, to), counts.subList(from, to));
+                } catch (Exception e) {
+                    log.warn("[Visits] Flushing {} visit counters failed, keeping them for the next flush: {}",
+                            codes.size() - from, e.getMessage());
+                    restore(codes.subList(from, codes.size()), counts.subList(from, codes.size()));
+                    return from;
+                }
+            }
+            return codes.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Visits recorded but not yet sent to Redis.
+     */
+    public long pendingVisits() {
+        long pending = 0;
+        for (AtomicLong counter : counters.values()) {
+            long count = counter.get();
+            if (count != RETIRED) {
+                pending += count;
+            }
+        }
+        return pending;
+    }
+
+    private void send(List<String> codes, List<Long> counts) {
+        redisStatsTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (int i = 0; i < codes.size(); i++) {
+                stringConnection.incrBy(VISITS_KEY_PREFIX + codes.get(i), counts.get(i));
+            }
+            stringConnection.sAdd(DIRTY_SET_KEY, codes.toArray(new String[0]));
+            return null;
+        });
+    }
+
+    private void restore(List<String> codes, List<Long> counts) {
+        for (int i = 0; i < codes.size(); i++) {
+            long count = counts.get(i);
+            addToCounter(codes.get(i), count, false);
+            bufferedEvents.add(count);
+        }
+    }
+
+    /**
+     * @return false if the link has no counter yet and the buffer is full
+     *         (only when {@code bounded})
+     */
+    private boolean addToCounter(String shortCode, long visits, boolean bounded) {
+        while (true) {
+            AtomicLong counter = counters.get(shortCode);
+            if (counter == null) {
+                if (bounded && counters.size() >= maxCodes) {
+                    return false;
+                }
+                counter = counters.computeIfAbsent(shortCode, code -> new AtomicLong());
+            }
+            if (counter.getAndUpdate(count -> count == RETIRED ? RETIRED : count + visits) != RETIRED) {
+                return true;
+            }
+            // Retired by a flush since we looked it up: make sure it's gone and start a new one
+            counters.remove(shortCode, counter);
+        }
+    }
+
+    // Buffer full: fall back to the unbuffered path rather than grow without bound
+    private void recordDirectly(String shortCode, long visits) {
+        redisStatsTemplate.opsForValue().increment(VISITS_KEY_PREFIX + shortCode, visits);
+        redisStatsTemplate.opsForSet().add(DIRTY_SET_KEY, shortCode);
+    }
+
+    private void flushAsync() {
+        if (!flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            blockingTaskExecutor.execute(() -> {
+                try {
+                    flush();
+                } finally {
+                    flushRequested.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            flushRequested.set(false);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.url_shortner.project.service.warmup;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * "cacheWarmup" health component. Part of the readiness group (see
+ * application.properties) so load balancers only route traffic here once the
+ * link cache has been warmed.
+ */
+@Component
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+    private final CacheWarmupService cacheWarmupService;
+
+    public CacheWarmupHealthIndicator(CacheWarmupService cacheWarmupService) {
+        this.cacheWarmupService = cacheWarmupService;
+    }
+
+    @Override
+    public Health health() {
+        if (!cacheWarmupService.isFinished()) {
+            return Health.outOfService().withDetail("warmup", "in progress").build();
+        }
+        return Health.up()
+                .withDetail("warmedLinks", cacheWarmupService.getWarmedCount())
+                .withDetail("durationMs", cacheWarmupService.getDurationMs())
+                .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.url_shortner.project.service.warmup;
+
+import com.url_shortner.project.entity.UrlEntity;
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.LinkLookupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fills the "links" cache before the app reports ready, so a fresh deploy
+ * doesn't send its first minute of redirects straight to Postgres.
+ *
+ * Runs as an ApplicationRunner, i.e. before Spring Boot publishes
+ * ACCEPTING_TRAFFIC; {@link CacheWarmupHealthIndicator} additionally keeps
+ * the readiness group OUT_OF_SERVICE until this has finished.
+ *
+ * Order:
+ * 1. recently visited codes (the "dirty_urls" set the visit counter keeps),
+ * 2. the top-N most visited links.
+ * Both are loaded in batches and stop once the time budget is used up.
+ */
+@Service
+@Slf4j
+public class CacheWarmupService implements ApplicationRunner {
+
+    private final UrlRepository urlRepository;
+    private final CacheManager cacheManager;
+    private final StringRedisTemplate redisStatsTemplate;
+
+    @Value("${app.cache.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.warmup.top-n:5000}")
+    private int topN;
+
+    @Value("${app.cache.warmup.recent-n:1000}")
+    private int recentN;
+
+    @Value("${app.cache.warmup.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.cache.warmup.time-budget:20s}")
+    private Duration timeBudget;
+
+    private volatile boolean finished = false;
+    private volatile int warmedCount = 0;
+    private volatile long durationMs = 0;
+
+    public CacheWarmupService(UrlRepository urlRepository, CacheManager cacheManager,
+            StringRedisTemplate redisStatsTemplate) {
+        this.urlRepository = urlRepository;
+        this.cacheManager = cacheManager;
+        this.redisStatsTemplate = redisStatsTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long deadline = start + timeBudget.toMillis();
+        try {
+            Cache cache = cacheManager.getCache("links");
+            if (cache == null) {
+                return;
+            }
+            int recent = warmRecent(cache, deadline);
+            int top = warmTopVisited(cache, deadline);
+            warmedCount = recent + top;
+            log.info("[Warmup] Cached {} recent and {} most visited links in {} ms{}", recent, top,
+                    System.currentTimeMillis() - start,
+                    System.currentTimeMillis() >= deadline ? " (time budget reached)" : "");
+        } catch (Exception e) {
+            // A cold cache is slower, not broken: don't hold readiness back for it
+            log.warn("[Warmup] Cache warm-up failed: {}", e.getMessage());
+        } finally {
+            durationMs = System.currentTimeMillis() - start;
+            finished = true;
+        }
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getWarmedCount() {
+        return warmedCount;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+
+    private int warmRecent(Cache cache, long deadline) {
+        if (recentN <= 0) {
+            return 0;
+        }
+        Set<String> codes = redisStatsTemplate.opsForSet().distinctRandomMembers("dirty_urls", recentN);
+        if (codes == null || codes.isEmpty()) {
+            return 0;
+        }
+        int warmed = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        for (String code : codes) {
+            batch.add(code);
+            if (batch.size() == batchSize) {
+                warmed += put(cache, urlRepository.findByShortCodeIn(batch));
+                batch.clear();
+                if (System.currentTimeMillis() >= deadline) {
+                    return warmed;
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            warmed += put(cache, urlRepository.findByShortCodeIn(batch));
+        }
+        return warmed;
+    }
+
+    private int warmTopVisited(Cache cache, long deadline) {
+        int warmed = 0;
+        long afterVisits = Long.MAX_VALUE;
+        long afterId = 0;
+        while (warmed < topN && System.currentTimeMillis() < deadline) {
+            int limit = Math.min(batchSize, topN - warmed);
+            List<UrlEntity> entities = urlRepository.findMostVisitedAfter(afterVisits, afterId,
+                    PageRequest.of(0, limit));
+            warmed += put(cache, entities);
+            if (entities.size() < limit) {
+                break;
+            }
+            UrlEntity last = entities.get(entities.size() - 1);
+            afterVisits = last.getVisits();
+            afterId = last.getId();
+        }
+        return warmed;
+    }
+
+    private int put(Cache cache, List<UrlEntity> entities) {
+        for (UrlEntity entity : entities) {
+            cache.put(entity.getShortCode(), LinkLookupService.toResolvedLink(entity));
+        }
+        return entities.size();
+    }
+}
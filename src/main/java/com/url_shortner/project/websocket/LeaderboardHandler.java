@@ -1,39 +1,72 @@
 package com.url_shortner.project.websocket;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * /ws/leaderboard. A new connection first gets the current top links:
+ *
+ * {"type":"snapshot","entries":[{"rank":1,"shortCode":"abc","clicks":42},...],"timestamp":...}
+ *
+ * and from then on only changes, sent when the ranking changes:
+ *
+ * {"type":"delta","changed":[entries that are new or moved],"removed":["code",...],"timestamp":...}
+ */
 @Component
+@Slf4j
 public class LeaderboardHandler extends TextWebSocketHandler {
 
-    private final CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+    // Slow clients get disconnected instead of blocking the broadcast
+    private static final int SEND_TIME_LIMIT_MS = 5_000;
+    private static final int BUFFER_SIZE_LIMIT = 64 * 1024;
+
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private volatile String snapshot;
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        sessions.add(session);
-        System.out.println("New WebSocket connection: " + session.getId());
+        // The decorator serializes sends: snapshot (this thread) vs. broadcast (scheduler)
+        WebSocketSession concurrentSession = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS,
+                BUFFER_SIZE_LIMIT);
+        sessions.put(session.getId(), concurrentSession);
+        log.debug("[Leaderboard] WebSocket connection opened: {}", session.getId());
+        String current = snapshot;
+        if (current != null) {
+            send(concurrentSession, current);
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status)
             throws Exception {
-        sessions.remove(session);
-        System.out.println("WebSocket connection closed: " + session.getId());
+        sessions.remove(session.getId());
+        log.debug("[Leaderboard] WebSocket connection closed: {} ({})", session.getId(), status);
+    }
+
+    public void updateSnapshot(String message) {
+        this.snapshot = message;
     }
 
     public void broadcast(String message) {
-        for (WebSocketSession session : sessions) {
-            if (session.isOpen()) {
-                try {
-                    session.sendMessage(new TextMessage(message));
-                } catch (IOException e) {
-                    System.err.println("Error sending message to " + session.getId() + ": " + e.getMessage());
-                }
+        for (WebSocketSession session : sessions.values()) {
+            send(session, message);
+        }
+    }
+
+    private void send(WebSocketSession session, String message) {
+        if (session.isOpen()) {
+            try {
+                session.sendMessage(new TextMessage(message));
+            } catch (IOException | RuntimeException e) {
+                log.warn("[Leaderboard] Could not send to WebSocket session {}: {}", session.getId(), e.getMessage());
             }
         }
     }
@@ -56,7 +56,7 @@ class UrlShortnerProjectApplicationTests {
         // 2. Call /redirect API with the extracted code
         mockMvc.perform(get("/redirect")
                         .param("code", shortCode))
-                .andExpect(status().isFound()) // HTTP 302
+                .andExpect(status().isMovedPermanently()) // HTTP 301 (no expiry, no password)
                 .andExpect(header().string("Location", originalUrl)); // Verify it redirects to the right place
     }
 
@@ -0,0 +1,51 @@
+package com.url_shortner.project.cache;
+
+import com.url_shortner.project.dto.ResolvedLink;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolvedLinkRedisSerializerTest {
+
+    private final ResolvedLinkRedisSerializer serializer = new ResolvedLinkRedisSerializer();
+
+    @Test
+    void testRoundTrip_PermanentLink() {
+        ResolvedLink link = new ResolvedLink("https://example.com/a?b=c", ResolvedLink.NO_EXPIRY, null, true,
+                ResolvedLink.RedirectType.PERMANENT);
+
+        byte[] bytes = serializer.serialize(link);
+        ResolvedLink result = serializer.deserialize(bytes);
+
+        assertEquals(2 + "https://example.com/a?b=c".length(), bytes.length);
+        assertEquals(link.originalUrl(), result.originalUrl());
+        assertEquals(ResolvedLink.NO_EXPIRY, result.expiresAtEpochMilli());
+        assertNull(result.passwordHash());
+        assertTrue(result.active());
+        assertTrue(result.permanent());
+    }
+
+    @Test
+    void testRoundTrip_ProtectedExpiringLink() {
+        ResolvedLink link = new ResolvedLink("https://example.com/ü", 1_700_000_000_000L,
+                ResolvedLink.hashPassword("pw"), false, ResolvedLink.RedirectType.TEMPORARY);
+
+        ResolvedLink result = serializer.deserialize(serializer.serialize(link));
+
+        assertEquals("https://example.com/ü", result.originalUrl());
+        assertEquals(1_700_000_000_000L, result.expiresAtEpochMilli());
+        assertTrue(result.matchesPassword("pw"));
+        assertFalse(result.matchesPassword("nope"));
+        assertFalse(result.active());
+        assertFalse(result.permanent());
+    }
+
+    @Test
+    void testDeserialize_UnknownFormatFails() {
+        // e.g. a JDK-serialized value left over from an older release
+        byte[] legacy = new byte[] { (byte) 0xAC, (byte) 0xED, 0, 5 };
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(legacy));
+    }
+}
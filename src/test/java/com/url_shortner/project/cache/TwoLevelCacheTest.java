@@ -0,0 +1,151 @@
+package com.url_shortner.project.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TwoLevelCacheTest {
+
+    private ConcurrentMapCache remoteCache;
+    private CacheInvalidationPublisher publisher;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remoteCache = spy(new ConcurrentMapCache("urls"));
+        publisher = mock(CacheInvalidationPublisher.class);
+        cache = new TwoLevelCache("urls", Caffeine.newBuilder().maximumSize(100).build(), remoteCache, publisher);
+    }
+
+    @Test
+    void testGet_PromotesRemoteHitIntoLocal() {
+        remoteCache.put("abc123", "https://example.com");
+
+        assertEquals("https://example.com", cache.get("abc123").get());
+        assertEquals("https://example.com", cache.get("abc123").get());
+
+        // Second read is served by L1
+        verify(remoteCache, times(1)).get("abc123");
+    }
+
+    @Test
+    void testGet_CachesNullValuesLocally() {
+        remoteCache.put("missing", null);
+
+        assertNull(cache.get("missing").get());
+        assertNull(cache.get("missing").get());
+
+        verify(remoteCache, times(1)).get("missing");
+    }
+
+    @Test
+    void testEvict_ClearsBothLevelsAndBroadcasts() {
+        cache.put("abc123", "https://example.com");
+
+        cache.evict("abc123");
+
+        assertNull(cache.get("abc123"));
+        assertNull(remoteCache.get("abc123"));
+        verify(publisher).publishEvict("urls", "abc123");
+    }
+
+    @Test
+    void testEvictLocal_KeepsRemoteEntry() {
+        cache.put("abc123", "https://example.com");
+
+        cache.evictLocal("abc123");
+
+        assertNotNull(remoteCache.get("abc123"));
+        assertEquals("https://example.com", cache.get("abc123").get());
+        verifyNoInteractions(publisher);
+    }
+
+    @Test
+    void testGetWithLoader_CoalescesConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.get("hot", () -> {
+                    loads.incrementAndGet();
+                    loaderStarted.countDown();
+                    releaseLoader.await(5, TimeUnit.SECONDS);
+                    return "https://example.com";
+                })));
+            }
+            loaderStarted.await(5, TimeUnit.SECONDS);
+            Thread.sleep(100); // Let the other callers pile up behind the load
+            releaseLoader.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("https://example.com", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals("https://example.com", remoteCache.get("hot").get());
+    }
+
+    @Test
+    void testGetWithLoader_RefreshesStaleEntryAhead() {
+        AtomicLong now = new AtomicLong();
+        cache = new TwoLevelCache("urls", Caffeine.newBuilder().maximumSize(100)
+                .expireAfterWrite(Duration.ofSeconds(30)).ticker(now::get).build(), remoteCache, publisher,
+                Duration.ofSeconds(1), Duration.ofSeconds(20), Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("hot", () -> "v" + loads.incrementAndGet()));
+        remoteCache.evict("hot"); // L2 entry expired while L1 kept serving it
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals("v1", cache.get("hot", () -> "v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+
+        now.addAndGet(Duration.ofSeconds(15).toNanos());
+        assertEquals("v1", cache.get("hot", () -> "v" + loads.incrementAndGet()));
+
+        // Stale read kicked off a refresh that reloaded both levels
+        assertEquals(2, loads.get());
+        assertEquals("v2", remoteCache.get("hot").get());
+        assertEquals("v2", cache.get("hot").get());
+    }
+
+    @Test
+    void testGetWithLoader_RefreshSkipsStaleL2Entry() {
+        AtomicLong now = new AtomicLong();
+        cache = new TwoLevelCache("urls", Caffeine.newBuilder().maximumSize(100)
+                .expireAfterWrite(Duration.ofSeconds(30)).ticker(now::get).build(), remoteCache, publisher,
+                Duration.ofSeconds(1), Duration.ofSeconds(20), Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v1", cache.get("hot", () -> "v" + loads.incrementAndGet()));
+
+        // L2 still holds v1, but the refresh must not take it from there
+        now.addAndGet(Duration.ofSeconds(25).toNanos());
+        cache.get("hot", () -> "v" + loads.incrementAndGet());
+
+        assertEquals(2, loads.get());
+        assertEquals("v2", remoteCache.get("hot").get());
+        assertEquals("v2", cache.get("hot").get());
+    }
+}
@@ -0,0 +1,93 @@
+package com.url_shortner.project.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica1;
+    private DataSource replica2;
+    private Connection primaryConnection;
+    private Connection replica1Connection;
+    private Connection replica2Connection;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = mock(DataSource.class);
+        replica1 = mock(DataSource.class);
+        replica2 = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replica1Connection = mock(Connection.class);
+        replica2Connection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica1.getConnection()).thenReturn(replica1Connection);
+        when(replica2.getConnection()).thenReturn(replica2Connection);
+
+        dataSource = new ReplicaRoutingDataSource(primary, List.of(
+                new ReplicaRoutingDataSource.Replica("replica-0", replica1),
+                new ReplicaRoutingDataSource.Replica("replica-1", replica2)), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testGetConnection_RoundRobinsOverReplicas() throws SQLException {
+        assertSame(replica1Connection, dataSource.getConnection());
+        assertSame(replica2Connection, dataSource.getConnection());
+        assertSame(replica1Connection, dataSource.getConnection());
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void testCheckHealth_SkipsDownAndLaggingReplicas() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("connection refused"));
+        stubLag(replica2Connection, 1.0);
+        dataSource.checkHealth();
+
+        assertFalse(dataSource.getReplicas().get(0).isHealthy());
+        assertTrue(dataSource.getReplicas().get(1).isHealthy());
+        assertSame(replica2Connection, dataSource.getConnection());
+        assertSame(replica2Connection, dataSource.getConnection());
+
+        stubLag(replica2Connection, 30.0);
+        dataSource.checkHealth();
+
+        assertFalse(dataSource.getReplicas().get(1).isHealthy());
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void testGetConnection_ForcedPrimary() throws SQLException {
+        Connection connection = DataSourceRouting.onPrimary(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertSame(primaryConnection, connection);
+        assertFalse(DataSourceRouting.isPrimaryForced());
+    }
+
+    private static void stubLag(Connection connection, double lagSeconds) throws SQLException {
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true);
+        when(resultSet.getDouble(1)).thenReturn(lagSeconds);
+    }
+}
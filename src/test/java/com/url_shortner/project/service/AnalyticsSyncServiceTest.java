@@ -0,0 +1,95 @@
+package com.url_shortner.project.service;
+
+import com.url_shortner.project.repository.UrlVisitsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnalyticsSyncServiceTest {
+
+    private StringRedisTemplate redisTemplate;
+    private SetOperations<String, String> setOperations;
+    private UrlVisitsRepository urlVisitsRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private AnalyticsSyncService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        setOperations = mock(SetOperations.class);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        urlVisitsRepository = mock(UrlVisitsRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        service = new AnalyticsSyncService(urlVisitsRepository, redisTemplate, meterRegistry);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void dirtyCodes(String... codes) {
+        Iterator<String> iterator = List.of(codes).iterator();
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        when(setOperations.scan(eq("dirty_urls"), any(ScanOptions.class))).thenReturn(cursor);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSync_DrainsEachChunkAtomicallyAndUpdatesItInOneStatement() {
+        dirtyCodes("a", "b", "c");
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("5", "0"), List.of("2"));
+
+        service.syncVisitsToDatabase();
+
+        // Every key the script touches is passed as a KEY, not built from ARGV
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("dirty_urls", "visits:a", "visits:b")),
+                eq("a"), eq("b"));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("dirty_urls", "visits:c")), eq("c"));
+        verify(urlVisitsRepository).addVisits(List.of("a"), List.of(5L));
+        verify(urlVisitsRepository).addVisits(List.of("c"), List.of(2L));
+        assertEquals(2.0, meterRegistry.counter("analytics.sync.links").count());
+        assertEquals(7.0, meterRegistry.counter("analytics.sync.visits").count());
+        assertEquals(1, meterRegistry.timer("analytics.sync.duration").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSync_DatabaseFailurePutsCountsBackIntoRedis() {
+        dirtyCodes("a", "b");
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of("5", "3"));
+        when(urlVisitsRepository.addVisits(anyList(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+
+        service.syncVisitsToDatabase();
+
+        verify(connection).incrBy("visits:a", 5L);
+        verify(connection).incrBy("visits:b", 3L);
+        verify(connection).sAdd("dirty_urls", "a", "b");
+        assertEquals(1.0, meterRegistry.counter("analytics.sync.failures").count());
+        assertEquals(0.0, meterRegistry.counter("analytics.sync.links").count());
+    }
+}
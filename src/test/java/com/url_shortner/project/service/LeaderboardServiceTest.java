@@ -0,0 +1,144 @@
+package com.url_shortner.project.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.url_shortner.project.dto.LeaderboardEntry;
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.clicks.ClickEvent;
+import com.url_shortner.project.websocket.LeaderboardHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LeaderboardServiceTest {
+
+    private static final String ADMIT_SHA = LeaderboardService.ADMIT_SCRIPT.getSha1();
+
+    private StringRedisTemplate redisTemplate;
+    private ZSetOperations<String, String> zSetOperations;
+    private StringRedisConnection connection;
+    private UrlRepository urlRepository;
+    private LeaderboardHandler handler;
+    private LeaderboardService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        zSetOperations = mock(ZSetOperations.class);
+        connection = mock(StringRedisConnection.class);
+        urlRepository = mock(UrlRepository.class);
+        handler = mock(LeaderboardHandler.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+        service = new LeaderboardService(handler, redisTemplate, urlRepository, new ObjectMapper());
+        ReflectionTestUtils.setField(service, "size", 3);
+        ReflectionTestUtils.setField(service, "maxTracked", 100);
+        ReflectionTestUtils.setField(service, "userMaxTracked", 10);
+    }
+
+    private static ClickEvent click(String code, int weight) {
+        return new ClickEvent(code, System.currentTimeMillis(), "10.0.0.1", "Firefox", null, weight);
+    }
+
+    private void ranking(String... codes) {
+        Set<TypedTuple<String>> tuples = new LinkedHashSet<>();
+        for (int i = 0; i < codes.length; i++) {
+            tuples.add(TypedTuple.of(codes[i], (double) (100 - i)));
+        }
+        when(zSetOperations.reverseRangeWithScores(LeaderboardService.GLOBAL_KEY, 0, 2)).thenReturn(tuples);
+    }
+
+    @Test
+    void testOnClicks_OneIncrementPerLinkAndOwnerLookedUpOnce() {
+        List<Object[]> owners = new ArrayList<>();
+        owners.add(new Object[] { "abc", 7L });
+        when(urlRepository.findOwnerIdsByShortCodeIn(any())).thenReturn(owners);
+
+        service.onClicks(List.of(click("abc", 1), click("abc", 4), click("gone", 1)));
+        service.onClicks(List.of(click("abc", 1)));
+
+        verify(connection).evalSha(ADMIT_SHA, ReturnType.INTEGER, 1,
+                LeaderboardService.GLOBAL_KEY, "100", "abc", "5", "gone", "1");
+        verify(connection).evalSha(ADMIT_SHA, ReturnType.INTEGER, 1,
+                "leaderboard:user:7", "10", "abc", "5");
+        verify(connection).evalSha(ADMIT_SHA, ReturnType.INTEGER, 1,
+                LeaderboardService.GLOBAL_KEY, "100", "abc", "1");
+        verify(connection).evalSha(ADMIT_SHA, ReturnType.INTEGER, 1,
+                "leaderboard:user:7", "10", "abc", "1");
+        // No per-batch trimming: admission into a full set happens inside the script
+        verify(connection, never()).zRemRange(anyString(), anyLong(), anyLong());
+        // The second batch is served from the owner cache
+        verify(urlRepository, times(1)).findOwnerIdsByShortCodeIn(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOnClicks_LoadsTheScriptAndRetriesAfterNoScript() {
+        when(urlRepository.findOwnerIdsByShortCodeIn(any())).thenReturn(List.of());
+        doThrow(new RedisSystemException("Error in execution",
+                new IllegalStateException("NOSCRIPT No matching script. Please use EVAL.")))
+                .doAnswer(invocation -> {
+                    invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+                    return List.of();
+                })
+                .when(redisTemplate).executePipelined(any(RedisCallback.class));
+
+        service.onClicks(List.of(click("abc", 2)));
+
+        verify(redisTemplate).execute(any(RedisCallback.class));
+        verify(connection).evalSha(ADMIT_SHA, ReturnType.INTEGER, 1, LeaderboardService.GLOBAL_KEY, "100", "abc",
+                "2");
+    }
+
+    @Test
+    void testPush_OnlyWhenRankingChanges() throws Exception {
+        ranking("a", "b", "c");
+        service.pushLeaderboardUpdates();
+        service.pushLeaderboardUpdates();
+        verify(handler, times(1)).broadcast(anyString());
+
+        ranking("a", "c", "d");
+        service.pushLeaderboardUpdates();
+
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(handler, times(2)).broadcast(messages.capture());
+        Map<?, ?> delta = new ObjectMapper().readValue(messages.getAllValues().get(1), Map.class);
+        assertEquals("delta", delta.get("type"));
+        assertEquals(List.of(Map.of("rank", 2, "shortCode", "c", "clicks", 99),
+                Map.of("rank", 3, "shortCode", "d", "clicks", 98)), delta.get("changed"));
+        assertEquals(List.of("b"), delta.get("removed"));
+        verify(handler, times(2)).updateSnapshot(contains("\"type\":\"snapshot\""));
+    }
+
+    @Test
+    void testDelta_UnmovedEntriesAreLeftOut() {
+        List<LeaderboardEntry> previous = List.of(new LeaderboardEntry(1, "a", 10), new LeaderboardEntry(2, "b", 9));
+        List<LeaderboardEntry> current = List.of(new LeaderboardEntry(1, "a", 12), new LeaderboardEntry(2, "c", 11));
+
+        Map<String, Object> delta = LeaderboardService.delta(previous, current);
+
+        assertEquals(List.of(new LeaderboardEntry(2, "c", 11)), delta.get("changed"));
+        assertEquals(List.of("b"), delta.get("removed"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.url_shortner.project.service;
+
+import com.url_shortner.project.dto.UserContext;
+import com.url_shortner.project.entity.Role;
+import com.url_shortner.project.entity.UserEntity;
+import com.url_shortner.project.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserLookupServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserLookupService userLookupService;
+
+    @Test
+    void testFindUser_CopiesIdAndRoles() throws Exception {
+        UserEntity user = UserEntity.builder().id(1L).roles(new HashSet<>(Set.of(Role.ENTERPRISE))).build();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        UserContext context = userLookupService.findUser(1L);
+
+        assertEquals(1L, context.id());
+        assertTrue(context.hasRole(Role.ENTERPRISE));
+        // Detached from the entity, and storable in the Redis (JDK-serialized) cache tier
+        user.getRoles().clear();
+        assertTrue(context.hasRole(Role.ENTERPRISE));
+        new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(context);
+    }
+
+    @Test
+    void testFindUser_UnknownUser() {
+        when(userRepository.findById(2L)).thenReturn(Optional.empty());
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> userLookupService.findUser(2L));
+        assertEquals(HttpStatus.UNAUTHORIZED, exception.getStatusCode());
+    }
+}
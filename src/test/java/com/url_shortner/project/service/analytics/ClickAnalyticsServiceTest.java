@@ -0,0 +1,136 @@
+package com.url_shortner.project.service.analytics;
+
+import com.url_shortner.project.dto.ClickTimeSeriesDto;
+import com.url_shortner.project.dto.LinkBreakdownDto;
+import com.url_shortner.project.dto.LinkStatsDto;
+import com.url_shortner.project.entity.RollupGranularity;
+import com.url_shortner.project.entity.UrlEntity;
+import com.url_shortner.project.entity.UserEntity;
+import com.url_shortner.project.repository.ClickRollupRepository;
+import com.url_shortner.project.repository.UrlRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClickAnalyticsServiceTest {
+
+    @Mock
+    private ClickRollupRepository clickRollupRepository;
+
+    @Mock
+    private UrlRepository urlRepository;
+
+    @Mock
+    private UniqueVisitorCounter uniqueVisitorCounter;
+
+    @Mock
+    private ClickDimensionAnalytics clickDimensionAnalytics;
+
+    @Mock
+    private StringRedisTemplate redisStatsTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private ClickAnalyticsService clickAnalyticsService;
+
+    private static UrlEntity url(String code, Long ownerId) {
+        UserEntity owner = new UserEntity();
+        owner.setId(ownerId);
+        UrlEntity url = new UrlEntity();
+        url.setShortCode(code);
+        url.setUser(owner);
+        return url;
+    }
+
+    @Test
+    void testLinkTimeSeries_FillsEmptyBuckets() {
+        LocalDateTime from = LocalDateTime.parse("2024-05-10T10:00");
+        LocalDateTime to = LocalDateTime.parse("2024-05-10T13:00");
+        when(urlRepository.findByShortCode("abc")).thenReturn(Optional.of(url("abc", 1L)));
+        when(clickRollupRepository.timeSeries("abc", RollupGranularity.HOUR, from, to))
+                .thenReturn(Map.of(LocalDateTime.parse("2024-05-10T11:00"), 7L));
+
+        ClickTimeSeriesDto series = clickAnalyticsService.linkTimeSeries("abc", 1L, RollupGranularity.HOUR,
+                LocalDateTime.parse("2024-05-10T10:20"), to);
+
+        assertEquals(from, series.getFrom());
+        assertEquals(7, series.getTotalClicks());
+        assertEquals(3, series.getPoints().size());
+        assertEquals(0, series.getPoints().get(0).clicks());
+        assertEquals(7, series.getPoints().get(1).clicks());
+    }
+
+    @Test
+    void testLinkStats_AddsPendingVisitsAndUniqueVisitors() {
+        UrlEntity url = url("abc", 1L);
+        url.setVisits(40L);
+        when(urlRepository.findByShortCode("abc")).thenReturn(Optional.of(url));
+        when(redisStatsTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("visits:abc")).thenReturn("2");
+        when(uniqueVisitorCounter.countAllTime("abc")).thenReturn(17L);
+        Map<LocalDate, Long> byDay = new LinkedHashMap<>();
+        byDay.put(LocalDate.parse("2024-05-09"), 5L);
+        byDay.put(LocalDate.parse("2024-05-10"), 9L);
+        when(uniqueVisitorCounter.countByDay(eq("abc"), any(LocalDate.class), eq(2))).thenReturn(byDay);
+
+        LinkStatsDto stats = clickAnalyticsService.linkStats("abc", 1L, 2);
+
+        assertEquals(42, stats.getVisits());
+        assertEquals(17, stats.getUniqueVisitors());
+        assertEquals(List.of(new LinkStatsDto.DailyUniqueVisitors(LocalDate.parse("2024-05-09"), 5),
+                new LinkStatsDto.DailyUniqueVisitors(LocalDate.parse("2024-05-10"), 9)),
+                stats.getUniqueVisitorsByDay());
+    }
+
+    @Test
+    void testLinkBreakdown_UntrackedLinkIsEmpty() {
+        when(urlRepository.findByShortCode("abc")).thenReturn(Optional.of(url("abc", 1L)));
+
+        LinkBreakdownDto breakdown = clickAnalyticsService.linkBreakdown("abc", 1L, 5);
+
+        assertEquals(0, breakdown.getClicks());
+        assertTrue(breakdown.getReferrers().isEmpty());
+        verify(clickDimensionAnalytics).breakdown("abc", 5);
+    }
+
+    @Test
+    void testLinkTimeSeries_OtherUsersLinkIsNotFound() {
+        when(urlRepository.findByShortCode("abc")).thenReturn(Optional.of(url("abc", 2L)));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> clickAnalyticsService
+                .linkTimeSeries("abc", 1L, RollupGranularity.HOUR, null, null));
+
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+        verifyNoInteractions(clickRollupRepository);
+    }
+
+    @Test
+    void testUserTimeSeries_RejectsTooManyBuckets() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> clickAnalyticsService
+                .userTimeSeries(1L, RollupGranularity.MINUTE, LocalDateTime.parse("2024-01-01T00:00"),
+                        LocalDateTime.parse("2024-02-01T00:00")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+}
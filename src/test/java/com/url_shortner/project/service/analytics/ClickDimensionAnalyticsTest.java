@@ -0,0 +1,167 @@
+package com.url_shortner.project.service.analytics;
+
+import com.url_shortner.project.dto.LinkBreakdownDto;
+import com.url_shortner.project.service.clicks.ClickEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ClickDimensionAnalyticsTest {
+
+    private static final String CHROME = "Mozilla/5.0 (Windows NT 10.0) AppleWebKit/537.36 (KHTML, like Gecko) "
+            + "Chrome/124.0 Safari/537.36";
+    private static final String EDGE = CHROME + " Edg/124.0";
+
+    @TempDir
+    Path dir;
+
+    private ClickDimensionAnalytics analytics() {
+        return analytics(null, "dimensions.snapshot");
+    }
+
+    private ClickDimensionAnalytics analytics(StringRedisTemplate redisTemplate, String snapshotFile) {
+        return new ClickDimensionAnalytics(redisTemplate, 100, 128, 4, 5, dir.resolve(snapshotFile).toString());
+    }
+
+    // Two nodes sharing one fake Redis: hashes by key, written through pipelined HSETs
+    @SuppressWarnings("unchecked")
+    private static StringRedisTemplate sharedRedis(Map<String, Map<Object, Object>> hashes) {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(connection.hSet(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            hashes.computeIfAbsent(invocation.getArgument(0), key -> new HashMap<>())
+                    .put(invocation.getArgument(1), invocation.getArgument(2));
+            return true;
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(anyString()))
+                .thenAnswer(invocation -> hashes.getOrDefault(invocation.getArgument(0), Map.of()));
+        return redisTemplate;
+    }
+
+    private static ClickEvent click(String code, String ip, String userAgent, String referrer) {
+        return new ClickEvent(code, 1_700_000_000_000L, ip, userAgent, referrer, 1);
+    }
+
+    @Test
+    void testBreakdown_FindsHeavyHittersAmongManyRareValues() {
+        ClickDimensionAnalytics analytics = analytics();
+        List<ClickEvent> clicks = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            clicks.add(click("abc", "10.0." + (i % 500) + ".1", CHROME, "https://site" + i + ".example/page"));
+        }
+        for (int i = 0; i < 300; i++) {
+            clicks.add(click("abc", "192.168.1." + (i % 200), EDGE, "https://www.News.example/a?b=" + i));
+        }
+        for (int i = 0; i < 150; i++) {
+            clicks.add(click("abc", "2001:db8:42::" + i, null, null));
+        }
+        analytics.onClicks(clicks);
+
+        LinkBreakdownDto breakdown = analytics.breakdown("abc", 3);
+
+        assertEquals(2450, breakdown.getClicks());
+        LinkBreakdownDto.Share topReferrer = breakdown.getReferrers().get(0);
+        assertEquals("news.example", topReferrer.value());
+        assertTrue(topReferrer.clicks() >= 300 && topReferrer.clicks() < 400, "estimate " + topReferrer.clicks());
+        assertEquals("(direct)", breakdown.getReferrers().get(1).value());
+        assertEquals(List.of("Chrome", "Edge", "(unknown)"),
+                breakdown.getBrowsers().stream().map(LinkBreakdownDto.Share::value).toList());
+        assertEquals(2000, breakdown.getBrowsers().get(0).clicks());
+        assertEquals(List.of("192.168.1.0/24", "2001:db8:42::/48"),
+                breakdown.getNetworks().stream().limit(2).map(LinkBreakdownDto.Share::value).toList());
+        assertNull(analytics.breakdown("other", 3));
+    }
+
+    @Test
+    void testSnapshot_IsLoadedBackOnStartup() {
+        ClickDimensionAnalytics analytics = analytics();
+        analytics.onClicks(List.of(
+                click("abc", "10.0.0.1", EDGE, "https://t.co/x"),
+                click("abc", "10.0.0.2", EDGE, "https://t.co/y")));
+        analytics.snapshot();
+
+        ClickDimensionAnalytics restarted = analytics();
+        restarted.loadSnapshot();
+        restarted.onClicks(List.of(click("abc", "10.0.0.3", CHROME, null)));
+
+        LinkBreakdownDto breakdown = restarted.breakdown("abc", 5);
+        assertEquals(3, breakdown.getClicks());
+        assertEquals(new LinkBreakdownDto.Share("t.co", 2), breakdown.getReferrers().get(0));
+        assertEquals(new LinkBreakdownDto.Share("10.0.0.0/24", 3), breakdown.getNetworks().get(0));
+    }
+
+    @Test
+    void testBreakdown_MergesOtherNodesSharedSketches() {
+        Map<String, Map<Object, Object>> hashes = new HashMap<>();
+        StringRedisTemplate redisA = sharedRedis(hashes);
+        ClickDimensionAnalytics nodeA = analytics(redisA, "a.snapshot");
+        ClickDimensionAnalytics nodeB = analytics(sharedRedis(hashes), "b.snapshot");
+        ReflectionTestUtils.setField(nodeA, "shareAcrossNodes", true);
+        ReflectionTestUtils.setField(nodeB, "shareAcrossNodes", true);
+        ReflectionTestUtils.setField(nodeA, "sharedRetention", Duration.ofDays(1));
+        ReflectionTestUtils.setField(nodeA, "shareBatchSize", 10);
+
+        List<ClickEvent> onA = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            onA.add(click("abc", "10.0.0." + i, EDGE, "https://t.co/" + i));
+        }
+        nodeA.onClicks(onA);
+        nodeA.share();
+        nodeB.onClicks(List.of(click("abc", "10.0.1.1", CHROME, "https://t.co/z"),
+                click("abc", "10.0.1.2", CHROME, null)));
+
+        LinkBreakdownDto breakdown = nodeB.breakdown("abc", 5);
+
+        assertEquals(32, breakdown.getClicks());
+        assertEquals(new LinkBreakdownDto.Share("t.co", 31), breakdown.getReferrers().get(0));
+        assertEquals(List.of("Edge", "Chrome"),
+                breakdown.getBrowsers().stream().map(LinkBreakdownDto.Share::value).toList());
+        // Nothing clicked on A since: nothing shared again
+        nodeA.share();
+        verify(redisA, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    void testBreakdown_SkipsSharedFieldThatIsNotBase64() {
+        Map<String, Map<Object, Object>> hashes = new HashMap<>();
+        hashes.put(ClickDimensionAnalytics.SHARED_KEY_PREFIX + "abc", new HashMap<>(Map.of("other-node", "%%%")));
+        ClickDimensionAnalytics node = analytics(sharedRedis(hashes), "a.snapshot");
+        ReflectionTestUtils.setField(node, "shareAcrossNodes", true);
+        node.onClicks(List.of(click("abc", "10.0.0.1", CHROME, null)));
+
+        LinkBreakdownDto breakdown = node.breakdown("abc", 5);
+
+        assertEquals(1, breakdown.getClicks());
+    }
+
+    @Test
+    void testBrowser_ClassifiesCommonUserAgents() {
+        assertEquals("Edge", ClickDimension.BROWSER.valueOf(click("a", null, EDGE, null)));
+        assertEquals("Chrome", ClickDimension.BROWSER.valueOf(click("a", null, CHROME, null)));
+        assertEquals("Safari", ClickDimension.BROWSER.valueOf(click("a", null,
+                "Mozilla/5.0 (iPhone) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.0 Safari/604.1", null)));
+        assertEquals("Bot", ClickDimension.BROWSER.valueOf(click("a", null, "Googlebot/2.1", null)));
+        assertEquals("(unknown)", ClickDimension.REFERRER.valueOf(click("a", null, null, "not a uri")));
+    }
+}
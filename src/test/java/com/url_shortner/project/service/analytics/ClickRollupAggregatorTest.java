@@ -0,0 +1,128 @@
+package com.url_shortner.project.service.analytics;
+
+import com.url_shortner.project.entity.RollupGranularity;
+import com.url_shortner.project.repository.ClickRollupRepository;
+import com.url_shortner.project.repository.ClickRollupRepository.Row;
+import com.url_shortner.project.service.clicks.ClickEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ClickRollupAggregatorTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-10T12:30:00Z");
+
+    private ClickRollupRepository repository;
+    private ClickRollupAggregator aggregator;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ClickRollupRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        aggregator = new ClickRollupAggregator(repository, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(aggregator, "minuteRetention", Duration.ofHours(48));
+        ReflectionTestUtils.setField(aggregator, "hourRetention", Duration.ofDays(60));
+        ReflectionTestUtils.setField(aggregator, "maxPendingBuckets", 100);
+    }
+
+    private static ClickEvent click(String code, String at, int weight) {
+        return new ClickEvent(code, Instant.parse(at).toEpochMilli(), "10.0.0.1", null, null, weight);
+    }
+
+    private static LocalDateTime utc(String time) {
+        return LocalDateTime.parse(time);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_SumsClicksPerMinuteAndWritesLateClicksCoarser() {
+        aggregator.onClicks(List.of(
+                click("abc", "2024-05-10T12:29:05Z", 1),
+                click("abc", "2024-05-10T12:29:55Z", 10),
+                click("abc", "2024-05-10T12:30:01Z", 1),
+                // Older than minute-retention: straight into an hour bucket
+                click("abc", "2024-05-07T08:15:00Z", 1),
+                // Older than hour-retention: straight into a day bucket
+                click("xyz", "2024-02-01T08:15:00Z", 2)));
+
+        assertEquals(4, aggregator.flush());
+
+        ArgumentCaptor<List<Row>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository).upsert(rows.capture());
+        assertEquals(Set.of(
+                new Row("abc", RollupGranularity.MINUTE, utc("2024-05-10T12:29"), 11),
+                new Row("abc", RollupGranularity.MINUTE, utc("2024-05-10T12:30"), 1),
+                new Row("abc", RollupGranularity.HOUR, utc("2024-05-07T08:00"), 1),
+                new Row("xyz", RollupGranularity.DAY, utc("2024-02-01T00:00"), 2)),
+                Set.copyOf(rows.getValue()));
+
+        assertEquals(0, aggregator.flush());
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_FailureKeepsCountsForNextFlush() {
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(repository).upsert(anyList());
+        aggregator.onClicks(List.of(click("abc", "2024-05-10T12:29:05Z", 1)));
+
+        assertEquals(0, aggregator.flush());
+        aggregator.onClicks(List.of(click("abc", "2024-05-10T12:29:30Z", 1)));
+        assertEquals(1, aggregator.flush());
+
+        ArgumentCaptor<List<Row>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).upsert(rows.capture());
+        assertEquals(List.of(new Row("abc", RollupGranularity.MINUTE, utc("2024-05-10T12:29"), 2)),
+                rows.getAllValues().get(1));
+    }
+
+    @Test
+    void testCompact_UsesBucketAlignedCutoffs() {
+        aggregator.compact();
+
+        verify(repository).compact(RollupGranularity.MINUTE, RollupGranularity.HOUR, utc("2024-05-08T12:00"));
+        verify(repository).compact(RollupGranularity.HOUR, RollupGranularity.DAY, utc("2024-03-11T00:00"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOnClicks_DropsNewBucketsOnceTheCapIsReached() {
+        ReflectionTestUtils.setField(aggregator, "maxPendingBuckets", 2);
+        doThrow(new DataAccessResourceFailureException("down")).when(repository).upsert(anyList());
+        aggregator.onClicks(List.of(
+                click("abc", "2024-05-10T12:29:05Z", 1),
+                click("def", "2024-05-10T12:29:05Z", 1)));
+        aggregator.flush();
+
+        aggregator.onClicks(List.of(
+                click("abc", "2024-05-10T12:29:30Z", 1),
+                click("xyz", "2024-05-10T12:29:05Z", 3)));
+
+        // Existing buckets still count; the third one is dropped
+        assertEquals(3.0, meterRegistry.counter("analytics.rollups.dropped").count());
+        doNothing().when(repository).upsert(anyList());
+        aggregator.flush();
+        ArgumentCaptor<List<Row>> rows = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).upsert(rows.capture());
+        assertEquals(Set.of(
+                new Row("abc", RollupGranularity.MINUTE, utc("2024-05-10T12:29"), 2),
+                new Row("def", RollupGranularity.MINUTE, utc("2024-05-10T12:29"), 1)),
+                Set.copyOf(rows.getValue()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.url_shortner.project.service.analytics;
+
+import com.url_shortner.project.service.clicks.ClickEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UniqueVisitorCounterTest {
+
+    private StringRedisTemplate redisTemplate;
+    private StringRedisConnection connection;
+    private UniqueVisitorCounter counter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        connection = mock(StringRedisConnection.class);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+        counter = new UniqueVisitorCounter(redisTemplate);
+        ReflectionTestUtils.setField(counter, "dayRetention", Duration.ofDays(90));
+    }
+
+    private static ClickEvent click(String code, String ip, String userAgent) {
+        return new ClickEvent(code, Instant.parse("2024-05-10T12:00:00Z").toEpochMilli(), ip, userAgent, null, 1);
+    }
+
+    @Test
+    void testOnClicks_OnePfaddPerKeyWithHashedVisitors() {
+        counter.onClicks(List.of(
+                click("abc", "10.0.0.1", "Firefox"),
+                click("abc", "10.0.0.1", "Firefox"),
+                click("abc", "10.0.0.2", "Firefox"),
+                click("abc", null, "Firefox")));
+
+        String first = UniqueVisitorCounter.visitorId("10.0.0.1", "Firefox");
+        String second = UniqueVisitorCounter.visitorId("10.0.0.2", "Firefox");
+        ArgumentCaptor<String[]> allTime = ArgumentCaptor.forClass(String[].class);
+        ArgumentCaptor<String[]> day = ArgumentCaptor.forClass(String[].class);
+        verify(connection).pfAdd(eq("uv:abc"), allTime.capture());
+        verify(connection).pfAdd(eq("uv:abc:20240510"), day.capture());
+        assertEquals(Set.of(first, second), Set.of(allTime.getValue()));
+        assertEquals(Set.of(first, second), Set.of(day.getValue()));
+        verify(connection).expire("uv:abc:20240510", Duration.ofDays(90).toSeconds());
+        assertEquals(32, first.length());
+        assertFalse(first.contains("10.0.0.1"));
+        assertNotEquals(first, UniqueVisitorCounter.visitorId("10.0.0.1", "Chrome"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCountByDay_OldestFirstWithMissingDaysAsZero() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenReturn(List.of(3L, 0L, 8L));
+
+        Map<LocalDate, Long> counts = counter.countByDay("abc", LocalDate.parse("2024-05-10"), 3);
+
+        assertEquals(List.of(LocalDate.parse("2024-05-08"), LocalDate.parse("2024-05-09"),
+                LocalDate.parse("2024-05-10")), List.copyOf(counts.keySet()));
+        assertEquals(List.of(3L, 0L, 8L), List.copyOf(counts.values()));
+    }
+}
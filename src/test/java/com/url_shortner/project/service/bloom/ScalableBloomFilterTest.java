@@ -0,0 +1,52 @@
+package com.url_shortner.project.service.bloom;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScalableBloomFilterTest {
+
+    @Test
+    void testNoFalseNegatives() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("code" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("code" + i), "code" + i + " must be reported as present");
+        }
+    }
+
+    @Test
+    void testGrowsWhenCapacityIsExceeded() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        assertEquals(1, filter.sliceCount());
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("code" + i);
+        }
+
+        assertTrue(filter.sliceCount() > 1);
+    }
+
+    @Test
+    void testFalsePositiveRateStaysBounded() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 20_000; i++) {
+            filter.add("issued-" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("random-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Compound rate is bounded by the configured rate; leave some slack
+        assertTrue(falsePositives < probes * 0.02, "Too many false positives: " + falsePositives);
+    }
+}
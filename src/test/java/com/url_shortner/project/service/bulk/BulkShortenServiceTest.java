@@ -0,0 +1,140 @@
+package com.url_shortner.project.service.bulk;
+
+import com.url_shortner.project.datasource.ReadYourWritesTracker;
+import com.url_shortner.project.dto.BatchUrlResponseDto;
+import com.url_shortner.project.dto.UrlRequestDto;
+import com.url_shortner.project.entity.UrlEntity;
+import com.url_shortner.project.entity.UserEntity;
+import com.url_shortner.project.repository.UrlBulkInsertRepository;
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import com.url_shortner.project.service.dedupe.DestinationHash;
+import com.url_shortner.project.service.shortcode.CustomCodeReservationService;
+import com.url_shortner.project.service.shortcode.ShortCodeService;
+import com.url_shortner.project.service.snapshot.LinkSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkShortenServiceTest {
+
+    @Mock
+    private UrlRepository urlRepository;
+
+    @Mock
+    private UrlBulkInsertRepository urlBulkInsertRepository;
+
+    @Mock
+    private ShortCodeService shortCodeService;
+
+    @Mock
+    private CustomCodeReservationService customCodeReservationService;
+
+    @Mock
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+
+    @Mock
+    private LinkSnapshotService linkSnapshotService;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkShortenService bulkShortenService;
+    private final UserEntity user = UserEntity.builder().id(1L).email("test@example.com").build();
+
+    @BeforeEach
+    void setUp() {
+        bulkShortenService = new BulkShortenService(urlRepository, urlBulkInsertRepository, shortCodeService,
+                customCodeReservationService, shortCodeBloomFilter, linkSnapshotService, readYourWritesTracker,
+                transactionManager);
+        ReflectionTestUtils.setField(bulkShortenService, "baseUrl", "http://localhost:8080/");
+        ReflectionTestUtils.setField(bulkShortenService, "chunkSize", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testShorten_OneBatchInsertPerChunkAndPerItemErrors() {
+        when(shortCodeService.nextCodes(anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(0);
+            return List.of("code1", "code2").subList(0, count);
+        });
+
+        List<BatchUrlResponseDto> results = bulkShortenService.shorten(user, List.of(
+                request("https://a.example"), request("not-a-url"), request("https://b.example")));
+
+        assertEquals(3, results.size());
+        assertEquals("SUCCESS", results.get(0).getStatus());
+        assertEquals("http://localhost:8080/code1", results.get(0).getShortUrl());
+        assertEquals("FAILURE", results.get(1).getStatus());
+        assertEquals("URL must start with http:// or https://", results.get(1).getError());
+        assertEquals("SUCCESS", results.get(2).getStatus());
+
+        ArgumentCaptor<List<UrlEntity>> batches = ArgumentCaptor.forClass(List.class);
+        verify(urlBulkInsertRepository, times(2)).insertAll(batches.capture());
+        assertEquals(1, batches.getAllValues().get(0).size());
+        verify(urlRepository, never()).findByShortCode(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testShorten_FailedBatchIsRetriedRowByRow() {
+        UrlRequestDto custom = request("https://a.example");
+        custom.setCustomCode("taken");
+        when(urlRepository.findExistingShortCodes(anyCollection())).thenReturn(List.of());
+        when(shortCodeService.nextCodes(1)).thenReturn(List.of("code1"));
+        doThrow(new DuplicateKeyException("duplicate")).when(urlBulkInsertRepository).insertAll(argThat(
+                batch -> batch.stream().anyMatch(url -> "taken".equals(url.getShortCode()))));
+
+        List<BatchUrlResponseDto> results = bulkShortenService.shorten(user,
+                List.of(custom, request("https://b.example")));
+
+        assertEquals("Custom code already exists", results.get(0).getError());
+        assertEquals("SUCCESS", results.get(1).getStatus());
+        verify(shortCodeBloomFilter).addAll(List.of("code1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testShorten_ExistingAndRepeatedUrlsReuseOneLink() {
+        ReflectionTestUtils.setField(bulkShortenService, "chunkSize", 10);
+        UrlEntity existing = UrlEntity.builder().originalUrl("https://a.example").shortCode("exist1")
+                .urlHash(DestinationHash.of("https://a.example")).build();
+        when(urlRepository.findByUserAndUrlHashIn(eq(user), anyCollection())).thenReturn(List.of(existing));
+        when(shortCodeService.nextCodes(1)).thenReturn(List.of("code1"));
+
+        List<BatchUrlResponseDto> results = bulkShortenService.shorten(user, List.of(
+                request("https://a.example"), request("https://b.example"), request("https://B.example/")));
+
+        assertEquals("http://localhost:8080/exist1", results.get(0).getShortUrl());
+        assertEquals("http://localhost:8080/code1", results.get(1).getShortUrl());
+        assertEquals("http://localhost:8080/code1", results.get(2).getShortUrl());
+        assertEquals("https://B.example/", results.get(2).getOriginalUrl());
+
+        ArgumentCaptor<List<UrlEntity>> batch = ArgumentCaptor.forClass(List.class);
+        verify(urlBulkInsertRepository).insertAll(batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertEquals(DestinationHash.of("https://b.example"), batch.getValue().get(0).getUrlHash());
+    }
+
+    private static UrlRequestDto request(String url) {
+        UrlRequestDto request = new UrlRequestDto();
+        request.setUrl(url);
+        return request;
+    }
+}
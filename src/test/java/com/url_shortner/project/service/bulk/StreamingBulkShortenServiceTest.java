@@ -0,0 +1,149 @@
+package com.url_shortner.project.service.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.url_shortner.project.dto.BatchUrlResponseDto;
+import com.url_shortner.project.dto.UrlRequestDto;
+import com.url_shortner.project.entity.UserEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class StreamingBulkShortenServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final UserEntity user = UserEntity.builder().id(1L).email("test@example.com").build();
+    private BulkShortenService bulkShortenService;
+    private ExecutorService executor;
+    private StreamingBulkShortenService streamingBulkShortenService;
+
+    @BeforeEach
+    void setUp() {
+        bulkShortenService = mock(BulkShortenService.class);
+        when(bulkShortenService.shortenChunk(any(), anyList())).thenAnswer(invocation -> {
+            List<UrlRequestDto> requests = invocation.getArgument(1);
+            List<BatchUrlResponseDto> results = new ArrayList<>();
+            for (UrlRequestDto request : requests) {
+                results.add(BatchUrlResponseDto.builder()
+                        .originalUrl(request.getUrl())
+                        .shortUrl("http://localhost:8080/" + (request.getCustomCode() != null
+                                ? request.getCustomCode() : "gen"))
+                        .status("SUCCESS")
+                        .build());
+            }
+            return results;
+        });
+        executor = Executors.newFixedThreadPool(4);
+        streamingBulkShortenService = new StreamingBulkShortenService(bulkShortenService, objectMapper, executor);
+        ReflectionTestUtils.setField(streamingBulkShortenService, "chunkSize", 2);
+        ReflectionTestUtils.setField(streamingBulkShortenService, "maxInFlightChunks", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testShorten_Ndjson_OneResultPerLineWithLineNumbers() throws Exception {
+        String body = """
+                {"url":"https://a.example"}
+                not json
+
+                {"url":"https://b.example","customCode":"bee"}
+                {"url":"https://c.example"}
+                """;
+
+        Map<Long, JsonNode> results = run(body, false);
+
+        assertEquals(4, results.size());
+        assertEquals("https://a.example", results.get(1L).get("originalUrl").asText());
+        assertEquals("FAILURE", results.get(2L).get("status").asText());
+        assertEquals("Malformed JSON line", results.get(2L).get("error").asText());
+        assertEquals("http://localhost:8080/bee", results.get(4L).get("shortUrl").asText());
+        assertEquals("SUCCESS", results.get(5L).get("status").asText());
+        verify(bulkShortenService, times(2)).shortenChunk(any(), anyList());
+    }
+
+    @Test
+    void testParse_NullJsonLineIsAnInvalidLine() {
+        StreamingBulkShortenService.ParsedLine parsed = streamingBulkShortenService.parse(7, "null", false);
+
+        assertNull(parsed.request());
+        assertEquals("Invalid line, expected a JSON object", parsed.error());
+    }
+
+    @Test
+    void testShorten_Csv_SkipsHeaderAndParsesQuotedFields() throws Exception {
+        String body = """
+                url,customCode,expiryDate
+                "https://a.example/?q=1,2",abc
+                https://b.example,,not-a-date
+                """;
+
+        Map<Long, JsonNode> results = run(body, true);
+
+        assertEquals(2, results.size());
+        assertEquals("https://a.example/?q=1,2", results.get(2L).get("originalUrl").asText());
+        assertEquals("http://localhost:8080/abc", results.get(2L).get("shortUrl").asText());
+        assertEquals("FAILURE", results.get(3L).get("status").asText());
+    }
+
+    @Test
+    void testShorten_LimitsChunksInFlight() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(bulkShortenService.shortenChunk(any(), anyList())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            List<UrlRequestDto> requests = invocation.getArgument(1);
+            List<BatchUrlResponseDto> results = new ArrayList<>();
+            for (UrlRequestDto request : requests) {
+                results.add(BatchUrlResponseDto.builder().originalUrl(request.getUrl()).status("SUCCESS").build());
+            }
+            return results;
+        });
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            body.append("{\"url\":\"https://example.com/").append(i).append("\"}\n");
+        }
+
+        Map<Long, JsonNode> results = run(body.toString(), false);
+
+        assertEquals(40, results.size());
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void testSplitCsv_EscapedQuotes() {
+        assertEquals(List.of("a\"b", "", "c"), StreamingBulkShortenService.splitCsv("\"a\"\"b\",,c"));
+    }
+
+    private Map<Long, JsonNode> run(String body, boolean csv) throws Exception {
+        StringWriter out = new StringWriter();
+        streamingBulkShortenService.shorten(user, new StringReader(body), csv, out);
+        Map<Long, JsonNode> results = new HashMap<>();
+        for (String line : out.toString().split("\n")) {
+            JsonNode node = objectMapper.readTree(line);
+            results.put(node.get("line").asLong(), node);
+        }
+        return results;
+    }
+}
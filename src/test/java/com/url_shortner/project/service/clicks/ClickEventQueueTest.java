@@ -0,0 +1,120 @@
+package com.url_shortner.project.service.clicks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ClickEventQueueTest {
+
+    @TempDir
+    Path spillDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ClickEventQueue queue(ClickEventListener listener, int capacity, ClickOverflowPolicy policy) {
+        return new ClickEventQueue(List.of(listener), capacity, 100, policy, 10, spillDir.toString(),
+                meterRegistry);
+    }
+
+    private static ClickEvent click(String code) {
+        return new ClickEvent(code, 1_700_000_000_000L, "10.0.0.1", "Mozilla/5.0\t(X11)", null, 1);
+    }
+
+    private double overflow(String outcome) {
+        return meterRegistry.counter("clicks.overflow", "outcome", outcome).count();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDrainBatch_DeliversQueuedClicksInOneBatch() throws Exception {
+        ClickEventListener listener = mock(ClickEventListener.class);
+        ClickEventQueue queue = queue(listener, 10, ClickOverflowPolicy.DROP);
+        queue.offer(click("a"));
+        queue.offer(click("b"));
+
+        assertTrue(queue.drainBatch(new ArrayList<>(), 10));
+
+        ArgumentCaptor<List<ClickEvent>> batch = ArgumentCaptor.forClass(List.class);
+        verify(listener).onClicks(batch.capture());
+        assertEquals(List.of("a", "b"), batch.getValue().stream().map(ClickEvent::shortCode).toList());
+        assertFalse(queue.drainBatch(new ArrayList<>(), 10));
+    }
+
+    @Test
+    void testOffer_DropPolicyCountsOverflow() {
+        ClickEventQueue queue = queue(mock(ClickEventListener.class), 1, ClickOverflowPolicy.DROP);
+
+        queue.offer(click("a"));
+        queue.offer(click("b"));
+
+        assertEquals(1, queue.size());
+        assertEquals(1.0, overflow("dropped"));
+    }
+
+    @Test
+    void testOffer_SamplePolicyWeightsAdmittedClicks() throws Exception {
+        List<ClickEvent> received = new ArrayList<>();
+        ClickEventQueue queue = queue(received::addAll, 8, ClickOverflowPolicy.SAMPLE);
+
+        for (int i = 0; i < 1000; i++) {
+            queue.offer(click("a"));
+            if (queue.size() == 8) {
+                queue.drainBatch(new ArrayList<>(), 10);
+            }
+        }
+        queue.drainBatch(new ArrayList<>(), 10);
+
+        // Above the high-water mark (6) only weighted samples get in; nothing is dropped
+        assertTrue(received.stream().anyMatch(c -> c.weight() == 10));
+        assertEquals(1000, received.size() + overflow("sampled_out"), 0.0);
+        assertEquals(0.0, overflow("dropped"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOffer_SpillPolicyReplaysOverflowOnceDrained() throws Exception {
+        ClickEventListener listener = mock(ClickEventListener.class);
+        ClickEventQueue queue = queue(listener, 1, ClickOverflowPolicy.SPILL);
+
+        queue.offer(click("a"));
+        queue.offer(click("b"));
+        queue.offer(click("c"));
+        assertEquals(2.0, overflow("spilled"));
+
+        queue.drainBatch(new ArrayList<>(), 10);
+        assertEquals(2, queue.replaySpill());
+        assertEquals(0, queue.replaySpill());
+        assertFalse(Files.exists(spillDir.resolve("clicks.spill")));
+
+        ArgumentCaptor<List<ClickEvent>> batches = ArgumentCaptor.forClass(List.class);
+        verify(listener, times(2)).onClicks(batches.capture());
+        List<ClickEvent> replayed = batches.getAllValues().get(1);
+        assertEquals(List.of("b", "c"), replayed.stream().map(ClickEvent::shortCode).toList());
+        assertEquals(new ClickEvent("b", 1_700_000_000_000L, "10.0.0.1", "Mozilla/5.0 (X11)", null, 1),
+                replayed.get(0));
+    }
+
+    @Test
+    void testDispatch_FailingListenerDoesNotStopOthers() throws Exception {
+        ClickEventListener failing = clicks -> {
+            throw new IllegalStateException("Redis down");
+        };
+        List<ClickEvent> received = new ArrayList<>();
+        ClickEventQueue queue = new ClickEventQueue(List.of(failing, received::addAll), 10, 100,
+                ClickOverflowPolicy.DROP, 10, spillDir.toString(), meterRegistry);
+        queue.offer(click("a"));
+
+        queue.drainBatch(new ArrayList<>(), 10);
+
+        assertEquals(1, received.size());
+    }
+}
@@ -0,0 +1,143 @@
+package com.url_shortner.project.service.clicks.journal;
+
+import com.url_shortner.project.service.clicks.ClickEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private ClickJournal open(Duration retention) throws Exception {
+        ClickJournal journal = new ClickJournal(dir.toString(), DataSize.ofBytes(ClickJournal.MIN_SEGMENT_SIZE),
+                retention, new SimpleMeterRegistry());
+        journal.open();
+        return journal;
+    }
+
+    private static ClickEvent click(String code, int i) {
+        return new ClickEvent(code, 1_700_000_000_000L + i, "10.0.0." + (i % 4), i % 2 == 0 ? "Firefox" : null,
+                i % 3 == 0 ? "https://news.example/" + (i % 5) : null, 1 + i % 2);
+    }
+
+    private static List<JournaledClick> readAll(ClickJournal journal, long from) {
+        List<JournaledClick> clicks = new ArrayList<>();
+        journal.replay(from, Integer.MAX_VALUE, clicks::add);
+        return clicks;
+    }
+
+    @Test
+    void testReplay_ReturnsEveryClickAcrossSegmentsInOrder() throws Exception {
+        ClickJournal journal = open(Duration.ofDays(7));
+        List<ClickEvent> written = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            written.add(click("code" + i, i));
+        }
+        journal.onClicks(written);
+
+        List<JournaledClick> read = readAll(journal, 0);
+
+        assertTrue(JournalSegment.list(dir).size() > 1, "expected the journal to rotate");
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            ClickEvent expected = written.get(i);
+            JournaledClick actual = read.get(i);
+            assertEquals(expected.shortCode(), actual.shortCode());
+            assertEquals(expected.timestamp(), actual.timestamp());
+            assertEquals(expected.userAgent(), actual.userAgent());
+            assertEquals(expected.referrer(), actual.referrer());
+            assertEquals(expected.weight(), actual.weight());
+            assertNotEquals(0, actual.ipHash());
+        }
+        assertEquals(read.get(0).ipHash(), read.get(4).ipHash()); // Same IP
+        assertNotEquals(read.get(0).ipHash(), read.get(1).ipHash());
+        assertNull(read.get(0).toClickEvent().clientIp());
+    }
+
+    @Test
+    void testReplay_ResumesFromReturnedOffset() throws Exception {
+        ClickJournal journal = open(Duration.ofDays(7));
+        List<ClickEvent> written = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            written.add(click("c" + i, i));
+        }
+        journal.onClicks(written);
+
+        List<String> codes = new ArrayList<>();
+        long offset = 0;
+        int pages = 0;
+        while (offset < journal.endOffset()) {
+            offset = journal.replay(offset, 7, click -> codes.add(click.shortCode()));
+            pages++;
+        }
+
+        assertEquals(written.stream().map(ClickEvent::shortCode).toList(), codes);
+        assertEquals((300 + 6) / 7, pages);
+        JournaledClick hundredth = readAll(journal, 0).get(100);
+        assertEquals("c100", readAll(journal, hundredth.offset()).get(0).shortCode());
+    }
+
+    @Test
+    void testOpen_ContinuesAfterLastRecordWithSegmentDictionary() throws Exception {
+        ClickJournal first = open(Duration.ofDays(7));
+        first.onClicks(List.of(click("a", 0), click("b", 2)));
+        long end = first.endOffset();
+        first.close();
+
+        ClickJournal reopened = open(Duration.ofDays(7));
+        assertEquals(end, reopened.endOffset());
+        reopened.onClicks(List.of(click("c", 4)));
+
+        List<JournaledClick> read = readAll(reopened, 0);
+        assertEquals(List.of("a", "b", "c"), read.stream().map(JournaledClick::shortCode).toList());
+        assertEquals("Firefox", read.get(2).userAgent());
+        assertEquals(end, read.get(2).offset());
+    }
+
+    @Test
+    void testOpen_SegmentWithBlankHeaderIsStartedOver() throws Exception {
+        ClickJournal first = open(Duration.ofDays(7));
+        first.onClicks(List.of(click("a", 0)));
+        long end = first.endOffset();
+        first.close();
+        // Crash right after a rotation mapped the next segment, before its header was on disk
+        Files.write(dir.resolve(JournalSegment.fileName(end)), new byte[ClickJournal.MIN_SEGMENT_SIZE]);
+
+        ClickJournal reopened = open(Duration.ofDays(7));
+        assertEquals(end, reopened.endOffset());
+        reopened.onClicks(List.of(click("b", 2)));
+
+        assertEquals(List.of("a", "b"), readAll(reopened, 0).stream().map(JournaledClick::shortCode).toList());
+    }
+
+    @Test
+    void testDeleteExpiredSegments_KeepsActiveSegment() throws Exception {
+        ClickJournal journal = open(Duration.ZERO);
+        List<ClickEvent> written = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            written.add(click("code" + i, i));
+        }
+        journal.onClicks(written);
+        Thread.sleep(5);
+
+        journal.deleteExpiredSegments();
+
+        List<Path> segments = JournalSegment.list(dir);
+        assertEquals(1, segments.size());
+        List<JournaledClick> remaining = readAll(journal, 0);
+        assertFalse(remaining.isEmpty());
+        assertEquals("code499", remaining.get(remaining.size() - 1).shortCode());
+        assertTrue(remaining.get(0).offset() >= JournalSegment.baseOffset(segments.get(0)));
+    }
+}
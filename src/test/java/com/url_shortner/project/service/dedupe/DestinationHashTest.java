@@ -0,0 +1,42 @@
+package com.url_shortner.project.service.dedupe;
+
+import com.url_shortner.project.dto.UrlRequestDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DestinationHashTest {
+
+    @Test
+    void testOf_SameDestinationSameHash() {
+        String hash = DestinationHash.of("https://example.com/");
+        assertEquals(DestinationHash.LENGTH, hash.length());
+        assertEquals(hash, DestinationHash.of("  HTTPS://Example.COM:443  "));
+        assertEquals(hash, DestinationHash.of("https://example.com"));
+    }
+
+    @Test
+    void testOf_PathQueryAndFragmentAreSignificant() {
+        String hash = DestinationHash.of("https://example.com/a?b=1");
+        assertNotEquals(hash, DestinationHash.of("https://example.com/A?b=1"));
+        assertNotEquals(hash, DestinationHash.of("https://example.com/a?b=2"));
+        assertNotEquals(hash, DestinationHash.of("https://example.com/a?b=1#top"));
+        assertNotEquals(hash, DestinationHash.of("https://example.com:8443/a?b=1"));
+    }
+
+    @Test
+    void testOfPlainRequest_OnlyPlainRequests() {
+        UrlRequestDto request = new UrlRequestDto();
+        request.setUrl("https://example.com");
+        assertNotNull(DestinationHash.ofPlainRequest(request));
+
+        request.setExpiryDate(LocalDateTime.now().plusDays(1));
+        assertNull(DestinationHash.ofPlainRequest(request));
+
+        request.setExpiryDate(null);
+        request.setCustomCode("mine");
+        assertNull(DestinationHash.ofPlainRequest(request));
+    }
+}
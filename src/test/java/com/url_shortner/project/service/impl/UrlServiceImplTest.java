@@ -1,22 +1,36 @@
 package com.url_shortner.project.service.impl;
 
+import com.url_shortner.project.datasource.ReadYourWritesTracker;
+import com.url_shortner.project.dto.ResolvedLink;
 import com.url_shortner.project.dto.UrlRequestDto;
 import com.url_shortner.project.dto.UrlResponseDto;
+import com.url_shortner.project.dto.UserContext;
 import com.url_shortner.project.entity.UrlEntity;
 import com.url_shortner.project.entity.UserEntity;
 import com.url_shortner.project.repository.UrlRepository;
-import com.url_shortner.project.repository.UserRepository;
+import com.url_shortner.project.service.LinkLookupService;
+import com.url_shortner.project.service.UserLookupService;
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import com.url_shortner.project.service.bulk.BulkShortenService;
+import com.url_shortner.project.service.bulk.StreamingBulkShortenService;
+import com.url_shortner.project.service.clicks.ClickEventQueue;
+import com.url_shortner.project.service.dedupe.DestinationHash;
+import com.url_shortner.project.service.shortcode.CustomCodeReservationService;
+import com.url_shortner.project.service.shortcode.ShortCodeService;
+import com.url_shortner.project.service.snapshot.LinkSnapshotService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,7 +43,34 @@ class UrlServiceImplTest {
     private UrlRepository urlRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private UserLookupService userLookupService;
+
+    @Mock
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+
+    @Mock
+    private LinkLookupService linkLookupService;
+
+    @Mock
+    private LinkSnapshotService linkSnapshotService;
+
+    @Mock
+    private ReadYourWritesTracker readYourWritesTracker;
+
+    @Mock
+    private ShortCodeService shortCodeService;
+
+    @Mock
+    private BulkShortenService bulkShortenService;
+
+    @Mock
+    private StreamingBulkShortenService streamingBulkShortenService;
+
+    @Mock
+    private CustomCodeReservationService customCodeReservationService;
+
+    @Mock
+    private ClickEventQueue clickEventQueue;
 
     @InjectMocks
     private UrlServiceImpl urlService;
@@ -52,8 +93,8 @@ class UrlServiceImplTest {
         request.setUrl("https://google.com");
         request.setExpiryDate(LocalDateTime.now().plusDays(7));
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(urlRepository.findByShortCode(any())).thenReturn(Optional.empty()); // unique code
+        stubUser();
+        when(shortCodeService.nextCode()).thenReturn("abc123"); // unique code
         when(urlRepository.save(any(UrlEntity.class))).thenAnswer(invocation -> {
             UrlEntity entity = invocation.getArgument(0);
             entity.setId(1L);
@@ -63,9 +104,54 @@ class UrlServiceImplTest {
         UrlResponseDto response = urlService.shortenUrl(request, 1L);
 
         assertNotNull(response);
+        assertEquals("abc123", response.getShortCode());
         verify(urlRepository).save(any(UrlEntity.class));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void testShortenUrl_SameUrlReturnsExistingLink() {
+        UrlRequestDto request = new UrlRequestDto();
+        request.setUrl("https://google.com");
+        UrlEntity existing = UrlEntity.builder()
+                .originalUrl("https://google.com")
+                .shortCode("exist1")
+                .build();
+
+        stubUser();
+        when(readYourWritesTracker.readForUser(eq(1L), any())).thenAnswer(
+                invocation -> ((java.util.function.Supplier<Object>) invocation.getArgument(1)).get());
+        when(urlRepository.findByUserAndUrlHash(user, DestinationHash.of("https://google.com")))
+                .thenReturn(Optional.of(existing));
+
+        UrlResponseDto response = urlService.shortenUrl(request, 1L);
+
+        assertEquals("exist1", response.getShortCode());
+        verify(urlRepository, never()).save(any(UrlEntity.class));
+        verify(shortCodeService, never()).nextCode();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testShortenUrl_GeneratedCodeCollisionRetriesWithFreshCode() {
+        UrlRequestDto request = new UrlRequestDto();
+        request.setUrl("https://google.com");
+
+        stubUser();
+        when(readYourWritesTracker.readForUser(eq(1L), any())).thenAnswer(
+                invocation -> ((java.util.function.Supplier<Object>) invocation.getArgument(1)).get());
+        when(shortCodeService.nextCode()).thenReturn("taken1", "fresh1");
+        // No existing link for the hash, so the violation was on short_code
+        when(urlRepository.save(any(UrlEntity.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate short_code"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        UrlResponseDto response = urlService.shortenUrl(request, 1L);
+
+        assertEquals("fresh1", response.getShortCode());
+        verify(urlRepository, times(2)).save(any(UrlEntity.class));
+    }
+
     @Test
     void testGetOriginalUrl_Expired() {
         String shortCode = "expired";
@@ -79,7 +165,7 @@ class UrlServiceImplTest {
                 .expiryDate(LocalDateTime.now().minusDays(1)) // Expired
                 .build();
 
-        when(urlRepository.findByShortCode(shortCode)).thenReturn(Optional.of(entity));
+        when(linkLookupService.findLink(shortCode)).thenReturn(LinkLookupService.toResolvedLink(entity));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
             urlService.getOriginalUrl(shortCode, password);
@@ -103,12 +189,33 @@ class UrlServiceImplTest {
                 .expiryDate(LocalDateTime.now().plusDays(1)) // Not Expired
                 .build();
 
-        when(urlRepository.findByShortCode(shortCode)).thenReturn(Optional.of(entity));
+        when(linkLookupService.findLink(shortCode)).thenReturn(LinkLookupService.toResolvedLink(entity));
 
-        String originalUrl = urlService.getOriginalUrl(shortCode, password);
+        ResolvedLink link = urlService.getOriginalUrl(shortCode, password);
 
-        assertEquals("https://valid.com", originalUrl);
-        verify(urlRepository).save(entity); // Should update last_accessed_at/visits
+        assertEquals("https://valid.com", link.originalUrl());
+        assertFalse(link.permanent()); // Expiring links must not be cached as 301
+    }
+
+    @Test
+    void testGetOriginalUrl_CachedPasswordLinkStillChecksPassword() {
+        String shortCode = "secret";
+        UrlEntity entity = UrlEntity.builder()
+                .shortCode(shortCode)
+                .originalUrl("https://secret.com")
+                .isActive(true)
+                .password("letmein")
+                .build();
+
+        // Same record instance every time, as if served from the cache
+        when(linkLookupService.findLink(shortCode)).thenReturn(LinkLookupService.toResolvedLink(entity));
+
+        assertThrows(RuntimeException.class, () -> urlService.getOriginalUrl(shortCode, "wrong"));
+        assertThrows(RuntimeException.class, () -> urlService.getOriginalUrl(shortCode, null));
+
+        ResolvedLink link = urlService.getOriginalUrl(shortCode, "letmein");
+        assertEquals("https://secret.com", link.originalUrl());
+        assertFalse(link.permanent());
     }
 
     @Test
@@ -117,8 +224,10 @@ class UrlServiceImplTest {
         request.setUrl("https://google.com");
         request.setCustomCode("duplicate");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(urlRepository.findByShortCode("duplicate")).thenReturn(Optional.of(new UrlEntity()));
+        stubUser();
+        when(customCodeReservationService.reserve("duplicate", 1L)).thenReturn(true);
+        // The unique index is what rejects an existing code now
+        when(urlRepository.save(any(UrlEntity.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
 
         ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
             urlService.shortenUrl(request, 1L);
@@ -126,6 +235,24 @@ class UrlServiceImplTest {
 
         assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
         assertEquals("Custom code already exists", exception.getReason());
+        // Might be an explicit reservation made through /custom-codes; a failed insert must not drop it
+        verify(customCodeReservationService, never()).release(anyString(), anyLong());
+    }
+
+    @Test
+    void testShortenUrl_CustomCodeReservedByAnotherUser() {
+        UrlRequestDto request = new UrlRequestDto();
+        request.setUrl("https://google.com");
+        request.setCustomCode("held");
+
+        stubUser();
+        when(customCodeReservationService.reserve("held", 1L)).thenReturn(false);
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> urlService.shortenUrl(request, 1L));
+
+        assertEquals(HttpStatus.CONFLICT, exception.getStatusCode());
+        verify(urlRepository, never()).save(any(UrlEntity.class));
     }
 
     @Test
@@ -134,8 +261,8 @@ class UrlServiceImplTest {
         request.setUrl("https://google.com");
         request.setCustomCode("new-code");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(urlRepository.findByShortCode("new-code")).thenReturn(Optional.empty());
+        stubUser();
+        when(customCodeReservationService.reserve("new-code", 1L)).thenReturn(true);
         when(urlRepository.save(any(UrlEntity.class))).thenAnswer(invocation -> {
             UrlEntity entity = invocation.getArgument(0);
             entity.setId(1L);
@@ -147,6 +274,7 @@ class UrlServiceImplTest {
         assertNotNull(response);
         assertEquals("new-code", response.getShortCode());
         verify(urlRepository).save(any(UrlEntity.class));
+        verify(customCodeReservationService).release("new-code", 1L);
     }
 
     @Test
@@ -187,4 +315,9 @@ class UrlServiceImplTest {
         assertEquals(HttpStatus.NOT_FOUND, exception.getStatusCode());
         assertEquals("URL not found", exception.getReason());
     }
+
+    private void stubUser() {
+        when(userLookupService.findUser(1L)).thenReturn(new UserContext(1L, Set.of()));
+        when(userLookupService.reference(1L)).thenReturn(user);
+    }
 }
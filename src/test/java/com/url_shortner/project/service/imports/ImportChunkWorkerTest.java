@@ -0,0 +1,140 @@
+package com.url_shortner.project.service.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.url_shortner.project.dto.BatchUrlResponseDto;
+import com.url_shortner.project.entity.ImportJobEntity;
+import com.url_shortner.project.entity.UserEntity;
+import com.url_shortner.project.repository.ImportJobRepository;
+import com.url_shortner.project.service.bulk.StreamingBulkShortenService;
+import com.url_shortner.project.service.bulk.StreamingBulkShortenService.ParsedLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImportChunkWorkerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImportJobRepository importJobRepository;
+    private StreamingBulkShortenService streamingBulkShortenService;
+    private ImportChunkWorker worker;
+    private ImportJobEntity job;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path file = tempDir.resolve("job.csv");
+        Files.writeString(file, "url,customCode\nhttps://a.example,\n\nhttps://b.example,bee\n", StandardCharsets.UTF_8);
+        UserEntity user = UserEntity.builder().id(1L).build();
+        job = ImportJobEntity.builder().id(7L).user(user).csv(true).status("RUNNING").filePath(file.toString())
+                .totalChunks(1).build();
+
+        importJobRepository = mock(ImportJobRepository.class);
+        streamingBulkShortenService = mock(StreamingBulkShortenService.class);
+        when(importJobRepository.findById(7L)).thenReturn(Optional.of(job));
+        when(streamingBulkShortenService.parse(anyLong(), anyString(), eq(true))).thenAnswer(
+                invocation -> new ParsedLine(invocation.getArgument(0), null, invocation.getArgument(1)));
+        when(streamingBulkShortenService.shortenLines(any(), anyList())).thenAnswer(invocation -> {
+            List<ParsedLine> lines = invocation.getArgument(1);
+            List<BatchUrlResponseDto> results = new ArrayList<>();
+            for (ParsedLine line : lines) {
+                results.add(BatchUrlResponseDto.builder().originalUrl(line.error()).status("SUCCESS")
+                        .line(line.lineNumber()).build());
+            }
+            return results;
+        });
+
+        worker = new ImportChunkWorker(importJobRepository, mock(ImportJobService.class),
+                streamingBulkShortenService, new ObjectMapper());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testProcessChunk_SkipsHeaderAndBlankLinesAndRecordsCounts() throws Exception {
+        long length = Files.size(Path.of(job.getFilePath()));
+
+        worker.processChunk(new ImportChunk(7L, 0, 0, length, 1).toMessage());
+
+        ArgumentCaptor<List<ParsedLine>> lines = ArgumentCaptor.forClass(List.class);
+        verify(streamingBulkShortenService).shortenLines(any(), lines.capture());
+        assertEquals(List.of(2L, 4L), lines.getValue().stream().map(ParsedLine::lineNumber).toList());
+        verify(importJobRepository).recordChunk(eq(7L), eq(0), eq(4L), eq(2L), eq(0L), any());
+        verify(importJobRepository).completeIfDone(eq(7L), any());
+
+        List<String> results = Files.readAllLines(ImportJobService.resultFile(job, 0));
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    void testProcessChunk_RedeliveredChunkIsCountedOnce() throws Exception {
+        String message = new ImportChunk(7L, 0, 0, Files.size(Path.of(job.getFilePath())), 1).toMessage();
+        AtomicBoolean recorded = new AtomicBoolean();
+        when(importJobRepository.recordChunk(anyLong(), anyInt(), anyLong(), anyLong(), anyLong(), any()))
+                .thenAnswer(invocation -> recorded.getAndSet(true) ? 0 : 1);
+        when(importJobRepository.isChunkRecorded(7L, 0)).thenAnswer(invocation -> recorded.get());
+
+        worker.processChunk(message);
+        worker.processChunk(message);
+
+        verify(streamingBulkShortenService, times(1)).shortenLines(any(), anyList());
+        verify(importJobRepository, times(1)).recordChunk(anyLong(), anyInt(), anyLong(), anyLong(), anyLong(),
+                any());
+    }
+
+    @Test
+    void testProcessChunk_ResultsWrittenButNotCountedAreCountedFromFile() throws Exception {
+        Path resultFile = ImportJobService.resultFile(job, 0);
+        Files.createDirectories(resultFile.getParent());
+        Files.writeString(resultFile, "{\"status\":\"SUCCESS\"}\n{\"status\":\"FAILURE\"}\n", StandardCharsets.UTF_8);
+
+        worker.processChunk(new ImportChunk(7L, 0, 0, Files.size(Path.of(job.getFilePath())), 1).toMessage());
+
+        verify(streamingBulkShortenService, never()).shortenLines(any(), anyList());
+        verify(importJobRepository).recordChunk(eq(7L), eq(0), eq(4L), eq(1L), eq(1L), any());
+        verify(importJobRepository).completeIfDone(eq(7L), any());
+    }
+
+    @Test
+    void testProcessChunk_FailureMarksJobFailedWithoutSavingStaleEntity() throws Exception {
+        when(streamingBulkShortenService.shortenLines(any(), anyList())).thenThrow(new IllegalStateException("boom"));
+
+        worker.processChunk(new ImportChunk(7L, 0, 0, Files.size(Path.of(job.getFilePath())), 1).toMessage());
+
+        verify(importJobRepository).fail(eq(7L), contains("boom"), any());
+        verify(importJobRepository, never()).save(any());
+    }
+
+    @Test
+    void testProcessChunk_LongErrorIsCutToTheErrorColumn() throws Exception {
+        when(streamingBulkShortenService.shortenLines(any(), anyList()))
+                .thenThrow(new IllegalStateException("x".repeat(1000)));
+
+        worker.processChunk(new ImportChunk(7L, 0, 0, Files.size(Path.of(job.getFilePath())), 1).toMessage());
+
+        ArgumentCaptor<String> error = ArgumentCaptor.forClass(String.class);
+        verify(importJobRepository).fail(eq(7L), error.capture(), any());
+        assertEquals(ImportJobEntity.ERROR_LENGTH, error.getValue().length());
+    }
+
+    @Test
+    void testProcessChunk_UnhandledFailureIsRejectedWithoutRequeue() throws Exception {
+        when(importJobRepository.findById(7L)).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(AmqpRejectAndDontRequeueException.class, () -> worker.processChunk(
+                new ImportChunk(7L, 0, 0, Files.size(Path.of(job.getFilePath())), 1).toMessage()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.url_shortner.project.service.imports;
+
+import com.url_shortner.project.config.RabbitMQConfig;
+import com.url_shortner.project.dto.ImportJobDto;
+import com.url_shortner.project.dto.UserContext;
+import com.url_shortner.project.entity.ImportJobEntity;
+import com.url_shortner.project.entity.Role;
+import com.url_shortner.project.entity.UserEntity;
+import com.url_shortner.project.repository.ImportJobRepository;
+import com.url_shortner.project.service.UserLookupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ImportJobServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ImportJobRepository importJobRepository;
+    private UserLookupService userLookupService;
+    private RabbitTemplate rabbitTemplate;
+    private ImportJobService importJobService;
+    private final UserEntity user = UserEntity.builder().id(1L).email("test@example.com")
+            .roles(Set.of(Role.ENTERPRISE)).build();
+
+    @BeforeEach
+    void setUp() {
+        importJobRepository = mock(ImportJobRepository.class);
+        userLookupService = mock(UserLookupService.class);
+        rabbitTemplate = mock(RabbitTemplate.class);
+        importJobService = new ImportJobService(importJobRepository, userLookupService, rabbitTemplate,
+                mock(StringRedisTemplate.class), mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(importJobService, "importDir", tempDir);
+        ReflectionTestUtils.setField(importJobService, "chunkLines", 2);
+        ReflectionTestUtils.setField(importJobService, "longPollTimeout", Duration.ofSeconds(30));
+
+        when(userLookupService.findUser(1L)).thenReturn(new UserContext(1L, Set.of(Role.ENTERPRISE)));
+        when(userLookupService.reference(1L)).thenReturn(user);
+        when(importJobRepository.save(any(ImportJobEntity.class))).thenAnswer(invocation -> {
+            ImportJobEntity job = invocation.getArgument(0);
+            job.setId(7L);
+            return job;
+        });
+    }
+
+    @Test
+    void testUpload_SplitsOnLineBoundaries() throws Exception {
+        String body = "l1\nl2\nünï\nl4\nl5";
+        Path file = tempDir.resolve("upload.ndjson");
+
+        ImportJobService.Upload upload = importJobService.upload(7L,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), file);
+
+        assertEquals(5, upload.lines());
+        List<ImportChunk> chunks = upload.chunks();
+        assertEquals(3, chunks.size());
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals("l1\nl2\n", slice(bytes, chunks.get(0)));
+        assertEquals("ünï\nl4\n", slice(bytes, chunks.get(1)));
+        assertEquals("l5", slice(bytes, chunks.get(2)));
+        assertEquals(3, chunks.get(1).firstLine());
+        assertEquals(5, chunks.get(2).firstLine());
+    }
+
+    @Test
+    void testCreateJob_QueuesOneMessagePerChunk() throws Exception {
+        ImportJobDto job = importJobService.createJob(1L,
+                new ByteArrayInputStream("a\nb\nc\n".getBytes(StandardCharsets.UTF_8)), false);
+
+        assertEquals("RUNNING", job.getStatus());
+        assertEquals(3, job.getTotalLines());
+        verify(rabbitTemplate).convertAndSend(RabbitMQConfig.EXCHANGE, RabbitMQConfig.ROUTING_KEY_IMPORT_CHUNK,
+                "7:0:0:4:1");
+        verify(rabbitTemplate).convertAndSend(RabbitMQConfig.EXCHANGE, RabbitMQConfig.ROUTING_KEY_IMPORT_CHUNK,
+                "7:1:4:2:3");
+    }
+
+    @Test
+    void testCreateJob_EmptyUploadIsCompletedRightAway() throws Exception {
+        ImportJobDto job = importJobService.createJob(1L, new ByteArrayInputStream(new byte[0]), true);
+
+        assertEquals("COMPLETED", job.getStatus());
+        verify(rabbitTemplate, never()).convertAndSend(eq(RabbitMQConfig.EXCHANGE), any(String.class),
+                any(Object.class));
+    }
+
+    @Test
+    void testWaitForProgress_ReturnsAtOnceWhenProgressWasMissed() {
+        ImportJobEntity job = ImportJobEntity.builder().id(7L).user(user).status("RUNNING").processedLines(10)
+                .filePath("x").build();
+        when(importJobRepository.findById(7L)).thenReturn(Optional.of(job));
+
+        DeferredResult<ImportJobDto> stale = importJobService.waitForProgress(7L, 1L, 5L);
+        DeferredResult<ImportJobDto> current = importJobService.waitForProgress(7L, 1L, 10L);
+
+        assertTrue(stale.hasResult());
+        assertFalse(current.hasResult());
+    }
+
+    private static String slice(byte[] bytes, ImportChunk chunk) {
+        return new String(bytes, (int) chunk.offset(), (int) chunk.length(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testCleanUpFinishedJobs_DeletesFilesThenRows() throws Exception {
+        ReflectionTestUtils.setField(importJobService, "retention", Duration.ofDays(7));
+        Path file = Files.writeString(tempDir.resolve("old.csv"), "url\nhttps://a.example\n");
+        ImportJobEntity old = ImportJobEntity.builder().id(3L).user(user).status("COMPLETED")
+                .filePath(file.toString()).build();
+        Path results = Files.createDirectories(ImportJobService.resultDir(old));
+        Files.writeString(ImportJobService.resultFile(old, 0), "{}\n");
+        when(importJobRepository.findFinishedBefore(any(), any())).thenReturn(List.of(old));
+
+        importJobService.cleanUpFinishedJobs();
+
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(results));
+        verify(importJobRepository).deleteJob(3L);
+    }
+}
@@ -0,0 +1,95 @@
+package com.url_shortner.project.service.shortcode;
+
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import com.url_shortner.project.service.shortcode.CustomCodeReservationService.Availability;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CustomCodeReservationServiceTest {
+
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private UrlRepository urlRepository;
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+    private CustomCodeReservationService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        urlRepository = mock(UrlRepository.class);
+        shortCodeBloomFilter = mock(ShortCodeBloomFilter.class);
+        service = new CustomCodeReservationService(redisTemplate, urlRepository, shortCodeBloomFilter);
+        ReflectionTestUtils.setField(service, "reservationTtl", Duration.ofMinutes(15));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCheckAvailability_OneQueryOnlyForCodesTheBloomFilterMightKnow() {
+        when(shortCodeBloomFilter.mightExist(anyString())).thenReturn(false);
+        when(shortCodeBloomFilter.mightExist("taken")).thenReturn(true);
+        when(shortCodeBloomFilter.mightExist("falsepos")).thenReturn(true);
+        when(urlRepository.findExistingShortCodes(anyCollection())).thenReturn(List.of("taken"));
+        when(valueOperations.multiGet(anyCollection()))
+                .thenReturn(Arrays.asList(null, null, "2", "1", null));
+
+        Map<String, Availability> result = service.checkAvailability(
+                List.of("free", "taken", "held", "mine", "falsepos", "waytoolongcode"), 1L);
+
+        assertEquals(List.of("free", "taken", "held", "mine", "falsepos", "waytoolongcode"),
+                List.copyOf(result.keySet()));
+        assertEquals(Availability.AVAILABLE, result.get("free"));
+        assertEquals(Availability.TAKEN, result.get("taken"));
+        assertEquals(Availability.RESERVED, result.get("held"));
+        assertEquals(Availability.AVAILABLE, result.get("mine"));
+        assertEquals(Availability.AVAILABLE, result.get("falsepos"));
+        assertEquals(Availability.INVALID, result.get("waytoolongcode"));
+        verify(urlRepository).findExistingShortCodes(argThat(codes -> codes.size() == 2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReserve_FailsWhenHeldByAnotherUser() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("shortcode:reserved:promo")),
+                eq("1"), anyString())).thenReturn(0L);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of("shortcode:reserved:promo")),
+                eq("2"), anyString())).thenReturn(1L);
+
+        assertFalse(service.reserve("promo", 1L));
+        assertTrue(service.reserve("promo", 2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReserve_RedisDownFallsBackToUniqueIndex() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RuntimeException("connection refused"));
+
+        assertTrue(service.reserve("promo", 1L));
+    }
+
+    @Test
+    void testReserveIfAvailable_TakenCodeIsNotReserved() {
+        when(shortCodeBloomFilter.mightExist("taken")).thenReturn(true);
+        when(urlRepository.findExistingShortCodes(List.of("taken"))).thenReturn(List.of("taken"));
+
+        assertEquals(Availability.TAKEN, service.reserveIfAvailable("taken", 1L));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+}
@@ -0,0 +1,105 @@
+package com.url_shortner.project.service.shortcode;
+
+import com.url_shortner.project.repository.UrlRepository;
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PooledShortCodeGeneratorTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private UrlRepository urlRepository;
+
+    @Mock
+    private ShortCodeBloomFilter shortCodeBloomFilter;
+
+    @Mock
+    private RandomShortCodeGenerator randomShortCodeGenerator;
+
+    @Mock
+    private ExecutorService executor;
+
+    private PooledShortCodeGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = new PooledShortCodeGenerator(redisTemplate, urlRepository, shortCodeBloomFilter,
+                randomShortCodeGenerator, executor);
+        ReflectionTestUtils.setField(generator, "lowWaterMark", 10L);
+        ReflectionTestUtils.setField(generator, "targetSize", 4L);
+        ReflectionTestUtils.setField(generator, "refillBatchSize", 2);
+    }
+
+    @Test
+    void testNextCode_TakesCodeFromPoolWithoutDbCheck() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList())).thenReturn(List.of(500L, "abc123"));
+
+        assertEquals("abc123", generator.nextCode());
+
+        verifyNoInteractions(urlRepository, executor);
+    }
+
+    @Test
+    void testNextCode_SkipsCodeTakenSinceItWasPooled() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList()))
+                .thenReturn(List.of(500L, "custom"))
+                .thenReturn(List.of(499L, "abc123"));
+        when(shortCodeBloomFilter.isReady()).thenReturn(true);
+        when(shortCodeBloomFilter.mightExist("custom")).thenReturn(true);
+
+        assertEquals("abc123", generator.nextCode());
+    }
+
+    @Test
+    void testNextCode_EmptyPoolFallsBackAndTriggersRefill() {
+        when(redisTemplate.execute(any(RedisScript.class), anyList())).thenReturn(Arrays.asList(0L, null));
+        when(randomShortCodeGenerator.nextCode()).thenReturn("xyz789");
+
+        assertEquals("xyz789", generator.nextCode());
+
+        verify(executor).execute(any(Runnable.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRefill_DropsExistingCodesAndFillsToTarget() {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        ListOperations<String, String> listOperations = mock(ListOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        when(listOperations.size(PooledShortCodeGenerator.POOL_KEY)).thenReturn(0L);
+        when(randomShortCodeGenerator.randomCode()).thenReturn("aaaaaa", "bbbbbb", "cccccc", "dddddd", "eeeeee");
+        when(urlRepository.findExistingShortCodes(anyCollection()))
+                .thenReturn(List.of("aaaaaa"))
+                .thenReturn(List.of());
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> (long) (invocation.getArguments().length - 2));
+
+        generator.refill();
+
+        verify(redisTemplate, times(3)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(), eq("bbbbbb"));
+    }
+}
@@ -0,0 +1,75 @@
+package com.url_shortner.project.service.shortcode;
+
+import com.url_shortner.project.service.bloom.ShortCodeBloomFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SequenceShortCodeGeneratorTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final ShortCodeBloomFilter shortCodeBloomFilter = mock(ShortCodeBloomFilter.class);
+
+    @Test
+    void testEncode_ScrambledCodesAreABijection() {
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(redisTemplate, shortCodeBloomFilter,
+                100, 2, "secret");
+
+        Set<String> codes = new HashSet<>();
+        for (long id = 0; id < 62 * 62; id++) {
+            String code = generator.encode(id);
+            assertEquals(2, code.length());
+            codes.add(code);
+        }
+        assertEquals(62 * 62, codes.size());
+    }
+
+    @Test
+    void testEncode_DifferentKeysGiveDifferentPermutations() {
+        SequenceShortCodeGenerator first = new SequenceShortCodeGenerator(redisTemplate, shortCodeBloomFilter,
+                100, 7, "secret");
+        SequenceShortCodeGenerator second = new SequenceShortCodeGenerator(redisTemplate, shortCodeBloomFilter,
+                100, 7, "secret2");
+
+        int same = 0;
+        for (long id = 1; id <= 100; id++) {
+            if (first.encode(id).equals(second.encode(id))) {
+                same++;
+            }
+        }
+        assertEquals(0, same);
+    }
+
+    @Test
+    void testEncode_UnscrambledIsPlainFixedWidthBase62() {
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(redisTemplate, shortCodeBloomFilter,
+                100, 7, "");
+
+        assertEquals("aaaaaab", generator.encode(1));
+        assertEquals("aaaaaba", generator.encode(62));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNextCode_LeasesOneBlockPerBlockSizeCodes() {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment(SequenceShortCodeGenerator.SEQUENCE_KEY, 3)).thenReturn(3L, 6L);
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(redisTemplate, shortCodeBloomFilter,
+                3, 7, "secret");
+
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 6; i++) {
+            codes.add(generator.nextCode());
+        }
+
+        assertEquals(6, codes.size());
+        verify(valueOperations, times(2)).increment(SequenceShortCodeGenerator.SEQUENCE_KEY, 3);
+    }
+}
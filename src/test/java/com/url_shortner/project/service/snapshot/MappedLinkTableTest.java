@@ -0,0 +1,61 @@
+package com.url_shortner.project.service.snapshot;
+
+import com.url_shortner.project.dto.ResolvedLink;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLinkTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteAndFind() throws Exception {
+        Path file = tempDir.resolve("links.snapshot");
+        int count = 10_000;
+
+        try (LinkSnapshotWriter writer = new LinkSnapshotWriter(file, count)) {
+            for (int i = 0; i < count; i++) {
+                assertTrue(writer.add("code" + i, new ResolvedLink("https://example.com/" + i,
+                        ResolvedLink.NO_EXPIRY, null, true, ResolvedLink.RedirectType.PERMANENT)));
+            }
+            writer.add("secret", new ResolvedLink("https://example.com/secret", 1234L,
+                    ResolvedLink.hashPassword("pw"), true, ResolvedLink.RedirectType.TEMPORARY));
+            writer.finish(42L);
+        }
+
+        MappedLinkTable table = MappedLinkTable.open(file);
+
+        assertEquals(count + 1, table.getEntryCount());
+        assertEquals(42L, table.getCreatedAtEpochMilli());
+        for (int i = 0; i < count; i++) {
+            assertEquals("https://example.com/" + i, table.find("code" + i).originalUrl());
+        }
+
+        ResolvedLink secret = table.find("secret");
+        assertEquals(1234L, secret.expiresAtEpochMilli());
+        assertTrue(secret.matchesPassword("pw"));
+        assertFalse(secret.permanent());
+    }
+
+    @Test
+    void testFind_UnknownCode() throws Exception {
+        Path file = tempDir.resolve("links.snapshot");
+        try (LinkSnapshotWriter writer = new LinkSnapshotWriter(file, 100)) {
+            for (int i = 0; i < 100; i++) {
+                writer.add("code" + i, new ResolvedLink("https://example.com/" + i, ResolvedLink.NO_EXPIRY, null,
+                        true, ResolvedLink.RedirectType.PERMANENT));
+            }
+            writer.finish(System.currentTimeMillis());
+        }
+
+        MappedLinkTable table = MappedLinkTable.open(file);
+
+        assertNull(table.find("missing"));
+        assertNull(table.find("code100"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.url_shortner.project.service.visits;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VisitCounterBufferTest {
+
+    private StringRedisTemplate redisTemplate;
+    private StringRedisConnection connection;
+    private VisitCounterBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        connection = mock(StringRedisConnection.class);
+        buffer = new VisitCounterBuffer(redisTemplate, mock(ExecutorService.class));
+        ReflectionTestUtils.setField(buffer, "flushMaxEvents", 10_000L);
+        ReflectionTestUtils.setField(buffer, "pipelineBatchSize", 1000);
+        ReflectionTestUtils.setField(buffer, "maxCodes", 100);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runPipelineAgainstConnection() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    @Test
+    void testFlush_SendsOnePipelinedBatch() {
+        runPipelineAgainstConnection();
+        buffer.record("abc");
+        buffer.record("abc");
+        buffer.record("abc");
+        buffer.record("xyz");
+
+        assertEquals(2, buffer.flush());
+
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+        verify(connection).incrBy("visits:abc", 3L);
+        verify(connection).incrBy("visits:xyz", 1L);
+        ArgumentCaptor<String[]> dirtyCodes = ArgumentCaptor.forClass(String[].class);
+        verify(connection).sAdd(eq("dirty_urls"), dirtyCodes.capture());
+        assertEquals(Set.of("abc", "xyz"), Set.of(dirtyCodes.getValue()));
+        assertEquals(0, buffer.pendingVisits());
+
+        // Nothing new: nothing sent
+        assertEquals(0, buffer.flush());
+        verify(redisTemplate, times(1)).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_RedisFailureKeepsCountsForNextFlush() {
+        when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                .thenThrow(new QueryTimeoutException("Redis timed out"));
+        buffer.record("abc");
+        buffer.record("abc");
+
+        assertEquals(0, buffer.flush());
+        assertEquals(2, buffer.pendingVisits());
+
+        reset(redisTemplate);
+        runPipelineAgainstConnection();
+        buffer.record("abc");
+
+        assertEquals(1, buffer.flush());
+        verify(connection).incrBy("visits:abc", 3L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecord_FullBufferFallsBackToDirectWrites() {
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        ReflectionTestUtils.setField(buffer, "maxCodes", 1);
+
+        buffer.record("abc");
+        buffer.record("xyz");
+
+        verify(valueOperations).increment("visits:xyz", 1L);
+        verify(setOperations).add("dirty_urls", "xyz");
+        verify(valueOperations, never()).increment(eq("visits:abc"), anyLong());
+        assertEquals(1, buffer.pendingVisits());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecord_RacingWithIdleRemovalLosesNothing() throws Exception {
+        AtomicLong sent = new AtomicLong();
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            StringRedisConnection counting = mock(StringRedisConnection.class);
+            when(counting.incrBy(anyString(), anyLong())).thenAnswer(call -> sent.addAndGet(call.getArgument(1)));
+            invocation.getArgument(0, RedisCallback.class).doInRedis(counting);
+            return List.of();
+        });
+        ReflectionTestUtils.setField(buffer, "maxCodes", 1000);
+
+        int visits = 200_000;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < visits; i++) {
+                // Few codes, bursty: they keep going idle and being dropped while the writer uses them
+                buffer.record("code" + (i / 500 % 5));
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            buffer.flush();
+        }
+        writer.join();
+        buffer.flush();
+
+        assertEquals(visits, sent.get());
+        assertEquals(0, buffer.pendingVisits());
+    }
+}
@@ -0,0 +1,102 @@
+package com.url_shortner.project.service.warmup;
+
+import com.url_shortner.project.dto.ResolvedLink;
+import com.url_shortner.project.entity.UrlEntity;
+import com.url_shortner.project.repository.UrlRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmupServiceTest {
+
+    @Mock
+    private UrlRepository urlRepository;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private StringRedisTemplate redisStatsTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private Cache cache;
+
+    @InjectMocks
+    private CacheWarmupService cacheWarmupService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cacheWarmupService, "enabled", true);
+        ReflectionTestUtils.setField(cacheWarmupService, "topN", 4);
+        ReflectionTestUtils.setField(cacheWarmupService, "recentN", 10);
+        ReflectionTestUtils.setField(cacheWarmupService, "batchSize", 2);
+        ReflectionTestUtils.setField(cacheWarmupService, "timeBudget", Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testRun_WarmsRecentAndTopVisitedLinks() {
+        when(cacheManager.getCache("links")).thenReturn(cache);
+        when(redisStatsTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.distinctRandomMembers("dirty_urls", 10)).thenReturn(Set.of("recent"));
+        when(urlRepository.findByShortCodeIn(List.of("recent"))).thenReturn(List.of(url("recent")));
+        when(urlRepository.findMostVisitedAfter(eq(Long.MAX_VALUE), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(url("top1", 1L, 9L), url("top2", 2L, 7L)));
+        when(urlRepository.findMostVisitedAfter(eq(7L), eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(url("top3", 3L, 7L)));
+
+        CacheWarmupHealthIndicator health = new CacheWarmupHealthIndicator(cacheWarmupService);
+        assertEquals(Status.OUT_OF_SERVICE, health.health().getStatus());
+
+        cacheWarmupService.run(null);
+
+        verify(cache).put(eq("recent"), any(ResolvedLink.class));
+        verify(cache).put(eq("top1"), any(ResolvedLink.class));
+        verify(cache).put(eq("top3"), any(ResolvedLink.class));
+        verify(urlRepository, times(2)).findMostVisitedAfter(anyLong(), anyLong(), any(Pageable.class));
+        assertEquals(4, cacheWarmupService.getWarmedCount());
+        assertEquals(Status.UP, health.health().getStatus());
+    }
+
+    @Test
+    void testRun_FailureStillReportsReady() {
+        when(cacheManager.getCache("links")).thenThrow(new IllegalStateException("redis down"));
+
+        cacheWarmupService.run(null);
+
+        assertTrue(cacheWarmupService.isFinished());
+        assertEquals(0, cacheWarmupService.getWarmedCount());
+    }
+
+    private static UrlEntity url(String code) {
+        return UrlEntity.builder().shortCode(code).originalUrl("https://example.com/" + code).isActive(true)
+                .build();
+    }
+
+    private static UrlEntity url(String code, Long id, Long visits) {
+        return UrlEntity.builder().id(id).shortCode(code).originalUrl("https://example.com/" + code)
+                .visits(visits).isActive(true).build();
+    }
+}